@@ -0,0 +1,54 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/***
+ * GrpcCacheable annotation
+ * Caches responses of unary method of {@link GrpcService}. Calls with same request are answered from cache
+ * without calling the method, until entry expires.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GrpcCacheable {
+
+    /**
+     * @return time to live of cached response in milliseconds
+     */
+    long ttl() default 60000L;
+
+    /**
+     * @return maximum number of cached responses; least recently used are evicted first
+     */
+    int maxEntries() default 1000;
+
+    /**
+     * @return cache responses separately for each caller (subject of JWT token)
+     */
+    boolean perCaller() default false;
+}
@@ -38,5 +38,6 @@ public @interface GrpcService {
     GrpcInterceptor[] interceptors() default {};
     boolean secured() default false;
     String resourceName() default "";
+    boolean rateLimited() default false;
 
 }
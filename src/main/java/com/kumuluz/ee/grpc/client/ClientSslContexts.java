@@ -0,0 +1,126 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client;
+
+import io.grpc.netty.shaded.io.grpc.netty.GrpcSslContexts;
+import io.grpc.netty.shaded.io.netty.handler.ssl.OpenSsl;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SslContext;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SslContextBuilder;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider;
+
+import javax.net.ssl.SSLException;
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+/***
+ * ClientSslContexts class
+ * Process-wide cache of client SSL contexts. Clients with the same certificate, key and trust files share one
+ * context, so PEM files are read once and TLS sessions can be resumed on reconnects across channels.
+ * Context is rebuilt when any of the files changes.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+final class ClientSslContexts {
+
+    private static final Logger logger = Logger.getLogger(ClientSslContexts.class.getName());
+
+    private static final ConcurrentMap<List<Object>, CachedContext> contexts = new ConcurrentHashMap<>();
+
+    private ClientSslContexts() {
+    }
+
+    /**
+     * @return SSL context for client or null, if client does not configure trust file
+     */
+    static SslContext get(GrpcChannelConfig config) throws SSLException {
+        if (config.getTrustManager() == null) {
+            return null;
+        }
+
+        File trustFile = new File(config.getTrustManager());
+        File certFile = config.getCertFile() != null && config.getKeyFile() != null ? new File(config.getCertFile()) : null;
+        File keyFile = certFile != null ? new File(config.getKeyFile()) : null;
+
+        List<Object> key = Arrays.asList(trustFile.getAbsolutePath(),
+                certFile != null ? certFile.getAbsolutePath() : null,
+                keyFile != null ? keyFile.getAbsolutePath() : null,
+                config.getSessionCacheSize(), config.getSessionTimeout());
+        List<Long> modified = Arrays.asList(trustFile.lastModified(),
+                certFile != null ? certFile.lastModified() : 0L,
+                keyFile != null ? keyFile.lastModified() : 0L);
+
+        CachedContext cached = contexts.get(key);
+        if (cached != null && cached.modified.equals(modified)) {
+            return cached.context;
+        }
+
+        synchronized (contexts) {
+            cached = contexts.get(key);
+            if (cached == null || !cached.modified.equals(modified)) {
+                cached = new CachedContext(modified, build(trustFile, certFile, keyFile,
+                        config.getSessionCacheSize(), config.getSessionTimeout()));
+                contexts.put(key, cached);
+            }
+            return cached.context;
+        }
+    }
+
+    private static SslContext build(File trustFile, File certFile, File keyFile, long sessionCacheSize,
+                                    long sessionTimeout) throws SSLException {
+        SslProvider provider = OpenSsl.isAvailable() ? SslProvider.OPENSSL : SslProvider.JDK;
+        if (provider == SslProvider.JDK) {
+            logger.warning("OpenSSL is not available, using JDK TLS provider for gRPC clients: " +
+                    OpenSsl.unavailabilityCause());
+        }
+
+        SslContextBuilder builder = GrpcSslContexts.configure(SslContextBuilder.forClient(), provider);
+
+        if (certFile != null) {
+            builder.keyManager(certFile, keyFile);
+        }
+        builder.trustManager(trustFile);
+
+        if (sessionCacheSize > 0) {
+            builder.sessionCacheSize(sessionCacheSize);
+        }
+        if (sessionTimeout > 0) {
+            builder.sessionTimeout(sessionTimeout);
+        }
+
+        return builder.build();
+    }
+
+    private static class CachedContext {
+
+        private final List<Long> modified;
+        private final SslContext context;
+
+        CachedContext(List<Long> modified, SslContext context) {
+            this.modified = modified;
+            this.context = context;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client;
+
+import io.grpc.netty.shaded.io.netty.channel.Channel;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioSocketChannel;
+import io.grpc.netty.shaded.io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/***
+ * ClientTransportResources class
+ * Event loop group and executors shared by channels of all clients, so number of transport threads does not grow
+ * with number of clients. Epoll transport is used when it is available. Threads are daemon threads, which live as
+ * long as the process.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+final class ClientTransportResources {
+
+    private static final Logger logger = Logger.getLogger(ClientTransportResources.class.getName());
+
+    private static volatile ClientTransportResources instance;
+
+    private final EventLoopGroup eventLoopGroup;
+    private final Class<? extends Channel> channelType;
+    private final ExecutorService offloadExecutor;
+    private volatile ExecutorService callExecutor;
+
+    private ClientTransportResources() {
+        if (Epoll.isAvailable()) {
+            eventLoopGroup = new EpollEventLoopGroup(0, new DefaultThreadFactory("grpc-client-epoll", true));
+            channelType = EpollSocketChannel.class;
+        } else {
+            eventLoopGroup = new NioEventLoopGroup(0, new DefaultThreadFactory("grpc-client-nio", true));
+            channelType = NioSocketChannel.class;
+        }
+        offloadExecutor = Executors.newCachedThreadPool(new DefaultThreadFactory("grpc-client-offload", true));
+
+        logger.info("Created shared gRPC client transport (" + channelType.getSimpleName() + ")");
+    }
+
+    static ClientTransportResources getInstance() {
+        if (instance == null) {
+            synchronized (ClientTransportResources.class) {
+                if (instance == null) {
+                    instance = new ClientTransportResources();
+                }
+            }
+        }
+        return instance;
+    }
+
+    EventLoopGroup getEventLoopGroup() {
+        return eventLoopGroup;
+    }
+
+    Class<? extends Channel> getChannelType() {
+        return channelType;
+    }
+
+    /**
+     * @return executor for blocking tasks of channels, such as name resolution
+     */
+    ExecutorService getOffloadExecutor() {
+        return offloadExecutor;
+    }
+
+    /**
+     * @return fixed size executor for call callbacks, shared by clients which configure shared executor
+     */
+    ExecutorService getCallExecutor() {
+        if (callExecutor == null) {
+            synchronized (this) {
+                if (callExecutor == null) {
+                    callExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                            new DefaultThreadFactory("grpc-client-executor", true));
+                }
+            }
+        }
+        return callExecutor;
+    }
+}
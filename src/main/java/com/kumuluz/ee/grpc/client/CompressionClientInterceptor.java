@@ -0,0 +1,83 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client;
+
+import com.kumuluz.ee.grpc.utils.CompressionCodecs;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.MethodDescriptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * CompressionClientInterceptor class
+ * Compresses requests of methods with configured compression codec, unless call options already select compressor.
+ * Requests smaller than minimum size of method config are sent uncompressed.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class CompressionClientInterceptor implements ClientInterceptor {
+
+    private static final GrpcMethodConfig NO_POLICY = new GrpcMethodConfig.Builder().build();
+
+    private final List<GrpcMethodConfig> methods;
+    private final Map<String, GrpcMethodConfig> methodConfigs = new ConcurrentHashMap<>();
+
+    public CompressionClientInterceptor(List<GrpcMethodConfig> methods) {
+        this.methods = methods;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        GrpcMethodConfig config = methodConfigs.computeIfAbsent(method.getFullMethodName(), name -> {
+            GrpcMethodConfig found = GrpcMethodConfig.findMostSpecific(methods, name, m -> m.getCompression() != null);
+            return found != null ? found : NO_POLICY;
+        });
+        if (config == NO_POLICY || callOptions.getCompressor() != null || config.getCompression().equals("identity")) {
+            return next.newCall(method, callOptions);
+        }
+
+        return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(
+                next.newCall(method, callOptions.withCompression(config.getCompression()))) {
+
+            private boolean messageCompression = true;
+
+            @Override
+            public void setMessageCompression(boolean enabled) {
+                messageCompression = enabled;
+            }
+
+            @Override
+            public void sendMessage(ReqT message) {
+                super.setMessageCompression(messageCompression &&
+                        CompressionCodecs.shouldCompress(message, config.getCompressionMinSize()));
+                super.sendMessage(message);
+            }
+        };
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client;
+
+/***
+ * ExecutorType enum
+ * Executor which runs call callbacks of client channel (kumuluzee.grpc.clients[i].executor).
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public enum ExecutorType {
+
+    /**
+     * Executor created by gRPC for each channel.
+     */
+    DEFAULT("default"),
+    /**
+     * Callbacks run on transport threads. Only for clients whose callbacks never block.
+     */
+    DIRECT("direct"),
+    /**
+     * Fixed size executor shared by all clients with this setting.
+     */
+    SHARED("shared");
+
+    private final String configName;
+
+    ExecutorType(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public static ExecutorType fromConfigName(String configName) {
+        for (ExecutorType type : values()) {
+            if (type.configName.equalsIgnoreCase(configName)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown gRPC client executor: " + configName);
+    }
+}
@@ -20,6 +20,15 @@
  */
 package com.kumuluz.ee.grpc.client;
 
+import com.kumuluz.ee.grpc.client.lb.LoadBalancingPolicy;
+import com.kumuluz.ee.grpc.client.lb.OutlierDetectionConfig;
+import com.kumuluz.ee.grpc.client.lb.WeightedRoundRobinConfig;
+import com.kumuluz.ee.grpc.utils.CompressionCodecs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /***
  * GrpcChannelConfig helper class. Parses configuration file. Serves as data holder for {@link GrpcClient}.
  *
@@ -37,6 +46,28 @@ public class GrpcChannelConfig {
     private String certFile;
     private String keyFile;
     private String trustManager;
+    private long sessionCacheSize;
+    private long sessionTimeout;
+    private int connections;
+    private int flowControlWindow;
+    private int maxInboundMessageSize;
+    private long idleTimeout;
+    private ExecutorType executor;
+    private List<String> endpoints;
+    private LoadBalancingPolicy loadBalancing;
+    private String hashKeyHeader;
+    private String hashKeyField;
+    private int ringHashReplicas;
+    private long peakEwmaDecayTime;
+    private OutlierDetectionConfig outlierDetection;
+    private WeightedRoundRobinConfig weightedRoundRobin;
+    private List<GrpcMethodConfig> methods;
+    private long retryBufferSize;
+    private long perRpcBufferLimit;
+    private int retryThrottlingMaxTokens;
+    private double retryThrottlingTokenRatio;
+    private List<String> compressionCodecs;
+    private boolean inProcess;
 
     private static final Integer GRPC_DEFAULT_SERVER_PORT = 8443;
 
@@ -50,6 +81,28 @@ public class GrpcChannelConfig {
         private String certFile;
         private String keyFile;
         private String trustManager;
+        private long sessionCacheSize;
+        private long sessionTimeout;
+        private int connections = 1;
+        private int flowControlWindow;
+        private int maxInboundMessageSize;
+        private long idleTimeout;
+        private ExecutorType executor = ExecutorType.DEFAULT;
+        private List<String> endpoints = new ArrayList<>();
+        private LoadBalancingPolicy loadBalancing;
+        private String hashKeyHeader;
+        private String hashKeyField;
+        private int ringHashReplicas;
+        private long peakEwmaDecayTime;
+        private OutlierDetectionConfig outlierDetection;
+        private WeightedRoundRobinConfig weightedRoundRobin;
+        private List<GrpcMethodConfig> methods = new ArrayList<>();
+        private long retryBufferSize;
+        private long perRpcBufferLimit;
+        private int retryThrottlingMaxTokens;
+        private double retryThrottlingTokenRatio = 0.1;
+        private List<String> compressionCodecs = new ArrayList<>();
+        private boolean inProcess;
 
         public void name(String name) {
             this.name = name;
@@ -87,6 +140,94 @@ public class GrpcChannelConfig {
             this.trustManager = trustManager;
         }
 
+        public void sessionCacheSize(long sessionCacheSize) {
+            this.sessionCacheSize = sessionCacheSize;
+        }
+
+        public void sessionTimeout(long sessionTimeout) {
+            this.sessionTimeout = sessionTimeout;
+        }
+
+        public void connections(int connections) {
+            this.connections = connections;
+        }
+
+        public void flowControlWindow(int flowControlWindow) {
+            this.flowControlWindow = flowControlWindow;
+        }
+
+        public void maxInboundMessageSize(int maxInboundMessageSize) {
+            this.maxInboundMessageSize = maxInboundMessageSize;
+        }
+
+        public void idleTimeout(long idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public void executor(ExecutorType executor) {
+            this.executor = executor;
+        }
+
+        public void endpoint(String endpoint) {
+            this.endpoints.add(endpoint);
+        }
+
+        public void loadBalancing(LoadBalancingPolicy loadBalancing) {
+            this.loadBalancing = loadBalancing;
+        }
+
+        public void hashKeyHeader(String hashKeyHeader) {
+            this.hashKeyHeader = hashKeyHeader;
+        }
+
+        public void hashKeyField(String hashKeyField) {
+            this.hashKeyField = hashKeyField;
+        }
+
+        public void ringHashReplicas(int ringHashReplicas) {
+            this.ringHashReplicas = ringHashReplicas;
+        }
+
+        public void peakEwmaDecayTime(long peakEwmaDecayTime) {
+            this.peakEwmaDecayTime = peakEwmaDecayTime;
+        }
+
+        public void outlierDetection(OutlierDetectionConfig outlierDetection) {
+            this.outlierDetection = outlierDetection;
+        }
+
+        public void weightedRoundRobin(WeightedRoundRobinConfig weightedRoundRobin) {
+            this.weightedRoundRobin = weightedRoundRobin;
+        }
+
+        public void method(GrpcMethodConfig method) {
+            this.methods.add(method);
+        }
+
+        public void retryBufferSize(long retryBufferSize) {
+            this.retryBufferSize = retryBufferSize;
+        }
+
+        public void perRpcBufferLimit(long perRpcBufferLimit) {
+            this.perRpcBufferLimit = perRpcBufferLimit;
+        }
+
+        public void retryThrottlingMaxTokens(int retryThrottlingMaxTokens) {
+            this.retryThrottlingMaxTokens = retryThrottlingMaxTokens;
+        }
+
+        public void retryThrottlingTokenRatio(double retryThrottlingTokenRatio) {
+            this.retryThrottlingTokenRatio = retryThrottlingTokenRatio;
+        }
+
+        public void inProcess(boolean inProcess) {
+            this.inProcess = inProcess;
+        }
+
+        public void compressionCodec(String compressionCodec) {
+            this.compressionCodecs.add(compressionCodec.trim().toLowerCase());
+        }
+
         public GrpcChannelConfig build() {
             GrpcChannelConfig config = new GrpcChannelConfig();
 
@@ -99,6 +240,30 @@ public class GrpcChannelConfig {
             config.certFile = certFile;
             config.keyFile = keyFile;
             config.trustManager = trustManager;
+            config.sessionCacheSize = sessionCacheSize;
+            config.sessionTimeout = sessionTimeout;
+            config.connections = Math.max(1, connections);
+            config.flowControlWindow = flowControlWindow;
+            config.maxInboundMessageSize = maxInboundMessageSize;
+            config.idleTimeout = idleTimeout;
+            config.executor = executor;
+            config.endpoints = Collections.unmodifiableList(new ArrayList<>(endpoints));
+            config.loadBalancing = loadBalancing;
+            config.hashKeyHeader = hashKeyHeader;
+            config.hashKeyField = hashKeyField;
+            config.ringHashReplicas = ringHashReplicas;
+            config.peakEwmaDecayTime = peakEwmaDecayTime;
+            config.outlierDetection = outlierDetection;
+            config.weightedRoundRobin = weightedRoundRobin;
+            config.methods = Collections.unmodifiableList(new ArrayList<>(methods));
+            config.retryBufferSize = retryBufferSize;
+            config.perRpcBufferLimit = perRpcBufferLimit;
+            config.retryThrottlingMaxTokens = retryThrottlingMaxTokens;
+            config.retryThrottlingTokenRatio = retryThrottlingTokenRatio;
+            config.compressionCodecs = compressionCodecs.isEmpty()
+                    ? CompressionCodecs.DEFAULT_CODECS
+                    : Collections.unmodifiableList(new ArrayList<>(compressionCodecs));
+            config.inProcess = inProcess;
 
             return config;
         }
@@ -142,4 +307,119 @@ public class GrpcChannelConfig {
     public boolean getKeepAliveWithoutCalls() {
         return keepAliveWithoutCalls;
     }
+
+    /**
+     * @return number of cached TLS sessions or 0 for default of SSL provider
+     */
+    public long getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    /**
+     * @return seconds in which cached TLS session can be resumed or 0 for default of SSL provider
+     */
+    public long getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * @return initial HTTP/2 flow control window in bytes or 0 for default
+     */
+    public int getFlowControlWindow() {
+        return flowControlWindow;
+    }
+
+    /**
+     * @return maximum size of received message in bytes or 0 for default (4 MiB)
+     */
+    public int getMaxInboundMessageSize() {
+        return maxInboundMessageSize;
+    }
+
+    /**
+     * @return milliseconds without calls, after which channel closes its connections, or 0 for default
+     */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public ExecutorType getExecutor() {
+        return executor;
+    }
+
+    public List<String> getEndpoints() {
+        return endpoints;
+    }
+
+    public LoadBalancingPolicy getLoadBalancing() {
+        return loadBalancing;
+    }
+
+    public String getHashKeyHeader() {
+        return hashKeyHeader;
+    }
+
+    public String getHashKeyField() {
+        return hashKeyField;
+    }
+
+    public int getRingHashReplicas() {
+        return ringHashReplicas;
+    }
+
+    public long getPeakEwmaDecayTime() {
+        return peakEwmaDecayTime;
+    }
+
+    /**
+     * @return outlier detection config or null, if outlier detection is disabled
+     */
+    public OutlierDetectionConfig getOutlierDetection() {
+        return outlierDetection;
+    }
+
+    /**
+     * @return weighted round robin config or null, if defaults are used
+     */
+    public WeightedRoundRobinConfig getWeightedRoundRobin() {
+        return weightedRoundRobin;
+    }
+
+    public List<GrpcMethodConfig> getMethods() {
+        return methods;
+    }
+
+    public long getRetryBufferSize() {
+        return retryBufferSize;
+    }
+
+    public long getPerRpcBufferLimit() {
+        return perRpcBufferLimit;
+    }
+
+    public int getRetryThrottlingMaxTokens() {
+        return retryThrottlingMaxTokens;
+    }
+
+    public double getRetryThrottlingTokenRatio() {
+        return retryThrottlingTokenRatio;
+    }
+
+    /**
+     * @return names of codecs, which can compress requests and are advertised for responses
+     */
+    public List<String> getCompressionCodecs() {
+        return compressionCodecs;
+    }
+
+    /**
+     * @return true, if client always calls in-process server of this JVM
+     */
+    public boolean isInProcess() {
+        return inProcess;
+    }
 }
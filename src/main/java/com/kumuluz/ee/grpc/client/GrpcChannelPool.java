@@ -0,0 +1,226 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/***
+ * GrpcChannelPool class. Channel backed by multiple sub-channels, each with its own connection. Every call is
+ * dispatched to the sub-channel with the least calls in flight, so throughput is not limited by the
+ * MAX_CONCURRENT_STREAMS setting of a single HTTP/2 connection.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class GrpcChannelPool extends ManagedChannel {
+
+    private static final List<ConnectivityState> STATE_PRIORITY = Arrays.asList(ConnectivityState.READY,
+            ConnectivityState.CONNECTING, ConnectivityState.IDLE, ConnectivityState.TRANSIENT_FAILURE,
+            ConnectivityState.SHUTDOWN);
+
+    private final List<ManagedChannel> channels;
+    private final AtomicIntegerArray inFlight;
+
+    public GrpcChannelPool(List<ManagedChannel> channels) {
+        if (channels == null || channels.isEmpty()) {
+            throw new IllegalArgumentException("Channel pool requires at least one channel");
+        }
+
+        this.channels = Collections.unmodifiableList(new ArrayList<>(channels));
+        this.inFlight = new AtomicIntegerArray(channels.size());
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> methodDescriptor,
+                                                         CallOptions callOptions) {
+        int index = leastLoaded();
+        return new CountingCall<>(channels.get(index).newCall(methodDescriptor, callOptions), index);
+    }
+
+    private int leastLoaded() {
+        int size = channels.size();
+        // start scanning at a different position for each call, so ties are spread across sub-channels
+        int start = (int) (Thread.currentThread().getId() % size);
+        int best = start;
+        int bestLoad = inFlight.get(start);
+
+        for (int i = 1; i < size && bestLoad > 0; i++) {
+            int candidate = (start + i) % size;
+            int load = inFlight.get(candidate);
+            if (load < bestLoad) {
+                best = candidate;
+                bestLoad = load;
+            }
+        }
+
+        return best;
+    }
+
+    @Override
+    public String authority() {
+        return channels.get(0).authority();
+    }
+
+    @Override
+    public ManagedChannel shutdown() {
+        channels.forEach(ManagedChannel::shutdown);
+        return this;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return channels.stream().allMatch(ManagedChannel::isShutdown);
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return channels.stream().allMatch(ManagedChannel::isTerminated);
+    }
+
+    @Override
+    public ManagedChannel shutdownNow() {
+        channels.forEach(ManagedChannel::shutdownNow);
+        return this;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ManagedChannel channel : channels) {
+            if (!channel.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public ConnectivityState getState(boolean requestConnection) {
+        // report the most usable state of all sub-channels
+        ConnectivityState state = ConnectivityState.SHUTDOWN;
+        for (ManagedChannel channel : channels) {
+            ConnectivityState channelState = channel.getState(requestConnection);
+            if (STATE_PRIORITY.indexOf(channelState) < STATE_PRIORITY.indexOf(state)) {
+                state = channelState;
+            }
+        }
+        return state;
+    }
+
+    @Override
+    public void notifyWhenStateChanged(ConnectivityState source, Runnable callback) {
+        if (getState(false) != source) {
+            callback.run();
+            return;
+        }
+        AtomicBoolean notified = new AtomicBoolean();
+        for (ManagedChannel channel : channels) {
+            watchState(channel, channel.getState(false), source, callback, notified);
+        }
+    }
+
+    /**
+     * Runs callback once, when change of any sub-channel changes state of pool away from source. Sub-channel is
+     * watched again, if its change did not change state of pool.
+     */
+    private void watchState(ManagedChannel channel, ConnectivityState channelState, ConnectivityState source,
+                            Runnable callback, AtomicBoolean notified) {
+        channel.notifyWhenStateChanged(channelState, () -> {
+            if (notified.get()) {
+                return;
+            }
+            if (getState(false) != source) {
+                if (notified.compareAndSet(false, true)) {
+                    callback.run();
+                }
+            } else {
+                watchState(channel, channel.getState(false), source, callback, notified);
+            }
+        });
+    }
+
+    @Override
+    public void resetConnectBackoff() {
+        channels.forEach(ManagedChannel::resetConnectBackoff);
+    }
+
+    @Override
+    public void enterIdle() {
+        channels.forEach(ManagedChannel::enterIdle);
+    }
+
+    public int getSize() {
+        return channels.size();
+    }
+
+    /**
+     * Counts call as in flight on the selected sub-channel from start until it is closed.
+     */
+    private class CountingCall<ReqT, RespT> extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+        private final int index;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        CountingCall(ClientCall<ReqT, RespT> delegate, int index) {
+            super(delegate);
+            this.index = index;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            inFlight.incrementAndGet(index);
+            try {
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        release();
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            } catch (RuntimeException e) {
+                release();
+                throw e;
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet(index);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client;
+
+import com.kumuluz.ee.grpc.annotations.GrpcChannel;
+import io.grpc.ManagedChannel;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+import javax.enterprise.inject.spi.InjectionPoint;
+
+/***
+ * GrpcChannelProducer class. Produces shared channels from {@link GrpcChannels} for injection points
+ * annotated with {@link GrpcChannel}.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+@ApplicationScoped
+public class GrpcChannelProducer {
+
+    @Produces
+    @GrpcChannel
+    public ManagedChannel produceChannel(InjectionPoint injectionPoint) {
+        GrpcChannel qualifier = injectionPoint.getAnnotated().getAnnotation(GrpcChannel.class);
+        String name = qualifier.value();
+
+        GrpcChannels grpcChannels = GrpcChannels.getInstance();
+        if (grpcChannels == null) {
+            throw new IllegalStateException("No gRPC clients are configured (kumuluzee.grpc.clients)");
+        }
+
+        ManagedChannel channel = grpcChannels.getChannel(name);
+        if (channel == null) {
+            throw new IllegalArgumentException("gRPC client with name " + name + " is not configured");
+        }
+
+        return channel;
+    }
+}
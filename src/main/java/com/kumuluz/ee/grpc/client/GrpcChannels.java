@@ -21,13 +21,28 @@
 package com.kumuluz.ee.grpc.client;
 
 import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+import com.kumuluz.ee.grpc.client.lb.LoadBalancingPolicy;
+import com.kumuluz.ee.grpc.client.lb.OutlierDetectionConfig;
+import com.kumuluz.ee.grpc.client.lb.WeightedRoundRobinConfig;
+import com.kumuluz.ee.grpc.client.resilience.CircuitBreakerConfig;
+import com.kumuluz.ee.grpc.client.resilience.ThrottlingConfig;
+import com.kumuluz.ee.grpc.utils.ConfigurationListUtil;
+import io.grpc.ManagedChannel;
 
+import javax.net.ssl.SSLException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /***
- * GrpcChannels class. Holds different channels configurations.
+ * GrpcChannels class. Holds different channels configurations and shared channels created from them.
  *
  * @author Primoz Hrovat
  * @since 1.0
@@ -44,7 +59,7 @@ public class GrpcChannels {
             instance = new GrpcChannels();
 
             if (numClients.isPresent()) {
-                List<GrpcChannelConfig> clients = new ArrayList<>();
+                Map<String, GrpcChannelConfig> clients = new LinkedHashMap<>();
 
                 for (int i = 0; i < numClients.get(); i++) {
                     GrpcChannelConfig.Builder gcc = new GrpcChannelConfig.Builder();
@@ -58,6 +73,25 @@ public class GrpcChannels {
                     Optional<String> cert = confUtil.get("kumuluzee.grpc.clients[" + i + "].certFile");
                     Optional<String> key = confUtil.get("kumuluzee.grpc.clients[" + i + "].keyFile");
                     Optional<String> trust = confUtil.get("kumuluzee.grpc.clients[" + i + "].trustFile");
+                    Optional<Long> sessionCacheSize = confUtil.getLong("kumuluzee.grpc.clients[" + i + "].sessionCacheSize");
+                    Optional<Long> sessionTimeout = confUtil.getLong("kumuluzee.grpc.clients[" + i + "].sessionTimeout");
+                    Optional<Integer> connections = confUtil.getInteger("kumuluzee.grpc.clients[" + i + "].connections");
+                    Optional<Integer> flowControlWindow = confUtil.getInteger("kumuluzee.grpc.clients[" + i + "].flowControlWindow");
+                    Optional<Integer> maxInboundMessageSize = confUtil.getInteger("kumuluzee.grpc.clients[" + i + "].maxInboundMessageSize");
+                    Optional<Long> idleTimeout = confUtil.getLong("kumuluzee.grpc.clients[" + i + "].idleTimeout");
+                    Optional<String> executor = confUtil.get("kumuluzee.grpc.clients[" + i + "].executor");
+                    Optional<Integer> numEndpoints = confUtil.getListSize("kumuluzee.grpc.clients[" + i + "].endpoints");
+                    Optional<String> loadBalancing = confUtil.get("kumuluzee.grpc.clients[" + i + "].loadBalancing");
+                    Optional<String> hashKeyHeader = confUtil.get("kumuluzee.grpc.clients[" + i + "].hashKey.header");
+                    Optional<String> hashKeyField = confUtil.get("kumuluzee.grpc.clients[" + i + "].hashKey.field");
+                    Optional<Integer> ringHashReplicas = confUtil.getInteger("kumuluzee.grpc.clients[" + i + "].ringHash.replicas");
+                    Optional<Long> peakEwmaDecayTime = confUtil.getLong("kumuluzee.grpc.clients[" + i + "].peakEwma.decayTime");
+                    Optional<Long> retryBufferSize = confUtil.getLong("kumuluzee.grpc.clients[" + i + "].retryBufferSize");
+                    Optional<Long> perRpcBufferLimit = confUtil.getLong("kumuluzee.grpc.clients[" + i + "].perRpcBufferLimit");
+                    Optional<Integer> retryThrottlingMaxTokens = confUtil.getInteger("kumuluzee.grpc.clients[" + i + "].retryThrottling.maxTokens");
+                    Optional<Double> retryThrottlingTokenRatio = confUtil.getDouble("kumuluzee.grpc.clients[" + i + "].retryThrottling.tokenRatio");
+                    Optional<Integer> numMethods = confUtil.getListSize("kumuluzee.grpc.clients[" + i + "].methods");
+                    Optional<Boolean> inProcess = confUtil.getBoolean("kumuluzee.grpc.clients[" + i + "].inProcess");
 
                     name.ifPresent(gcc::name);
                     address.ifPresent(gcc::address);
@@ -68,17 +102,145 @@ public class GrpcChannels {
                     cert.ifPresent(gcc::certFile);
                     key.ifPresent(gcc::keyFile);
                     trust.ifPresent(gcc::trustManager);
+                    sessionCacheSize.ifPresent(gcc::sessionCacheSize);
+                    sessionTimeout.ifPresent(gcc::sessionTimeout);
+                    connections.ifPresent(gcc::connections);
+                    flowControlWindow.ifPresent(gcc::flowControlWindow);
+                    maxInboundMessageSize.ifPresent(gcc::maxInboundMessageSize);
+                    idleTimeout.ifPresent(gcc::idleTimeout);
+                    executor.map(ExecutorType::fromConfigName).ifPresent(gcc::executor);
+                    loadBalancing.map(LoadBalancingPolicy::fromConfigName).ifPresent(gcc::loadBalancing);
+                    hashKeyHeader.ifPresent(gcc::hashKeyHeader);
+                    hashKeyField.ifPresent(gcc::hashKeyField);
+                    ringHashReplicas.ifPresent(gcc::ringHashReplicas);
+                    peakEwmaDecayTime.ifPresent(gcc::peakEwmaDecayTime);
+                    retryBufferSize.ifPresent(gcc::retryBufferSize);
+                    perRpcBufferLimit.ifPresent(gcc::perRpcBufferLimit);
+                    retryThrottlingMaxTokens.ifPresent(gcc::retryThrottlingMaxTokens);
+                    retryThrottlingTokenRatio.ifPresent(gcc::retryThrottlingTokenRatio);
+                    inProcess.ifPresent(gcc::inProcess);
 
-                    clients.add(gcc.build());
+                    if (confUtil.getBoolean("kumuluzee.grpc.clients[" + i + "].outlierDetection.enabled").orElse(false)) {
+                        gcc.outlierDetection(buildOutlierDetectionConfig(confUtil,
+                                "kumuluzee.grpc.clients[" + i + "].outlierDetection"));
+                    }
+
+                    if (confUtil.getMapKeys("kumuluzee.grpc.clients[" + i + "].weightedRoundRobin").isPresent()) {
+                        gcc.weightedRoundRobin(buildWeightedRoundRobinConfig(confUtil,
+                                "kumuluzee.grpc.clients[" + i + "].weightedRoundRobin"));
+                    }
+
+                    for (int j = 0; j < numEndpoints.orElse(0); j++) {
+                        confUtil.get("kumuluzee.grpc.clients[" + i + "].endpoints[" + j + "]").ifPresent(gcc::endpoint);
+                    }
+
+                    ConfigurationListUtil.readList(confUtil, "kumuluzee.grpc.clients[" + i + "].compression.codecs")
+                            .forEach(gcc::compressionCodec);
+
+                    for (int j = 0; j < numMethods.orElse(0); j++) {
+                        gcc.method(buildMethodConfig(confUtil, "kumuluzee.grpc.clients[" + i + "].methods[" + j + "]"));
+                    }
+
+                    GrpcChannelConfig config = gcc.build();
+                    clients.put(config.getName(), config);
                 }
                 instance.grpcChannelConfigs = clients;
             }
 
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::shutdown));
+
             return instance;
         }
+
+        private OutlierDetectionConfig buildOutlierDetectionConfig(ConfigurationUtil confUtil, String prefix) {
+            OutlierDetectionConfig.Builder odc = new OutlierDetectionConfig.Builder();
+
+            confUtil.getLong(prefix + ".interval").ifPresent(odc::interval);
+            confUtil.getLong(prefix + ".baseEjectionTime").ifPresent(odc::baseEjectionTime);
+            confUtil.getLong(prefix + ".maxEjectionTime").ifPresent(odc::maxEjectionTime);
+            confUtil.getInteger(prefix + ".maxEjectionPercent").ifPresent(odc::maxEjectionPercent);
+            confUtil.getInteger(prefix + ".consecutiveFailures").ifPresent(odc::consecutiveFailures);
+            confUtil.getDouble(prefix + ".successRate.stdevFactor").ifPresent(odc::successRateStdevFactor);
+            confUtil.getInteger(prefix + ".successRate.minimumHosts").ifPresent(odc::successRateMinimumHosts);
+            confUtil.getInteger(prefix + ".successRate.requestVolume").ifPresent(odc::successRateRequestVolume);
+
+            return odc.build();
+        }
+
+        private WeightedRoundRobinConfig buildWeightedRoundRobinConfig(ConfigurationUtil confUtil, String prefix) {
+            WeightedRoundRobinConfig.Builder wrrc = new WeightedRoundRobinConfig.Builder();
+
+            confUtil.getLong(prefix + ".blackoutPeriod").ifPresent(wrrc::blackoutPeriod);
+            confUtil.getLong(prefix + ".weightExpirationPeriod").ifPresent(wrrc::weightExpirationPeriod);
+            confUtil.getLong(prefix + ".weightUpdatePeriod").ifPresent(wrrc::weightUpdatePeriod);
+            confUtil.getDouble(prefix + ".errorUtilizationPenalty").ifPresent(wrrc::errorUtilizationPenalty);
+            confUtil.getBoolean(prefix + ".outOfBandReporting").ifPresent(wrrc::outOfBandReporting);
+            confUtil.getLong(prefix + ".outOfBandReportingPeriod").ifPresent(wrrc::outOfBandReportingPeriod);
+
+            return wrrc.build();
+        }
+
+        private GrpcMethodConfig buildMethodConfig(ConfigurationUtil confUtil, String prefix) {
+            GrpcMethodConfig.Builder gmc = new GrpcMethodConfig.Builder();
+
+            Optional<String> name = confUtil.get(prefix + ".name");
+            Optional<Integer> retryMaxAttempts = confUtil.getInteger(prefix + ".retry.maxAttempts");
+            Optional<Long> retryInitialBackoff = confUtil.getLong(prefix + ".retry.initialBackoff");
+            Optional<Long> retryMaxBackoff = confUtil.getLong(prefix + ".retry.maxBackoff");
+            Optional<Double> retryBackoffMultiplier = confUtil.getDouble(prefix + ".retry.backoffMultiplier");
+            Optional<Integer> hedgingMaxAttempts = confUtil.getInteger(prefix + ".hedging.maxAttempts");
+            Optional<Long> hedgingDelay = confUtil.getLong(prefix + ".hedging.hedgingDelay");
+
+            gmc.name(name.orElse(""));
+            retryMaxAttempts.ifPresent(gmc::retryMaxAttempts);
+            retryInitialBackoff.ifPresent(gmc::retryInitialBackoff);
+            retryMaxBackoff.ifPresent(gmc::retryMaxBackoff);
+            retryBackoffMultiplier.ifPresent(gmc::retryBackoffMultiplier);
+            hedgingMaxAttempts.ifPresent(gmc::hedgingMaxAttempts);
+            hedgingDelay.ifPresent(gmc::hedgingDelay);
+
+            ConfigurationListUtil.readList(confUtil, prefix + ".retry.retryableStatusCodes")
+                    .forEach(gmc::retryableStatusCode);
+            ConfigurationListUtil.readList(confUtil, prefix + ".hedging.nonFatalStatusCodes")
+                    .forEach(gmc::nonFatalStatusCode);
+
+            if (confUtil.getBoolean(prefix + ".circuitBreaker.enabled").orElse(false)) {
+                CircuitBreakerConfig.Builder cbc = new CircuitBreakerConfig.Builder();
+
+                confUtil.getInteger(prefix + ".circuitBreaker.failureRateThreshold").ifPresent(cbc::failureRateThreshold);
+                confUtil.getInteger(prefix + ".circuitBreaker.slowCallRateThreshold").ifPresent(cbc::slowCallRateThreshold);
+                confUtil.getLong(prefix + ".circuitBreaker.slowCallDuration").ifPresent(cbc::slowCallDuration);
+                confUtil.getInteger(prefix + ".circuitBreaker.minimumCalls").ifPresent(cbc::minimumCalls);
+                confUtil.getLong(prefix + ".circuitBreaker.window").ifPresent(cbc::window);
+                confUtil.getLong(prefix + ".circuitBreaker.waitDuration").ifPresent(cbc::waitDuration);
+                confUtil.getInteger(prefix + ".circuitBreaker.halfOpenCalls").ifPresent(cbc::halfOpenCalls);
+
+                gmc.circuitBreaker(cbc.build());
+            }
+
+            confUtil.get(prefix + ".compression.codec").ifPresent(gmc::compression);
+            confUtil.getInteger(prefix + ".compression.minSize").ifPresent(gmc::compressionMinSize);
+
+            if (confUtil.getBoolean(prefix + ".throttling.enabled").orElse(false)) {
+                ThrottlingConfig.Builder tc = new ThrottlingConfig.Builder();
+
+                confUtil.getDouble(prefix + ".throttling.k").ifPresent(tc::k);
+                confUtil.getLong(prefix + ".throttling.window").ifPresent(tc::window);
+
+                gmc.throttling(tc.build());
+            }
+
+            return gmc.build();
+        }
     }
 
-    private List<GrpcChannelConfig> grpcChannelConfigs;
+    private static final Logger logger = Logger.getLogger(GrpcChannels.class.getName());
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000L;
+
+    private Map<String, GrpcChannelConfig> grpcChannelConfigs = new LinkedHashMap<>();
+    private final ConcurrentMap<String, ManagedChannel> channels = new ConcurrentHashMap<>();
+    private volatile boolean shutdown;
 
     private static GrpcChannels instance;
 
@@ -87,15 +249,81 @@ public class GrpcChannels {
     }
 
     public List<GrpcChannelConfig> getGrpcChannelConfigs() {
-        return grpcChannelConfigs;
+        return new ArrayList<>(grpcChannelConfigs.values());
     }
 
     public GrpcChannelConfig getGrpcClientConfig(String name) {
-        for (GrpcChannelConfig config : grpcChannelConfigs) {
-            if (config.getName().equals(name))
-                return config;
+        return grpcChannelConfigs.get(name);
+    }
+
+    /**
+     * Returns shared channel for client with provided name. Channel is created on first use and reused afterwards,
+     * so it must not be shut down by the caller.
+     *
+     * @param name client name (kumuluzee.grpc.clients[i].name)
+     * @return shared channel or null if client with provided name is not configured
+     */
+    public ManagedChannel getChannel(String name) {
+        if (shutdown) {
+            throw new IllegalStateException("gRPC client channels are shut down");
         }
 
-        return null;
+        GrpcChannelConfig config = grpcChannelConfigs.get(name);
+        if (config == null) {
+            return null;
+        }
+
+        ManagedChannel channel = channels.computeIfAbsent(name, n -> createChannel(config));
+        // shutdown flag is set before channels are removed, so channel added after removal is seen here
+        if (shutdown) {
+            if (channels.remove(name, channel)) {
+                channel.shutdownNow();
+            }
+            throw new IllegalStateException("gRPC client channels are shut down");
+        }
+        return channel;
+    }
+
+    private ManagedChannel createChannel(GrpcChannelConfig config) {
+        try {
+            logger.info("Creating gRPC channel for client " + config.getName());
+            return new GrpcClient(config).getChannel();
+        } catch (SSLException e) {
+            throw new IllegalStateException("Could not create gRPC channel for client " + config.getName(), e);
+        }
+    }
+
+    /**
+     * Shuts down shared channels in order of configuration. All channels first stop accepting new calls, then
+     * in-flight calls are given time to complete before channels are forcefully closed.
+     */
+    public void shutdown() {
+        shutdown = true;
+
+        List<ManagedChannel> active = new ArrayList<>();
+        for (String name : grpcChannelConfigs.keySet()) {
+            ManagedChannel channel = channels.remove(name);
+            if (channel != null) {
+                channel.shutdown();
+                active.add(channel);
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT_MILLIS);
+        for (ManagedChannel channel : active) {
+            try {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !channel.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                    channel.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                channel.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (!active.isEmpty()) {
+            logger.log(Level.INFO, "Shut down {0} gRPC client channel(s)", active.size());
+        }
     }
 }
@@ -20,22 +20,35 @@
  */
 package com.kumuluz.ee.grpc.client;
 
+import com.kumuluz.ee.grpc.client.lb.HashKeyClientInterceptor;
+import com.kumuluz.ee.grpc.client.lb.LoadBalancingPolicy;
+import com.kumuluz.ee.grpc.client.lb.OutlierDetectionConfig;
+import com.kumuluz.ee.grpc.client.lb.WeightedRoundRobinConfig;
+import com.kumuluz.ee.grpc.client.lb.StaticEndpointsNameResolverProvider;
+import com.kumuluz.ee.grpc.client.resilience.ResilienceClientInterceptor;
+import com.kumuluz.ee.grpc.server.GrpcServer;
+import com.kumuluz.ee.grpc.utils.CompressionCodecs;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
-import io.grpc.netty.shaded.io.grpc.netty.GrpcSslContexts;
+import io.grpc.inprocess.InProcessChannelBuilder;
 import io.grpc.netty.shaded.io.grpc.netty.NegotiationType;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslContext;
-import io.grpc.netty.shaded.io.netty.handler.ssl.SslContextBuilder;
 
 import javax.net.ssl.SSLException;
-import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /***
  * GrpcClient helper class. It provides channel creation using GrpcChannelConfig class.
+ * Every instance creates new channel; use {@link GrpcChannels#getChannel(String)} to obtain shared channel.
  *
  * @author Primoz Hrovat
  * @since 1.0.0
@@ -46,6 +59,8 @@ public class GrpcClient {
 
     private GrpcChannelConfig config;
     private ManagedChannel channel;
+    private ResilienceClientInterceptor resilienceInterceptor;
+    private CompressionClientInterceptor compressionInterceptor;
 
     public GrpcClient(GrpcChannelConfig config) throws SSLException {
         this.config = config;
@@ -54,62 +69,319 @@ public class GrpcClient {
     }
 
     private void initialize() throws SSLException {
-        createChannel();
+        // one interceptor is shared by all pooled connections, so breaker state is kept per client
+        if (config.getMethods().stream().anyMatch(m -> m.getCircuitBreaker() != null || m.getThrottling() != null)) {
+            // channel executor is not exposed by channel, so rejections use shared call executor instead
+            resilienceInterceptor = new ResilienceClientInterceptor(config.getMethods(),
+                    ClientTransportResources.getInstance().getCallExecutor());
+        }
+
+        List<GrpcMethodConfig> compressedMethods = new ArrayList<>();
+        for (GrpcMethodConfig method : config.getMethods()) {
+            if (method.getCompression() == null) {
+                continue;
+            }
+            if (!method.getCompression().equals("identity") &&
+                    !config.getCompressionCodecs().contains(method.getCompression())) {
+                logger.warning("Compression codec " + method.getCompression() + " of " + method.getName() +
+                        " is not enabled for client " + config.getName() + ", requests are not compressed");
+            } else {
+                compressedMethods.add(method);
+            }
+        }
+        if (!compressedMethods.isEmpty()) {
+            compressionInterceptor = new CompressionClientInterceptor(compressedMethods);
+        }
+
+        if (config.getHashKeyField() != null && config.getLoadBalancing() != LoadBalancingPolicy.RING_HASH) {
+            logger.warning("Hash key field of client " + config.getName() + " requires load balancing policy " +
+                    "ring_hash and is ignored");
+        }
+
+        String inProcessName = inProcessName();
+        if (inProcessName != null) {
+            logger.info("Client " + config.getName() + " calls in-process server " + inProcessName);
+            channel = createInProcessChannel(inProcessName);
+        } else if (config.getConnections() > 1) {
+            List<ManagedChannel> channels = new ArrayList<>();
+            for (int i = 0; i < config.getConnections(); i++) {
+                channels.add(createChannel());
+            }
+            channel = new GrpcChannelPool(channels);
+        } else {
+            channel = createChannel();
+        }
     }
 
-    private SslContext buildTLSContext() throws SSLException {
-        SslContextBuilder builder = GrpcSslContexts.forClient();
+    /**
+     * Clients targeting server of this JVM are redirected to in-process server, unless network server requires client
+     * certificates or client presents its own certificate. In-process calls skip TLS, so neither the check of client
+     * certificate nor limits keyed by it would apply. Clients marked as in-process are always redirected.
+     *
+     * @return name of in-process server, if client is marked as in-process or is redirected to it, otherwise null
+     */
+    private String inProcessName() {
+        GrpcServer server = GrpcServer.getInstance();
+        String inProcessName = server != null ? server.getInProcessName() : null;
 
-        if (config.getTrustManager() != null) {
-            if (config.getCertFile() != null && config.getKeyFile()!= null) {
-                builder.keyManager(new File(config.getCertFile()), new File(config.getKeyFile()));
+        if (config.isInProcess()) {
+            if (inProcessName == null) {
+                throw new IllegalStateException("Client " + config.getName() + " is in-process, but in-process " +
+                        "gRPC server is not running");
             }
-            builder.trustManager(new File(config.getTrustManager()));
-            return builder.build();
+            return inProcessName;
+        }
+        if (inProcessName == null || !config.getEndpoints().isEmpty() ||
+                !server.isLocalTarget(config.getAddress(), config.getPort())) {
+            return null;
+        }
+        if (server.isClientCertificatesRequired()) {
+            logger.info("Client " + config.getName() + " calls server of this JVM over network, because server " +
+                    "requires client certificates; set inProcess to true to call in-process server");
+            return null;
+        }
+        if (config.getCertFile() != null || config.getKeyFile() != null) {
+            logger.info("Client " + config.getName() + " calls server of this JVM over network, because client " +
+                    "presents certificate; set inProcess to true to call in-process server");
+            return null;
+        }
+        return inProcessName;
+    }
+
+    /**
+     * Creates channel to in-process server. Calls skip TLS, HTTP/2 framing and network, so transport settings and
+     * connection pool of client do not apply.
+     */
+    private ManagedChannel createInProcessChannel(String inProcessName) {
+        InProcessChannelBuilder builder = InProcessChannelBuilder.forName(inProcessName);
+
+        if (config.getExecutor() == ExecutorType.DIRECT) {
+            builder.directExecutor();
+        } else if (config.getExecutor() == ExecutorType.SHARED) {
+            builder.executor(ClientTransportResources.getInstance().getCallExecutor());
+        }
+        if (config.getMaxInboundMessageSize() > 0) {
+            builder.maxInboundMessageSize(config.getMaxInboundMessageSize());
         }
-        else return null;
+        configureServiceConfig(builder);
+        configureInterceptors(builder);
+
+        return builder.build();
     }
 
-    private void createChannel() {
+    private ManagedChannel createChannel() {
+        NettyChannelBuilder nettyChannelBuilder = config.getEndpoints().isEmpty()
+                ? NettyChannelBuilder.forAddress(config.getAddress(), config.getPort())
+                : NettyChannelBuilder.forTarget(StaticEndpointsNameResolverProvider.target(config.getEndpoints()));
+
+        SslContext sslContext = null;
         try {
-            SslContext sslContext = buildTLSContext();
-            if (sslContext != null) {
-                NettyChannelBuilder nettyChannelBuilder = NettyChannelBuilder.forAddress(config.getAddress(), config.getPort())
-                        .negotiationType(NegotiationType.TLS)
-                        .sslContext(sslContext);
-
-                if (config.getKeepAlive() > 0) {
-                    nettyChannelBuilder.keepAliveTime(config.getKeepAlive(), TimeUnit.MILLISECONDS);
-                }
-                if (config.getKeepAliveTimeout() > 0) {
-                    nettyChannelBuilder.keepAliveTimeout(config.getKeepAliveTimeout(), TimeUnit.MILLISECONDS);
-                }
-                
-                channel = nettyChannelBuilder.build();
-                return;
-            }
+            sslContext = ClientSslContexts.get(config);
         } catch (SSLException | NoSuchElementException e) {
             e.printStackTrace();
         }
 
-        ManagedChannelBuilder managedChannelBuilder = ManagedChannelBuilder
-            .forAddress(config.getAddress(), config.getPort())
-            .usePlaintext();
+        if (sslContext != null) {
+            nettyChannelBuilder.negotiationType(NegotiationType.TLS)
+                    .sslContext(sslContext);
+        } else {
+            nettyChannelBuilder.usePlaintext();
+        }
 
         if (config.getKeepAlive() > 0) {
-            managedChannelBuilder.keepAliveTime(config.getKeepAlive(), TimeUnit.MILLISECONDS);
+            nettyChannelBuilder.keepAliveTime(config.getKeepAlive(), TimeUnit.MILLISECONDS);
         }
         if (config.getKeepAliveTimeout() > 0) {
-            managedChannelBuilder.keepAliveTimeout(config.getKeepAliveTimeout(), TimeUnit.MILLISECONDS);
+            nettyChannelBuilder.keepAliveTimeout(config.getKeepAliveTimeout(), TimeUnit.MILLISECONDS);
         }
         if (config.getKeepAliveWithoutCalls()) {
-            managedChannelBuilder.keepAliveWithoutCalls(config.getKeepAliveWithoutCalls());
+            nettyChannelBuilder.keepAliveWithoutCalls(config.getKeepAliveWithoutCalls());
+        }
+        configureTransport(nettyChannelBuilder);
+        configureServiceConfig(nettyChannelBuilder);
+        configureInterceptors(nettyChannelBuilder);
+
+        return nettyChannelBuilder.build();
+    }
+
+    /**
+     * Uses transport threads shared by all clients and applies transport settings of client.
+     */
+    private void configureTransport(NettyChannelBuilder builder) {
+        ClientTransportResources resources = ClientTransportResources.getInstance();
+        builder.eventLoopGroup(resources.getEventLoopGroup())
+                .channelType(resources.getChannelType())
+                .offloadExecutor(resources.getOffloadExecutor());
+
+        if (config.getExecutor() == ExecutorType.DIRECT) {
+            builder.directExecutor();
+        } else if (config.getExecutor() == ExecutorType.SHARED) {
+            builder.executor(resources.getCallExecutor());
+        }
+
+        if (config.getFlowControlWindow() > 0) {
+            builder.flowControlWindow(config.getFlowControlWindow());
+        }
+        if (config.getMaxInboundMessageSize() > 0) {
+            builder.maxInboundMessageSize(config.getMaxInboundMessageSize());
+        }
+        if (config.getIdleTimeout() > 0) {
+            builder.idleTimeout(config.getIdleTimeout(), TimeUnit.MILLISECONDS);
+        }
+        builder.compressorRegistry(CompressionCodecs.compressorRegistry(config.getCompressionCodecs()));
+        builder.decompressorRegistry(CompressionCodecs.decompressorRegistry(config.getCompressionCodecs()));
+    }
+
+    /**
+     * Sets default service config (load balancing policy, retry and hedging policies) on channel builder, if client
+     * configures it. Service config values must be JSON compatible (maps, lists, strings, doubles and booleans).
+     */
+    private void configureServiceConfig(ManagedChannelBuilder<?> builder) {
+        Map<String, Object> serviceConfig = new HashMap<>();
+
+        if (config.getOutlierDetection() != null &&
+                (config.getLoadBalancing() == null || config.getLoadBalancing() == LoadBalancingPolicy.PICK_FIRST)) {
+            logger.warning("Outlier detection of client " + config.getName() + " requires load balancing policy " +
+                    "other than pick_first and is ignored");
+        }
+
+        if (config.getLoadBalancing() != null) {
+            serviceConfig.put("loadBalancingConfig", Collections.singletonList(
+                    Collections.singletonMap(config.getLoadBalancing().getPolicyName(), loadBalancingPolicyConfig())));
         }
 
-        channel = managedChannelBuilder.build();
+        List<Map<String, Object>> methodConfigs = new ArrayList<>();
+        for (GrpcMethodConfig method : config.getMethods()) {
+            if (method.hasRetryPolicy() || method.hasHedgingPolicy()) {
+                methodConfigs.add(methodConfig(method));
+            }
+        }
+
+        if (!methodConfigs.isEmpty()) {
+            serviceConfig.put("methodConfig", methodConfigs);
+
+            if (config.getRetryThrottlingMaxTokens() > 0) {
+                Map<String, Object> retryThrottling = new HashMap<>();
+                retryThrottling.put("maxTokens", (double) config.getRetryThrottlingMaxTokens());
+                retryThrottling.put("tokenRatio", config.getRetryThrottlingTokenRatio());
+                serviceConfig.put("retryThrottling", retryThrottling);
+            }
+
+            builder.enableRetry();
+            if (config.getRetryBufferSize() > 0) {
+                builder.retryBufferSize(config.getRetryBufferSize());
+            }
+            if (config.getPerRpcBufferLimit() > 0) {
+                builder.perRpcBufferLimit(config.getPerRpcBufferLimit());
+            }
+        }
+
+        if (!serviceConfig.isEmpty()) {
+            builder.defaultServiceConfig(serviceConfig);
+        }
+    }
+
+    private Map<String, Object> methodConfig(GrpcMethodConfig method) {
+        Map<String, Object> name = new HashMap<>();
+        if (method.getService() != null) {
+            name.put("service", method.getService());
+        }
+        if (method.getMethod() != null) {
+            name.put("method", method.getMethod());
+        }
+
+        Map<String, Object> methodConfig = new HashMap<>();
+        methodConfig.put("name", Collections.singletonList(name));
+
+        // retry and hedging policies are mutually exclusive, hedging takes precedence
+        if (method.hasHedgingPolicy()) {
+            Map<String, Object> hedgingPolicy = new HashMap<>();
+            hedgingPolicy.put("maxAttempts", (double) method.getHedgingMaxAttempts());
+            hedgingPolicy.put("hedgingDelay", duration(method.getHedgingDelay()));
+            hedgingPolicy.put("nonFatalStatusCodes", new ArrayList<Object>(method.getNonFatalStatusCodes()));
+            methodConfig.put("hedgingPolicy", hedgingPolicy);
+        } else {
+            Map<String, Object> retryPolicy = new HashMap<>();
+            retryPolicy.put("maxAttempts", (double) method.getRetryMaxAttempts());
+            retryPolicy.put("initialBackoff", duration(method.getRetryInitialBackoff()));
+            retryPolicy.put("maxBackoff", duration(method.getRetryMaxBackoff()));
+            retryPolicy.put("backoffMultiplier", method.getRetryBackoffMultiplier());
+            retryPolicy.put("retryableStatusCodes", new ArrayList<Object>(method.getRetryableStatusCodes()));
+            methodConfig.put("retryPolicy", retryPolicy);
+        }
+
+        return methodConfig;
+    }
+
+    /**
+     * Formats milliseconds as service config duration (e.g. 0.1s).
+     */
+    private static String duration(long millis) {
+        return BigDecimal.valueOf(millis, 3).toPlainString() + "s";
+    }
+
+    private void configureInterceptors(ManagedChannelBuilder<?> builder) {
+        if (compressionInterceptor != null) {
+            builder.intercept(compressionInterceptor);
+        }
+        if (resilienceInterceptor != null) {
+            builder.intercept(resilienceInterceptor);
+        }
+        if (config.getLoadBalancing() == LoadBalancingPolicy.RING_HASH && config.getHashKeyField() != null) {
+            builder.intercept(new HashKeyClientInterceptor(config.getHashKeyHeader(), config.getHashKeyField()));
+        }
+    }
+
+    private Map<String, Object> loadBalancingPolicyConfig() {
+        Map<String, Object> policyConfig = new HashMap<>();
+
+        if (config.getLoadBalancing() == LoadBalancingPolicy.RING_HASH) {
+            if (config.getHashKeyHeader() != null) {
+                policyConfig.put("hashHeader", config.getHashKeyHeader());
+            }
+            if (config.getRingHashReplicas() > 0) {
+                policyConfig.put("replicas", (double) config.getRingHashReplicas());
+            }
+        } else if (config.getLoadBalancing() == LoadBalancingPolicy.PEAK_EWMA) {
+            if (config.getPeakEwmaDecayTime() > 0) {
+                policyConfig.put("decayTime", (double) config.getPeakEwmaDecayTime());
+            }
+        } else if (config.getLoadBalancing() == LoadBalancingPolicy.WEIGHTED_ROUND_ROBIN &&
+                config.getWeightedRoundRobin() != null) {
+            WeightedRoundRobinConfig weightedRoundRobin = config.getWeightedRoundRobin();
+            policyConfig.put("blackoutPeriod", (double) weightedRoundRobin.getBlackoutPeriod());
+            policyConfig.put("weightExpirationPeriod", (double) weightedRoundRobin.getWeightExpirationPeriod());
+            policyConfig.put("weightUpdatePeriod", (double) weightedRoundRobin.getWeightUpdatePeriod());
+            policyConfig.put("errorUtilizationPenalty", weightedRoundRobin.getErrorUtilizationPenalty());
+            policyConfig.put("outOfBandReporting", weightedRoundRobin.isOutOfBandReporting());
+            policyConfig.put("outOfBandReportingPeriod", (double) weightedRoundRobin.getOutOfBandReportingPeriod());
+        }
+
+        if (config.getOutlierDetection() != null && config.getLoadBalancing() != LoadBalancingPolicy.PICK_FIRST) {
+            OutlierDetectionConfig outlierDetection = config.getOutlierDetection();
+            Map<String, Object> outlierDetectionConfig = new HashMap<>();
+            outlierDetectionConfig.put("interval", (double) outlierDetection.getInterval());
+            outlierDetectionConfig.put("baseEjectionTime", (double) outlierDetection.getBaseEjectionTime());
+            outlierDetectionConfig.put("maxEjectionTime", (double) outlierDetection.getMaxEjectionTime());
+            outlierDetectionConfig.put("maxEjectionPercent", (double) outlierDetection.getMaxEjectionPercent());
+            outlierDetectionConfig.put("consecutiveFailures", (double) outlierDetection.getConsecutiveFailures());
+            outlierDetectionConfig.put("successRateStdevFactor", outlierDetection.getSuccessRateStdevFactor());
+            outlierDetectionConfig.put("successRateMinimumHosts", (double) outlierDetection.getSuccessRateMinimumHosts());
+            outlierDetectionConfig.put("successRateRequestVolume", (double) outlierDetection.getSuccessRateRequestVolume());
+            policyConfig.put("outlierDetection", outlierDetectionConfig);
+        }
+
+        return policyConfig;
     }
 
     public ManagedChannel getChannel() {
         return channel;
     }
+
+    /**
+     * @return interceptor guarding calls with circuit breakers and throttling or null, if none is configured
+     */
+    public ResilienceClientInterceptor getResilienceInterceptor() {
+        return resilienceInterceptor;
+    }
 }
@@ -0,0 +1,294 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client;
+
+import com.kumuluz.ee.grpc.client.resilience.CircuitBreakerConfig;
+import com.kumuluz.ee.grpc.client.resilience.ThrottlingConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/***
+ * GrpcMethodConfig class. Per-method call policies of client (kumuluzee.grpc.clients[i].methods[j]).
+ * Name is either full method name (package.Service/Method), service name (package.Service) or empty for all methods.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class GrpcMethodConfig {
+
+    private String service;
+    private String method;
+
+    private int retryMaxAttempts;
+    private long retryInitialBackoff;
+    private long retryMaxBackoff;
+    private double retryBackoffMultiplier;
+    private List<String> retryableStatusCodes;
+
+    private int hedgingMaxAttempts;
+    private long hedgingDelay;
+    private List<String> nonFatalStatusCodes;
+
+    private CircuitBreakerConfig circuitBreaker;
+    private ThrottlingConfig throttling;
+
+    private String compression;
+    private int compressionMinSize;
+
+    public static class Builder {
+        private String service;
+        private String method;
+
+        private int retryMaxAttempts;
+        private long retryInitialBackoff = 100L;
+        private long retryMaxBackoff = 1000L;
+        private double retryBackoffMultiplier = 2.0;
+        private List<String> retryableStatusCodes = new ArrayList<>();
+
+        private int hedgingMaxAttempts;
+        private long hedgingDelay;
+        private List<String> nonFatalStatusCodes = new ArrayList<>();
+
+        private CircuitBreakerConfig circuitBreaker;
+        private ThrottlingConfig throttling;
+
+        private String compression;
+        private int compressionMinSize = 1024;
+
+        public void name(String name) {
+            int separator = name.indexOf('/');
+            if (separator < 0) {
+                this.service = name.isEmpty() || name.equals("*") ? null : name;
+            } else {
+                this.service = name.substring(0, separator);
+                this.method = name.substring(separator + 1);
+            }
+        }
+
+        public void retryMaxAttempts(int retryMaxAttempts) {
+            this.retryMaxAttempts = retryMaxAttempts;
+        }
+
+        public void retryInitialBackoff(long retryInitialBackoff) {
+            this.retryInitialBackoff = retryInitialBackoff;
+        }
+
+        public void retryMaxBackoff(long retryMaxBackoff) {
+            this.retryMaxBackoff = retryMaxBackoff;
+        }
+
+        public void retryBackoffMultiplier(double retryBackoffMultiplier) {
+            this.retryBackoffMultiplier = retryBackoffMultiplier;
+        }
+
+        public void retryableStatusCode(String retryableStatusCode) {
+            this.retryableStatusCodes.add(retryableStatusCode.trim().toUpperCase());
+        }
+
+        public void hedgingMaxAttempts(int hedgingMaxAttempts) {
+            this.hedgingMaxAttempts = hedgingMaxAttempts;
+        }
+
+        public void hedgingDelay(long hedgingDelay) {
+            this.hedgingDelay = hedgingDelay;
+        }
+
+        public void nonFatalStatusCode(String nonFatalStatusCode) {
+            this.nonFatalStatusCodes.add(nonFatalStatusCode.trim().toUpperCase());
+        }
+
+        public void circuitBreaker(CircuitBreakerConfig circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+        }
+
+        public void throttling(ThrottlingConfig throttling) {
+            this.throttling = throttling;
+        }
+
+        public void compression(String compression) {
+            this.compression = compression.trim().toLowerCase();
+        }
+
+        public void compressionMinSize(int compressionMinSize) {
+            this.compressionMinSize = compressionMinSize;
+        }
+
+        public GrpcMethodConfig build() {
+            GrpcMethodConfig config = new GrpcMethodConfig();
+
+            config.service = service;
+            config.method = method;
+            config.retryMaxAttempts = retryMaxAttempts;
+            config.retryInitialBackoff = retryInitialBackoff;
+            config.retryMaxBackoff = retryMaxBackoff;
+            config.retryBackoffMultiplier = retryBackoffMultiplier;
+            config.retryableStatusCodes = retryableStatusCodes.isEmpty()
+                    ? Collections.singletonList("UNAVAILABLE")
+                    : Collections.unmodifiableList(new ArrayList<>(retryableStatusCodes));
+            config.hedgingMaxAttempts = hedgingMaxAttempts;
+            config.hedgingDelay = hedgingDelay;
+            config.nonFatalStatusCodes = Collections.unmodifiableList(new ArrayList<>(nonFatalStatusCodes));
+            config.circuitBreaker = circuitBreaker;
+            config.throttling = throttling;
+            config.compression = compression;
+            config.compressionMinSize = compressionMinSize;
+
+            return config;
+        }
+    }
+
+    private GrpcMethodConfig() {
+    }
+
+    /**
+     * Finds config which applies to method, preferring method configs over service configs and service configs over
+     * configs for all methods.
+     *
+     * @param configs        method configs of client
+     * @param fullMethodName full method name (package.Service/Method)
+     * @param filter         only configs accepted by filter are considered
+     * @return most specific matching config or null if none matches
+     */
+    public static GrpcMethodConfig findMostSpecific(List<GrpcMethodConfig> configs, String fullMethodName,
+                                                    Predicate<GrpcMethodConfig> filter) {
+        int separator = fullMethodName.indexOf('/');
+        String service = separator < 0 ? fullMethodName : fullMethodName.substring(0, separator);
+        String method = separator < 0 ? null : fullMethodName.substring(separator + 1);
+
+        GrpcMethodConfig serviceMatch = null;
+        GrpcMethodConfig defaultMatch = null;
+        for (GrpcMethodConfig config : configs) {
+            if (!filter.test(config)) {
+                continue;
+            }
+            if (config.service == null) {
+                if (defaultMatch == null) {
+                    defaultMatch = config;
+                }
+            } else if (config.service.equals(service)) {
+                if (config.method == null) {
+                    if (serviceMatch == null) {
+                        serviceMatch = config;
+                    }
+                } else if (config.method.equals(method)) {
+                    return config;
+                }
+            }
+        }
+
+        return serviceMatch != null ? serviceMatch : defaultMatch;
+    }
+
+    /**
+     * @return name in configuration format (package.Service/Method, package.Service or * for all methods)
+     */
+    public String getName() {
+        if (service == null) {
+            return "*";
+        }
+        return method == null ? service : service + "/" + method;
+    }
+
+    /**
+     * @return service name or null, if config applies to all services
+     */
+    public String getService() {
+        return service;
+    }
+
+    /**
+     * @return method name or null, if config applies to all methods of service
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    public boolean hasRetryPolicy() {
+        return retryMaxAttempts > 1;
+    }
+
+    public int getRetryMaxAttempts() {
+        return retryMaxAttempts;
+    }
+
+    public long getRetryInitialBackoff() {
+        return retryInitialBackoff;
+    }
+
+    public long getRetryMaxBackoff() {
+        return retryMaxBackoff;
+    }
+
+    public double getRetryBackoffMultiplier() {
+        return retryBackoffMultiplier;
+    }
+
+    public List<String> getRetryableStatusCodes() {
+        return retryableStatusCodes;
+    }
+
+    public boolean hasHedgingPolicy() {
+        return hedgingMaxAttempts > 1;
+    }
+
+    public int getHedgingMaxAttempts() {
+        return hedgingMaxAttempts;
+    }
+
+    public long getHedgingDelay() {
+        return hedgingDelay;
+    }
+
+    public List<String> getNonFatalStatusCodes() {
+        return nonFatalStatusCodes;
+    }
+
+    /**
+     * @return circuit breaker config or null, if circuit breaker is disabled
+     */
+    public CircuitBreakerConfig getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * @return adaptive throttling config or null, if throttling is disabled
+     */
+    public ThrottlingConfig getThrottling() {
+        return throttling;
+    }
+
+    /**
+     * @return name of codec compressing requests or null, if compression is not configured
+     */
+    public String getCompression() {
+        return compression;
+    }
+
+    /**
+     * @return minimum serialized size in bytes of compressed requests
+     */
+    public int getCompressionMinSize() {
+        return compressionMinSize;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.batch;
+
+/***
+ * BatchConfig class
+ * Configuration of {@link CallBatcher}. Batch is sent when it reaches maximum size or when its oldest call waited for
+ * maximum delay, whichever comes first.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class BatchConfig {
+
+    private int maxBatchSize;
+    private long maxDelay;
+    private int maxPendingCalls;
+    private int maxInFlightBatches;
+
+    public static class Builder {
+        private int maxBatchSize = 100;
+        private long maxDelay = 5L;
+        private int maxPendingCalls = 10000;
+        private int maxInFlightBatches = 4;
+
+        public void maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public void maxDelay(long maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public void maxPendingCalls(int maxPendingCalls) {
+            this.maxPendingCalls = maxPendingCalls;
+        }
+
+        public void maxInFlightBatches(int maxInFlightBatches) {
+            this.maxInFlightBatches = maxInFlightBatches;
+        }
+
+        public BatchConfig build() {
+            if (maxBatchSize < 1 || maxPendingCalls < maxBatchSize || maxInFlightBatches < 1) {
+                throw new IllegalArgumentException("Batch size and in flight batches must be positive and pending " +
+                        "calls must not be lower than batch size");
+            }
+            BatchConfig config = new BatchConfig();
+
+            config.maxBatchSize = maxBatchSize;
+            config.maxDelay = maxDelay;
+            config.maxPendingCalls = maxPendingCalls;
+            config.maxInFlightBatches = maxInFlightBatches;
+
+            return config;
+        }
+    }
+
+    private BatchConfig() {
+    }
+
+    /**
+     * @return maximum number of calls in batch
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @return maximum time in milliseconds call waits for batch to fill
+     */
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * @return maximum number of queued and sent calls without response; further calls are rejected
+     */
+    public int getMaxPendingCalls() {
+        return maxPendingCalls;
+    }
+
+    /**
+     * @return maximum number of batch calls without response; not used when batching over stream
+     */
+    public int getMaxInFlightBatches() {
+        return maxInFlightBatches;
+    }
+}
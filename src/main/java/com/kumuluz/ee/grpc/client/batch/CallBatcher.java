@@ -0,0 +1,218 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.batch;
+
+import io.grpc.Channel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/***
+ * CallBatcher class
+ * Coalesces small calls into batches, which are sent either over long-lived bidirectional stream or as user defined
+ * batch calls. Batch is sent when it is full or when its oldest call waited for maximum delay. While transport is not
+ * ready, calls stay queued and calls over pending limit are rejected with RESOURCE_EXHAUSTED.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class CallBatcher<ReqT, RespT> implements AutoCloseable {
+
+    private final BatchConfig config;
+    private final BatchSender<ReqT, RespT> sender;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "grpc-client-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Deque<PendingCall<ReqT, RespT>> queue = new ArrayDeque<>();
+    private final AtomicInteger pendingCalls = new AtomicInteger();
+    private ScheduledFuture<?> flushTask;
+    private boolean closed;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedCalls = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    private CallBatcher(BatchSender<ReqT, RespT> sender, BatchConfig config) {
+        this.config = config;
+        this.sender = sender;
+        sender.start(() -> flush(true));
+    }
+
+    /**
+     * Creates batcher, which sends calls as messages of bidirectional stream. Server must answer each request with one
+     * response, in order of requests.
+     *
+     * @param channel channel of client
+     * @param method  bidirectional streaming method
+     * @param config  batching configuration
+     * @return batcher
+     */
+    public static <ReqT, RespT> CallBatcher<ReqT, RespT> overStream(Channel channel,
+                                                                   MethodDescriptor<ReqT, RespT> method,
+                                                                   BatchConfig config) {
+        return new CallBatcher<>(new StreamBatchSender<>(channel, method), config);
+    }
+
+    /**
+     * Creates batcher, which sends calls packed into requests of unary batch method.
+     *
+     * @param channel channel of client
+     * @param method  unary batch method
+     * @param pack    creates batch request from requests of calls
+     * @param unpack  gets responses of calls from batch response, in order of requests
+     * @param config  batching configuration
+     * @return batcher
+     */
+    public static <ReqT, RespT, BatchReqT, BatchRespT> CallBatcher<ReqT, RespT> overBatchCall(
+            Channel channel, MethodDescriptor<BatchReqT, BatchRespT> method, Function<List<ReqT>, BatchReqT> pack,
+            Function<BatchRespT, List<RespT>> unpack, BatchConfig config) {
+        return new CallBatcher<>(new UnaryBatchSender<>(channel, method, pack, unpack,
+                config.getMaxInFlightBatches()), config);
+    }
+
+    /**
+     * Queues call for next batch.
+     *
+     * @param request request of call
+     * @return future completed with response of call
+     */
+    public CompletableFuture<RespT> call(ReqT request) {
+        PendingCall<ReqT, RespT> pendingCall = new PendingCall<>(request);
+        if (pendingCalls.incrementAndGet() > config.getMaxPendingCalls()) {
+            pendingCalls.decrementAndGet();
+            rejectedCalls.incrementAndGet();
+            pendingCall.response.completeExceptionally(Status.RESOURCE_EXHAUSTED
+                    .withDescription("Too many pending batched calls").asRuntimeException());
+            return pendingCall.response;
+        }
+        pendingCall.response.whenComplete((response, t) -> pendingCalls.decrementAndGet());
+
+        synchronized (this) {
+            if (closed) {
+                pendingCall.response.completeExceptionally(Status.UNAVAILABLE
+                        .withDescription("Batcher is closed").asRuntimeException());
+                return pendingCall.response;
+            }
+            queue.add(pendingCall);
+            if (queue.size() >= config.getMaxBatchSize()) {
+                flush(false);
+            } else if (flushTask == null) {
+                flushTask = scheduler.schedule(() -> flush(true), config.getMaxDelay(), TimeUnit.MILLISECONDS);
+            }
+        }
+        return pendingCall.response;
+    }
+
+    /**
+     * Sends queued calls while sender is ready.
+     *
+     * @param partial whether batches smaller than maximum size are sent
+     */
+    private synchronized void flush(boolean partial) {
+        if (partial && flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        while (!queue.isEmpty() && (partial || queue.size() >= config.getMaxBatchSize()) && sender.isReady()) {
+            int size = Math.min(queue.size(), config.getMaxBatchSize());
+            List<PendingCall<ReqT, RespT>> batch = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                batch.add(queue.poll());
+            }
+            batches.incrementAndGet();
+            batchedCalls.addAndGet(size);
+            sender.send(batch);
+        }
+        if (!queue.isEmpty() && flushTask == null && !closed) {
+            // remaining calls are sent with next full batch, after delay or when sender becomes ready
+            flushTask = scheduler.schedule(() -> flush(true), config.getMaxDelay(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Rejects queued calls and stops sending. Calls, which were already sent, are still answered.
+     */
+    @Override
+    public void close() {
+        List<PendingCall<ReqT, RespT>> rejected;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            rejected = new ArrayList<>(queue);
+            queue.clear();
+            if (flushTask != null) {
+                flushTask.cancel(false);
+                flushTask = null;
+            }
+            sender.shutdown();
+        }
+        scheduler.shutdownNow();
+        for (PendingCall<ReqT, RespT> pendingCall : rejected) {
+            pendingCall.response.completeExceptionally(Status.UNAVAILABLE
+                    .withDescription("Batcher is closed").asRuntimeException());
+        }
+    }
+
+    /**
+     * @return number of sent batches
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * @return number of calls sent in batches
+     */
+    public long getBatchedCalls() {
+        return batchedCalls.get();
+    }
+
+    /**
+     * @return number of calls rejected because of pending limit
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    /**
+     * @return number of queued and sent calls without response
+     */
+    public int getPendingCalls() {
+        return pendingCalls.get();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.batch;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/***
+ * StreamBatchSender class
+ * Sends calls as messages of long-lived bidirectional stream, which answers each request with one response in same
+ * order. Stream is opened again with next batch, when it closes.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class StreamBatchSender<ReqT, RespT> implements BatchSender<ReqT, RespT> {
+
+    private final Channel channel;
+    private final MethodDescriptor<ReqT, RespT> method;
+
+    private Runnable onReady;
+    private ClientCall<ReqT, RespT> call;
+    private Deque<CompletableFuture<RespT>> inFlight = new ArrayDeque<>();
+
+    StreamBatchSender(Channel channel, MethodDescriptor<ReqT, RespT> method) {
+        if (method.getType() != MethodDescriptor.MethodType.BIDI_STREAMING) {
+            throw new IllegalArgumentException("Bidirectional streaming method expected: " +
+                    method.getFullMethodName());
+        }
+        this.channel = channel;
+        this.method = method;
+    }
+
+    @Override
+    public void start(Runnable onReady) {
+        this.onReady = onReady;
+    }
+
+    @Override
+    public synchronized boolean isReady() {
+        return call == null || call.isReady();
+    }
+
+    @Override
+    public synchronized void send(List<PendingCall<ReqT, RespT>> batch) {
+        if (call == null) {
+            call = channel.newCall(method, CallOptions.DEFAULT);
+            call.start(new StreamListener(call), new Metadata());
+        }
+        for (PendingCall<ReqT, RespT> pendingCall : batch) {
+            inFlight.add(pendingCall.response);
+            call.sendMessage(pendingCall.request);
+        }
+        call.request(batch.size());
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        if (call != null) {
+            // responses of sent calls are still received
+            call.halfClose();
+            call = null;
+        }
+    }
+
+    private class StreamListener extends ClientCall.Listener<RespT> {
+
+        private final ClientCall<ReqT, RespT> streamCall;
+
+        StreamListener(ClientCall<ReqT, RespT> streamCall) {
+            this.streamCall = streamCall;
+        }
+
+        @Override
+        public void onMessage(RespT message) {
+            CompletableFuture<RespT> response;
+            synchronized (StreamBatchSender.this) {
+                response = inFlight.poll();
+            }
+            if (response != null) {
+                response.complete(message);
+            }
+        }
+
+        @Override
+        public void onClose(Status status, Metadata trailers) {
+            List<CompletableFuture<RespT>> unanswered;
+            synchronized (StreamBatchSender.this) {
+                if (call == streamCall) {
+                    call = null;
+                }
+                unanswered = new ArrayList<>(inFlight);
+                inFlight.clear();
+            }
+            Status failure = status.isOk()
+                    ? Status.INTERNAL.withDescription("Stream closed before all calls were answered")
+                    : status;
+            for (CompletableFuture<RespT> response : unanswered) {
+                response.completeExceptionally(failure.asRuntimeException(trailers));
+            }
+            onReady.run();
+        }
+
+        @Override
+        public void onReady() {
+            onReady.run();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.batch;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.StreamObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/***
+ * UnaryBatchSender class
+ * Sends calls packed into request of user defined unary batch method, whose response contains response of each call in
+ * same order.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class UnaryBatchSender<ReqT, RespT, BatchReqT, BatchRespT> implements BatchSender<ReqT, RespT> {
+
+    private final Channel channel;
+    private final MethodDescriptor<BatchReqT, BatchRespT> method;
+    private final Function<List<ReqT>, BatchReqT> pack;
+    private final Function<BatchRespT, List<RespT>> unpack;
+    private final int maxInFlightBatches;
+    private final AtomicInteger inFlightBatches = new AtomicInteger();
+
+    private Runnable onReady;
+
+    UnaryBatchSender(Channel channel, MethodDescriptor<BatchReqT, BatchRespT> method,
+                     Function<List<ReqT>, BatchReqT> pack, Function<BatchRespT, List<RespT>> unpack,
+                     int maxInFlightBatches) {
+        if (method.getType() != MethodDescriptor.MethodType.UNARY) {
+            throw new IllegalArgumentException("Unary batch method expected: " + method.getFullMethodName());
+        }
+        this.channel = channel;
+        this.method = method;
+        this.pack = pack;
+        this.unpack = unpack;
+        this.maxInFlightBatches = maxInFlightBatches;
+    }
+
+    @Override
+    public void start(Runnable onReady) {
+        this.onReady = onReady;
+    }
+
+    @Override
+    public boolean isReady() {
+        return inFlightBatches.get() < maxInFlightBatches;
+    }
+
+    @Override
+    public void send(List<PendingCall<ReqT, RespT>> batch) {
+        List<ReqT> requests = new ArrayList<>(batch.size());
+        for (PendingCall<ReqT, RespT> pendingCall : batch) {
+            requests.add(pendingCall.request);
+        }
+
+        BatchReqT batchRequest;
+        try {
+            batchRequest = pack.apply(requests);
+        } catch (RuntimeException e) {
+            fail(batch, Status.INTERNAL.withDescription("Could not pack batch").withCause(e));
+            return;
+        }
+
+        inFlightBatches.incrementAndGet();
+        ClientCalls.asyncUnaryCall(channel.newCall(method, CallOptions.DEFAULT), batchRequest,
+                new StreamObserver<BatchRespT>() {
+                    @Override
+                    public void onNext(BatchRespT value) {
+                        List<RespT> responses;
+                        try {
+                            responses = unpack.apply(value);
+                        } catch (RuntimeException e) {
+                            fail(batch, Status.INTERNAL.withDescription("Could not unpack batch").withCause(e));
+                            return;
+                        }
+                        if (responses.size() != batch.size()) {
+                            fail(batch, Status.INTERNAL.withDescription("Batch of " + batch.size() +
+                                    " calls answered with " + responses.size() + " responses"));
+                            return;
+                        }
+                        for (int i = 0; i < batch.size(); i++) {
+                            batch.get(i).response.complete(responses.get(i));
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        fail(batch, Status.fromThrowable(t));
+                        batchCompleted();
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        batchCompleted();
+                    }
+                });
+    }
+
+    private void batchCompleted() {
+        inFlightBatches.decrementAndGet();
+        onReady.run();
+    }
+
+    private void fail(List<PendingCall<ReqT, RespT>> batch, Status status) {
+        for (PendingCall<ReqT, RespT> pendingCall : batch) {
+            pendingCall.response.completeExceptionally(status.asRuntimeException());
+        }
+    }
+
+    @Override
+    public void shutdown() {
+    }
+}
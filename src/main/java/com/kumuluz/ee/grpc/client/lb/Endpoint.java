@@ -0,0 +1,151 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer.Subchannel;
+import io.grpc.Metadata;
+import io.grpc.Status;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ * Endpoint class
+ * Subchannel for one resolved address group and call statistics collected for it.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class Endpoint {
+
+    private final EquivalentAddressGroup addressGroup;
+    private final Subchannel subchannel;
+    private final CallListener callListener;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ClientStreamTracer.Factory tracerFactory = new ClientStreamTracer.Factory() {
+        @Override
+        public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+            return new EndpointStreamTracer();
+        }
+    };
+
+    private ConnectivityStateInfo state = ConnectivityStateInfo.forNonError(ConnectivityState.IDLE);
+    private volatile boolean ejected;
+
+    Endpoint(EquivalentAddressGroup addressGroup, Subchannel subchannel, CallListener callListener) {
+        this.addressGroup = addressGroup;
+        this.subchannel = subchannel;
+        this.callListener = callListener;
+    }
+
+    EquivalentAddressGroup getAddressGroup() {
+        return addressGroup;
+    }
+
+    Subchannel getSubchannel() {
+        return subchannel;
+    }
+
+    ClientStreamTracer.Factory getTracerFactory() {
+        return tracerFactory;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    ConnectivityStateInfo getState() {
+        return state;
+    }
+
+    void setState(ConnectivityStateInfo state) {
+        this.state = state;
+    }
+
+    /**
+     * @return true if endpoint is ejected from load balancing by outlier detection
+     */
+    boolean isEjected() {
+        return ejected;
+    }
+
+    void setEjected(boolean ejected) {
+        this.ejected = ejected;
+    }
+
+    /**
+     * @return resolved addresses of endpoint (ip:port), stable across JVMs
+     */
+    String getName() {
+        StringBuilder name = new StringBuilder();
+        for (SocketAddress address : addressGroup.getAddresses()) {
+            if (address instanceof InetSocketAddress && ((InetSocketAddress) address).getAddress() != null) {
+                InetSocketAddress inetAddress = (InetSocketAddress) address;
+                name.append(inetAddress.getAddress().getHostAddress()).append(':').append(inetAddress.getPort());
+            } else {
+                name.append(address);
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * Tracks one call attempt on the endpoint.
+     */
+    private class EndpointStreamTracer extends ClientStreamTracer {
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final long startNanos = System.nanoTime();
+
+        EndpointStreamTracer() {
+            inFlight.incrementAndGet();
+        }
+
+        @Override
+        public void streamClosed(Status status) {
+            if (closed.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                callListener.callFinished(Endpoint.this, status, System.nanoTime() - startNanos);
+            }
+        }
+
+        @Override
+        public void inboundTrailers(Metadata trailers) {
+            callListener.trailersReceived(Endpoint.this, trailers);
+        }
+    }
+
+    /**
+     * Notified when call attempt on endpoint finishes. Called from transport threads.
+     */
+    interface CallListener {
+
+        void callFinished(Endpoint endpoint, Status status, long latencyNanos);
+
+        void trailersReceived(Endpoint endpoint, Metadata trailers);
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer;
+import io.grpc.Metadata;
+import io.grpc.Status;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * EndpointLoadBalancer class
+ * Base for load balancers which keep one subchannel per resolved address group and pick between ready endpoints.
+ * Subclasses only provide picker for currently ready endpoints. Endpoints ejected by outlier detection are not
+ * considered ready, unless all ready endpoints are ejected.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+abstract class EndpointLoadBalancer extends LoadBalancer {
+
+    private final Helper helper;
+    private final Map<List<SocketAddress>, Endpoint> endpoints = new LinkedHashMap<>();
+    private final OutlierDetector outlierDetector;
+
+    private ConnectivityState currentState;
+    private Status lastError = Status.UNAVAILABLE.withDescription("No endpoints available");
+
+    EndpointLoadBalancer(Helper helper) {
+        this.helper = helper;
+        this.outlierDetector = new OutlierDetector(helper, this::getEndpoints, this::updateBalancingState);
+    }
+
+    /**
+     * Creates picker for endpoints in READY state.
+     *
+     * @param ready ready endpoints, never empty
+     * @return picker
+     */
+    protected abstract SubchannelPicker newPicker(List<Endpoint> ready);
+
+    /**
+     * Called when call attempt on endpoint finishes. Called from transport threads, so implementations must be
+     * thread-safe.
+     *
+     * @param endpoint     endpoint which served the call
+     * @param status       call status
+     * @param latencyNanos call duration
+     */
+    protected void callFinished(Endpoint endpoint, Status status, long latencyNanos) {
+    }
+
+    /**
+     * Called when trailers of call attempt on endpoint are received. Called from transport threads, so
+     * implementations must be thread-safe.
+     *
+     * @param endpoint endpoint which served the call
+     * @param trailers received trailers
+     */
+    protected void trailersReceived(Endpoint endpoint, Metadata trailers) {
+    }
+
+    @Override
+    public Status acceptResolvedAddresses(ResolvedAddresses resolvedAddresses) {
+        List<EquivalentAddressGroup> groups = resolvedAddresses.getAddresses();
+        if (groups.isEmpty()) {
+            Status status = Status.UNAVAILABLE.withDescription("Name resolver returned no endpoints");
+            handleNameResolutionError(status);
+            return status;
+        }
+
+        Object config = resolvedAddresses.getLoadBalancingPolicyConfig();
+        outlierDetector.update(config instanceof EndpointLoadBalancerConfig
+                ? ((EndpointLoadBalancerConfig) config).getOutlierDetection() : null);
+
+        Map<List<SocketAddress>, EquivalentAddressGroup> latest = new LinkedHashMap<>();
+        for (EquivalentAddressGroup group : groups) {
+            latest.put(group.getAddresses(), group);
+        }
+
+        Iterator<Map.Entry<List<SocketAddress>, Endpoint>> iterator = endpoints.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<List<SocketAddress>, Endpoint> entry = iterator.next();
+            if (!latest.containsKey(entry.getKey())) {
+                entry.getValue().getSubchannel().shutdown();
+                outlierDetector.endpointRemoved(entry.getValue());
+                iterator.remove();
+            }
+        }
+
+        for (Map.Entry<List<SocketAddress>, EquivalentAddressGroup> entry : latest.entrySet()) {
+            if (!endpoints.containsKey(entry.getKey())) {
+                endpoints.put(entry.getKey(), createEndpoint(entry.getValue()));
+            }
+        }
+
+        updateBalancingState();
+        return Status.OK;
+    }
+
+    private Endpoint createEndpoint(EquivalentAddressGroup group) {
+        Subchannel subchannel = helper.createSubchannel(CreateSubchannelArgs.newBuilder()
+                .setAddresses(group)
+                .build());
+        Endpoint endpoint = new Endpoint(group, subchannel, new Endpoint.CallListener() {
+            @Override
+            public void callFinished(Endpoint endpoint, Status status, long latencyNanos) {
+                outlierDetector.callFinished(endpoint, status);
+                EndpointLoadBalancer.this.callFinished(endpoint, status, latencyNanos);
+            }
+
+            @Override
+            public void trailersReceived(Endpoint endpoint, Metadata trailers) {
+                EndpointLoadBalancer.this.trailersReceived(endpoint, trailers);
+            }
+        });
+
+        subchannel.start(stateInfo -> processSubchannelState(endpoint, stateInfo));
+        subchannel.requestConnection();
+
+        return endpoint;
+    }
+
+    private void processSubchannelState(Endpoint endpoint, ConnectivityStateInfo stateInfo) {
+        if (endpoints.get(endpoint.getAddressGroup().getAddresses()) != endpoint) {
+            return;
+        }
+
+        ConnectivityState state = stateInfo.getState();
+        if (state == ConnectivityState.TRANSIENT_FAILURE || state == ConnectivityState.IDLE) {
+            helper.refreshNameResolution();
+        }
+        if (state == ConnectivityState.IDLE) {
+            endpoint.getSubchannel().requestConnection();
+        }
+        if (state == ConnectivityState.TRANSIENT_FAILURE) {
+            lastError = stateInfo.getStatus();
+        }
+
+        // failed endpoint stays in TRANSIENT_FAILURE until it becomes READY again
+        if (endpoint.getState().getState() == ConnectivityState.TRANSIENT_FAILURE &&
+                (state == ConnectivityState.CONNECTING || state == ConnectivityState.IDLE)) {
+            return;
+        }
+
+        endpoint.setState(stateInfo);
+        updateBalancingState();
+    }
+
+    /**
+     * Publishes new picker for current endpoints. Must be called from synchronization context.
+     */
+    protected void updateBalancingState() {
+        List<Endpoint> ready = new ArrayList<>();
+        List<Endpoint> ejected = new ArrayList<>();
+        boolean connecting = false;
+
+        for (Endpoint endpoint : endpoints.values()) {
+            ConnectivityState state = endpoint.getState().getState();
+            if (state == ConnectivityState.READY) {
+                (endpoint.isEjected() ? ejected : ready).add(endpoint);
+            } else if (state == ConnectivityState.CONNECTING || state == ConnectivityState.IDLE) {
+                connecting = true;
+            }
+        }
+
+        if (ready.isEmpty()) {
+            // rather use ejected endpoints than fail all calls
+            ready = ejected;
+        }
+
+        if (!ready.isEmpty()) {
+            updateBalancingState(ConnectivityState.READY, newPicker(ready));
+        } else if (connecting) {
+            updateBalancingState(ConnectivityState.CONNECTING, new FixedResultPicker(PickResult.withNoResult()));
+        } else {
+            updateBalancingState(ConnectivityState.TRANSIENT_FAILURE, new FixedResultPicker(PickResult.withError(lastError)));
+        }
+    }
+
+    private void updateBalancingState(ConnectivityState state, SubchannelPicker picker) {
+        currentState = state;
+        helper.updateBalancingState(state, picker);
+    }
+
+    @Override
+    public void handleNameResolutionError(Status error) {
+        if (currentState != ConnectivityState.READY) {
+            updateBalancingState(ConnectivityState.TRANSIENT_FAILURE, new FixedResultPicker(PickResult.withError(error)));
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        outlierDetector.shutdown();
+        for (Endpoint endpoint : endpoints.values()) {
+            endpoint.getSubchannel().shutdown();
+        }
+        endpoints.clear();
+    }
+
+    protected Helper getHelper() {
+        return helper;
+    }
+
+    /**
+     * @return all current endpoints, regardless of their state
+     */
+    protected Collection<Endpoint> getEndpoints() {
+        return Collections.unmodifiableCollection(endpoints.values());
+    }
+
+    /**
+     * Creates pick result which routes call to endpoint and tracks it.
+     */
+    protected static PickResult pick(Endpoint endpoint) {
+        return PickResult.withSubchannel(endpoint.getSubchannel(), endpoint.getTracerFactory());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import java.util.Map;
+
+/***
+ * EndpointLoadBalancerConfig class
+ * Parsed load balancing config common to all {@link EndpointLoadBalancer} policies.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class EndpointLoadBalancerConfig {
+
+    private final OutlierDetectionConfig outlierDetection;
+
+    EndpointLoadBalancerConfig(OutlierDetectionConfig outlierDetection) {
+        this.outlierDetection = outlierDetection;
+    }
+
+    /**
+     * @return outlier detection config or null, if outlier detection is disabled
+     */
+    OutlierDetectionConfig getOutlierDetection() {
+        return outlierDetection;
+    }
+
+    /**
+     * Parses outlierDetection object of load balancing policy config.
+     *
+     * @param rawConfig load balancing policy config
+     * @return outlier detection config or null, if it is not present
+     * @throws IllegalArgumentException if config is not valid
+     */
+    static OutlierDetectionConfig parseOutlierDetection(Map<String, ?> rawConfig) {
+        Object raw = rawConfig.get("outlierDetection");
+        if (raw == null) {
+            return null;
+        }
+        if (!(raw instanceof Map)) {
+            throw new IllegalArgumentException("outlierDetection must be an object");
+        }
+
+        Map<?, ?> outlierDetection = (Map<?, ?>) raw;
+        OutlierDetectionConfig.Builder builder = new OutlierDetectionConfig.Builder();
+
+        Number value;
+        if ((value = number(outlierDetection, "interval")) != null) {
+            builder.interval(value.longValue());
+        }
+        if ((value = number(outlierDetection, "baseEjectionTime")) != null) {
+            builder.baseEjectionTime(value.longValue());
+        }
+        if ((value = number(outlierDetection, "maxEjectionTime")) != null) {
+            builder.maxEjectionTime(value.longValue());
+        }
+        if ((value = number(outlierDetection, "maxEjectionPercent")) != null) {
+            builder.maxEjectionPercent(value.intValue());
+        }
+        if ((value = number(outlierDetection, "consecutiveFailures")) != null) {
+            builder.consecutiveFailures(value.intValue());
+        }
+        if ((value = number(outlierDetection, "successRateStdevFactor")) != null) {
+            builder.successRateStdevFactor(value.doubleValue());
+        }
+        if ((value = number(outlierDetection, "successRateMinimumHosts")) != null) {
+            builder.successRateMinimumHosts(value.intValue());
+        }
+        if ((value = number(outlierDetection, "successRateRequestVolume")) != null) {
+            builder.successRateRequestVolume(value.intValue());
+        }
+
+        return builder.build();
+    }
+
+    private static Number number(Map<?, ?> config, String key) {
+        Object value = config.get(key);
+        if (value != null && (!(value instanceof Number) || ((Number) value).doubleValue() < 0)) {
+            throw new IllegalArgumentException("outlierDetection." + key + " must be a non-negative number");
+        }
+        return (Number) value;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+
+/***
+ * HashKeyClientInterceptor class
+ * Copies value of configured request message field into hash key header, which is used by ring hash load balancing.
+ * Field can be nested (e.g. user.id). Applies to unary and server streaming methods only; start of call is delayed
+ * until request message is sent, because load balancing pick happens when call is started. Calls with unset field
+ * (including proto3 default value) are sent without key and routed to random ready endpoint.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class HashKeyClientInterceptor implements ClientInterceptor {
+
+    private final Metadata.Key<String> hashHeader;
+    private final String[] fieldPath;
+
+    public HashKeyClientInterceptor(String hashHeader, String field) {
+        this.hashHeader = Metadata.Key.of(hashHeader != null ? hashHeader.toLowerCase() : RingHashLoadBalancer.DEFAULT_HASH_HEADER,
+                Metadata.ASCII_STRING_MARSHALLER);
+        this.fieldPath = field.split("\\.");
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        if (!method.getType().clientSendsOneMessage()) {
+            return next.newCall(method, callOptions);
+        }
+        return new HashKeyCall<>(next.newCall(method, callOptions));
+    }
+
+    String extractKey(Object message) {
+        Object value = message;
+        for (String field : fieldPath) {
+            if (!(value instanceof Message)) {
+                return null;
+            }
+            Message current = (Message) value;
+            Descriptors.FieldDescriptor descriptor = current.getDescriptorForType().findFieldByName(field);
+            if (descriptor == null || descriptor.isRepeated() || !current.hasField(descriptor)) {
+                return null;
+            }
+            value = current.getField(descriptor);
+        }
+        return value instanceof Message ? null : String.valueOf(value);
+    }
+
+    private class HashKeyCall<ReqT, RespT> extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+        private Listener<RespT> responseListener;
+        private Metadata headers;
+        // written under lock, read without it on fast paths; cancel can be called from any thread
+        private volatile boolean started;
+        private int pendingRequests;
+        private Boolean messageCompression;
+
+        HashKeyCall(ClientCall<ReqT, RespT> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public synchronized void start(Listener<RespT> responseListener, Metadata headers) {
+            this.responseListener = responseListener;
+            this.headers = headers;
+        }
+
+        private synchronized void startDelegate(String key) {
+            if (started) {
+                return;
+            }
+            if (key != null) {
+                headers.discardAll(hashHeader);
+                headers.put(hashHeader, key);
+            }
+            started = true;
+
+            super.start(responseListener, headers);
+            if (messageCompression != null) {
+                super.setMessageCompression(messageCompression);
+            }
+            if (pendingRequests > 0) {
+                super.request(pendingRequests);
+            }
+        }
+
+        @Override
+        public void request(int numMessages) {
+            if (!started) {
+                synchronized (this) {
+                    if (!started) {
+                        pendingRequests += numMessages;
+                        return;
+                    }
+                }
+            }
+            super.request(numMessages);
+        }
+
+        @Override
+        public void setMessageCompression(boolean enabled) {
+            if (!started) {
+                synchronized (this) {
+                    if (!started) {
+                        messageCompression = enabled;
+                        return;
+                    }
+                }
+            }
+            super.setMessageCompression(enabled);
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+            if (!started) {
+                startDelegate(extractKey(message));
+            }
+            super.sendMessage(message);
+        }
+
+        @Override
+        public void halfClose() {
+            startDelegate(null);
+            super.halfClose();
+        }
+
+        @Override
+        public void cancel(String message, Throwable cause) {
+            boolean hasListener;
+            synchronized (this) {
+                hasListener = responseListener != null;
+            }
+            if (hasListener) {
+                // listener must receive onClose, so delegate is started before it is cancelled
+                startDelegate(null);
+            }
+            super.cancel(message, cause);
+        }
+
+        @Override
+        public boolean isReady() {
+            // first message is accepted before call is started
+            return !started || super.isReady();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/***
+ * LeastRequestLoadBalancer class
+ * Picks two random ready endpoints and routes call to the one with fewer calls in flight.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class LeastRequestLoadBalancer extends EndpointLoadBalancer {
+
+    LeastRequestLoadBalancer(Helper helper) {
+        super(helper);
+    }
+
+    @Override
+    protected SubchannelPicker newPicker(List<Endpoint> ready) {
+        return new LeastRequestPicker(ready);
+    }
+
+    private static class LeastRequestPicker extends SubchannelPicker {
+
+        private final Endpoint[] endpoints;
+
+        LeastRequestPicker(List<Endpoint> ready) {
+            this.endpoints = ready.toArray(new Endpoint[0]);
+        }
+
+        @Override
+        public PickResult pickSubchannel(PickSubchannelArgs args) {
+            if (endpoints.length == 1) {
+                return pick(endpoints[0]);
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(endpoints.length);
+            int second = random.nextInt(endpoints.length - 1);
+            if (second >= first) {
+                second++;
+            }
+
+            Endpoint a = endpoints[first];
+            Endpoint b = endpoints[second];
+            return pick(a.getInFlight() <= b.getInFlight() ? a : b);
+        }
+    }
+}
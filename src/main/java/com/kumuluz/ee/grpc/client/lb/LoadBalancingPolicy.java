@@ -0,0 +1,69 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+/***
+ * LoadBalancingPolicy enum
+ * Load balancing policies which can be configured for client (kumuluzee.grpc.clients[i].loadBalancing).
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public enum LoadBalancingPolicy {
+
+    PICK_FIRST("pick_first", "pick_first"),
+    ROUND_ROBIN("round_robin", "kumuluzee_round_robin"),
+    LEAST_REQUEST("least_request", "kumuluzee_least_request"),
+    RING_HASH("ring_hash", "kumuluzee_ring_hash"),
+    PEAK_EWMA("peak_ewma", "kumuluzee_peak_ewma"),
+    WEIGHTED_ROUND_ROBIN("weighted_round_robin", "kumuluzee_weighted_round_robin");
+
+    private final String configName;
+    private final String policyName;
+
+    LoadBalancingPolicy(String configName, String policyName) {
+        this.configName = configName;
+        this.policyName = policyName;
+    }
+
+    /**
+     * @return name used in configuration
+     */
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * @return name under which policy is registered in gRPC load balancer registry
+     */
+    public String getPolicyName() {
+        return policyName;
+    }
+
+    public static LoadBalancingPolicy fromConfigName(String configName) {
+        for (LoadBalancingPolicy policy : values()) {
+            if (policy.configName.equalsIgnoreCase(configName)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown gRPC load balancing policy: " + configName);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+/***
+ * OutlierDetectionConfig class
+ * Outlier detection of client with multiple endpoints (kumuluzee.grpc.clients[i].outlierDetection).
+ * Endpoint is ejected from load balancing after consecutive failures or when its success rate is significantly
+ * lower than success rate of other endpoints. Every next ejection of the same endpoint lasts longer.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class OutlierDetectionConfig {
+
+    private long interval;
+    private long baseEjectionTime;
+    private long maxEjectionTime;
+    private int maxEjectionPercent;
+    private int consecutiveFailures;
+    private double successRateStdevFactor;
+    private int successRateMinimumHosts;
+    private int successRateRequestVolume;
+
+    public static class Builder {
+        private long interval = 10000L;
+        private long baseEjectionTime = 30000L;
+        private long maxEjectionTime = 300000L;
+        private int maxEjectionPercent = 10;
+        private int consecutiveFailures = 5;
+        private double successRateStdevFactor = 1.9;
+        private int successRateMinimumHosts = 5;
+        private int successRateRequestVolume = 100;
+
+        public void interval(long interval) {
+            this.interval = interval;
+        }
+
+        public void baseEjectionTime(long baseEjectionTime) {
+            this.baseEjectionTime = baseEjectionTime;
+        }
+
+        public void maxEjectionTime(long maxEjectionTime) {
+            this.maxEjectionTime = maxEjectionTime;
+        }
+
+        public void maxEjectionPercent(int maxEjectionPercent) {
+            this.maxEjectionPercent = maxEjectionPercent;
+        }
+
+        public void consecutiveFailures(int consecutiveFailures) {
+            this.consecutiveFailures = consecutiveFailures;
+        }
+
+        public void successRateStdevFactor(double successRateStdevFactor) {
+            this.successRateStdevFactor = successRateStdevFactor;
+        }
+
+        public void successRateMinimumHosts(int successRateMinimumHosts) {
+            this.successRateMinimumHosts = successRateMinimumHosts;
+        }
+
+        public void successRateRequestVolume(int successRateRequestVolume) {
+            this.successRateRequestVolume = successRateRequestVolume;
+        }
+
+        public OutlierDetectionConfig build() {
+            OutlierDetectionConfig config = new OutlierDetectionConfig();
+
+            config.interval = Math.max(1L, interval);
+            config.baseEjectionTime = Math.max(1L, baseEjectionTime);
+            config.maxEjectionTime = Math.max(config.baseEjectionTime, maxEjectionTime);
+            config.maxEjectionPercent = Math.min(100, Math.max(0, maxEjectionPercent));
+            config.consecutiveFailures = Math.max(0, consecutiveFailures);
+            config.successRateStdevFactor = Math.max(0, successRateStdevFactor);
+            config.successRateMinimumHosts = Math.max(1, successRateMinimumHosts);
+            config.successRateRequestVolume = Math.max(1, successRateRequestVolume);
+
+            return config;
+        }
+    }
+
+    private OutlierDetectionConfig() {
+    }
+
+    /**
+     * @return milliseconds between success rate evaluations and returns of ejected endpoints
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return duration of first ejection in milliseconds, every next ejection lasts one base time longer
+     */
+    public long getBaseEjectionTime() {
+        return baseEjectionTime;
+    }
+
+    public long getMaxEjectionTime() {
+        return maxEjectionTime;
+    }
+
+    public int getMaxEjectionPercent() {
+        return maxEjectionPercent;
+    }
+
+    /**
+     * @return number of consecutive failures which eject endpoint or 0, if consecutive failures are not tracked
+     */
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * @return endpoint is ejected if its success rate is lower than mean - factor * standard deviation of all
+     * endpoints; 0 disables success rate ejection
+     */
+    public double getSuccessRateStdevFactor() {
+        return successRateStdevFactor;
+    }
+
+    public int getSuccessRateMinimumHosts() {
+        return successRateMinimumHosts;
+    }
+
+    public int getSuccessRateRequestVolume() {
+        return successRateRequestVolume;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/***
+ * OutlierDetectionEvents class
+ * Collects ejections and returns of endpoints of all clients and notifies registered listeners about them.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class OutlierDetectionEvents {
+
+    private static final Logger logger = Logger.getLogger(OutlierDetectionEvents.class.getName());
+
+    private static final OutlierDetectionEvents instance = new OutlierDetectionEvents();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder ejections = new LongAdder();
+    private final LongAdder returns = new LongAdder();
+    private final AtomicInteger ejected = new AtomicInteger();
+
+    private OutlierDetectionEvents() {
+    }
+
+    public static OutlierDetectionEvents getInstance() {
+        return instance;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return number of ejections since start
+     */
+    public long getEjections() {
+        return ejections.sum();
+    }
+
+    /**
+     * @return number of endpoints returned to load balancing after ejection since start
+     */
+    public long getReturns() {
+        return returns.sum();
+    }
+
+    /**
+     * @return number of currently ejected endpoints
+     */
+    public int getCurrentlyEjected() {
+        return ejected.get();
+    }
+
+    void endpointEjected(String authority, String endpoint, String reason, long ejectionTime) {
+        ejections.increment();
+        ejected.incrementAndGet();
+        logger.log(Level.INFO, "Ejected endpoint {0} of {1} for {2} ms: {3}",
+                new Object[]{endpoint, authority, String.valueOf(ejectionTime), reason});
+
+        for (Listener listener : listeners) {
+            try {
+                listener.endpointEjected(authority, endpoint, reason, ejectionTime);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Outlier detection listener failed", e);
+            }
+        }
+    }
+
+    void endpointReturned(String authority, String endpoint) {
+        returns.increment();
+        ejected.decrementAndGet();
+        logger.log(Level.INFO, "Returned endpoint {0} of {1} to load balancing", new Object[]{endpoint, authority});
+
+        for (Listener listener : listeners) {
+            try {
+                listener.endpointReturned(authority, endpoint);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Outlier detection listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Called when ejected endpoint is removed (name resolution changed or channel shut down).
+     */
+    void ejectedEndpointRemoved() {
+        ejected.decrementAndGet();
+    }
+
+    /**
+     * Notified about ejections and returns of endpoints. Called from channel threads, so implementations must be
+     * thread-safe and should return quickly.
+     */
+    public interface Listener {
+
+        /**
+         * @param authority     authority of channel
+         * @param endpoint      ejected endpoint (host:port)
+         * @param reason        reason for ejection
+         * @param ejectionTime  duration of ejection in milliseconds
+         */
+        void endpointEjected(String authority, String endpoint, String reason, long ejectionTime);
+
+        /**
+         * @param authority authority of channel
+         * @param endpoint  endpoint (host:port) which receives calls again
+         */
+        void endpointReturned(String authority, String endpoint);
+    }
+}
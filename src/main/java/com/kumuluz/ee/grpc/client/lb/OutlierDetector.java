@@ -0,0 +1,260 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import io.grpc.LoadBalancer.Helper;
+import io.grpc.Status;
+import io.grpc.SynchronizationContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/***
+ * OutlierDetector class
+ * Ejects failing endpoints of {@link EndpointLoadBalancer} and returns them after ejection time.
+ * Call results are recorded from transport threads, ejections and returns happen in synchronization context.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class OutlierDetector {
+
+    // status codes which indicate that endpoint failed, other codes are application errors
+    private static final Set<Status.Code> FAILURE_CODES = EnumSet.of(Status.Code.UNAVAILABLE,
+            Status.Code.DEADLINE_EXCEEDED, Status.Code.RESOURCE_EXHAUSTED, Status.Code.INTERNAL, Status.Code.UNKNOWN);
+
+    private final Helper helper;
+    private final SynchronizationContext syncContext;
+    private final Supplier<Collection<Endpoint>> endpoints;
+    private final Runnable onChange;
+    private final Map<Endpoint, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    private volatile OutlierDetectionConfig config;
+    private SynchronizationContext.ScheduledHandle timer;
+
+    OutlierDetector(Helper helper, Supplier<Collection<Endpoint>> endpoints, Runnable onChange) {
+        this.helper = helper;
+        this.syncContext = helper.getSynchronizationContext();
+        this.endpoints = endpoints;
+        this.onChange = onChange;
+    }
+
+    /**
+     * Applies new config. Must be called from synchronization context.
+     *
+     * @param config outlier detection config or null, if outlier detection is disabled
+     */
+    void update(OutlierDetectionConfig config) {
+        OutlierDetectionConfig previous = this.config;
+        this.config = config;
+
+        if (config == null) {
+            cancelTimer();
+            boolean changed = false;
+            for (Endpoint endpoint : endpoints.get()) {
+                if (endpoint.isEjected()) {
+                    returnEndpoint(endpoint);
+                    changed = true;
+                }
+            }
+            stats.clear();
+            if (changed) {
+                onChange.run();
+            }
+        } else if (timer == null || previous.getInterval() != config.getInterval()) {
+            cancelTimer();
+            timer = syncContext.scheduleWithFixedDelay(this::evaluate, config.getInterval(), config.getInterval(),
+                    TimeUnit.MILLISECONDS, helper.getScheduledExecutorService());
+        }
+    }
+
+    /**
+     * Records result of call attempt. Called from transport threads.
+     */
+    void callFinished(Endpoint endpoint, Status status) {
+        OutlierDetectionConfig config = this.config;
+        if (config == null || status.getCode() == Status.Code.CANCELLED) {
+            return;
+        }
+
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, e -> new EndpointStats());
+        if (FAILURE_CODES.contains(status.getCode())) {
+            endpointStats.failures.increment();
+            if (endpointStats.consecutiveFailures.incrementAndGet() == config.getConsecutiveFailures()) {
+                syncContext.execute(() -> eject(endpoint, config.getConsecutiveFailures() + " consecutive failures"));
+            }
+        } else {
+            endpointStats.successes.increment();
+            endpointStats.consecutiveFailures.set(0);
+        }
+    }
+
+    /**
+     * Forgets removed endpoint. Must be called from synchronization context.
+     */
+    void endpointRemoved(Endpoint endpoint) {
+        stats.remove(endpoint);
+        if (endpoint.isEjected()) {
+            endpoint.setEjected(false);
+            OutlierDetectionEvents.getInstance().ejectedEndpointRemoved();
+        }
+    }
+
+    void shutdown() {
+        cancelTimer();
+        for (Endpoint endpoint : endpoints.get()) {
+            endpointRemoved(endpoint);
+        }
+        config = null;
+    }
+
+    private void cancelTimer() {
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+    }
+
+    /**
+     * Returns endpoints whose ejection expired and ejects endpoints with outlying success rate.
+     */
+    private void evaluate() {
+        OutlierDetectionConfig config = this.config;
+        if (config == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        boolean changed = false;
+        List<Endpoint> candidates = new ArrayList<>();
+        List<Double> successRates = new ArrayList<>();
+
+        for (Endpoint endpoint : endpoints.get()) {
+            EndpointStats endpointStats = stats.computeIfAbsent(endpoint, e -> new EndpointStats());
+            long successes = endpointStats.successes.sumThenReset();
+            long failures = endpointStats.failures.sumThenReset();
+
+            if (endpoint.isEjected()) {
+                if (now - endpointStats.ejectedUntil >= 0) {
+                    returnEndpoint(endpoint);
+                    changed = true;
+                }
+            } else {
+                // endpoint which behaves for a whole interval gets shorter next ejection
+                if (endpointStats.ejections > 0) {
+                    endpointStats.ejections--;
+                }
+                if (successes + failures >= config.getSuccessRateRequestVolume()) {
+                    candidates.add(endpoint);
+                    successRates.add((double) successes / (successes + failures));
+                }
+            }
+        }
+
+        if (changed) {
+            onChange.run();
+        }
+
+        if (config.getSuccessRateStdevFactor() > 0 && candidates.size() >= config.getSuccessRateMinimumHosts()) {
+            double mean = 0;
+            for (double successRate : successRates) {
+                mean += successRate;
+            }
+            mean /= successRates.size();
+
+            double variance = 0;
+            for (double successRate : successRates) {
+                variance += (successRate - mean) * (successRate - mean);
+            }
+            double threshold = mean - config.getSuccessRateStdevFactor() * Math.sqrt(variance / successRates.size());
+
+            for (int i = 0; i < candidates.size(); i++) {
+                if (successRates.get(i) < threshold) {
+                    eject(candidates.get(i), String.format("success rate %.3f below threshold %.3f",
+                            successRates.get(i), threshold));
+                }
+            }
+        }
+    }
+
+    private void eject(Endpoint endpoint, String reason) {
+        OutlierDetectionConfig config = this.config;
+        Collection<Endpoint> all = endpoints.get();
+        if (config == null || endpoint.isEjected() || !all.contains(endpoint)) {
+            return;
+        }
+
+        int ejected = 0;
+        for (Endpoint e : all) {
+            if (e.isEjected()) {
+                ejected++;
+            }
+        }
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, e -> new EndpointStats());
+        if (ejected * 100 >= config.getMaxEjectionPercent() * all.size()) {
+            // counting starts again, so that endpoint is reconsidered after next run of consecutive failures
+            endpointStats.consecutiveFailures.set(0);
+            return;
+        }
+
+        endpointStats.ejections++;
+        long ejectionTime = Math.min(config.getBaseEjectionTime() * endpointStats.ejections, config.getMaxEjectionTime());
+        endpointStats.ejectedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ejectionTime);
+        endpointStats.consecutiveFailures.set(0);
+
+        endpoint.setEjected(true);
+        OutlierDetectionEvents.getInstance().endpointEjected(helper.getAuthority(), endpoint.getName(), reason,
+                ejectionTime);
+        onChange.run();
+    }
+
+    private void returnEndpoint(Endpoint endpoint) {
+        endpoint.setEjected(false);
+        EndpointStats endpointStats = stats.get(endpoint);
+        if (endpointStats != null) {
+            endpointStats.consecutiveFailures.set(0);
+        }
+        OutlierDetectionEvents.getInstance().endpointReturned(helper.getAuthority(), endpoint.getName());
+    }
+
+    /**
+     * Call results of endpoint. Counters are updated from transport threads, ejection fields only from
+     * synchronization context.
+     */
+    private static class EndpointStats {
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        private int ejections;
+        private long ejectedUntil;
+    }
+}
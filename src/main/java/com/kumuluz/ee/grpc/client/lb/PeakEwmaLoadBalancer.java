@@ -0,0 +1,205 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import io.grpc.Status;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/***
+ * PeakEwmaLoadBalancer class
+ * Tracks exponentially weighted moving average of call latency for every endpoint, which jumps to new peaks
+ * immediately and decays slowly. Call is routed to the better of two random ready endpoints, where cost of endpoint
+ * is its latency multiplied by number of calls in flight. Slow endpoints (GC pauses, noisy neighbours)
+ * therefore get less traffic until they recover.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class PeakEwmaLoadBalancer extends EndpointLoadBalancer {
+
+    static final long DEFAULT_DECAY_TIME_MILLIS = 10000L;
+
+    // cost of endpoint with calls in flight, but without any finished call yet
+    private static final double PENALTY = 1e12;
+
+    private final Map<Endpoint, PeakEwma> latencies = new ConcurrentHashMap<>();
+
+    private long decayTimeNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_DECAY_TIME_MILLIS);
+
+    PeakEwmaLoadBalancer(Helper helper) {
+        super(helper);
+    }
+
+    @Override
+    public Status acceptResolvedAddresses(ResolvedAddresses resolvedAddresses) {
+        Object config = resolvedAddresses.getLoadBalancingPolicyConfig();
+        if (config instanceof PeakEwmaConfig) {
+            decayTimeNanos = TimeUnit.MILLISECONDS.toNanos(((PeakEwmaConfig) config).getDecayTimeMillis());
+        }
+
+        Status status = super.acceptResolvedAddresses(resolvedAddresses);
+        latencies.keySet().retainAll(getEndpoints());
+        return status;
+    }
+
+    @Override
+    protected SubchannelPicker newPicker(List<Endpoint> ready) {
+        Endpoint[] endpoints = ready.toArray(new Endpoint[0]);
+        PeakEwma[] endpointLatencies = new PeakEwma[endpoints.length];
+        for (int i = 0; i < endpoints.length; i++) {
+            long decay = decayTimeNanos;
+            endpointLatencies[i] = latencies.computeIfAbsent(endpoints[i], e -> new PeakEwma(decay));
+        }
+
+        return new PeakEwmaPicker(endpoints, endpointLatencies);
+    }
+
+    @Override
+    protected void callFinished(Endpoint endpoint, Status status, long latencyNanos) {
+        if (status.getCode() == Status.Code.CANCELLED) {
+            // cancelled by client (e.g. losing hedged attempt), latency says nothing about endpoint
+            return;
+        }
+
+        PeakEwma latency = latencies.get(endpoint);
+        if (latency != null) {
+            latency.observe(latencyNanos);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        latencies.clear();
+    }
+
+    private static class PeakEwmaPicker extends SubchannelPicker {
+
+        private final Endpoint[] endpoints;
+        private final PeakEwma[] latencies;
+
+        PeakEwmaPicker(Endpoint[] endpoints, PeakEwma[] latencies) {
+            this.endpoints = endpoints;
+            this.latencies = latencies;
+        }
+
+        @Override
+        public PickResult pickSubchannel(PickSubchannelArgs args) {
+            if (endpoints.length == 1) {
+                return pick(endpoints[0]);
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(endpoints.length);
+            int second = random.nextInt(endpoints.length - 1);
+            if (second >= first) {
+                second++;
+            }
+
+            return pick(cost(first) <= cost(second) ? endpoints[first] : endpoints[second]);
+        }
+
+        private double cost(int index) {
+            double latency = latencies[index].get();
+            int inFlight = endpoints[index].getInFlight();
+
+            if (latency == 0.0 && inFlight > 0) {
+                return PENALTY + inFlight;
+            }
+            return latency * (inFlight + 1);
+        }
+    }
+
+    /**
+     * Peak sensitive EWMA of latency. Value is kept in immutable state swapped with CAS, so it can be updated
+     * and read without locking.
+     */
+    static class PeakEwma {
+
+        private final double decayTimeNanos;
+        private final AtomicReference<State> state;
+
+        PeakEwma(long decayTimeNanos) {
+            this.decayTimeNanos = decayTimeNanos;
+            this.state = new AtomicReference<>(new State(0.0, System.nanoTime()));
+        }
+
+        void observe(double latencyNanos) {
+            long now = System.nanoTime();
+            State current;
+            State next;
+            do {
+                current = state.get();
+                double cost;
+                if (latencyNanos > current.cost) {
+                    cost = latencyNanos;
+                } else {
+                    double weight = Math.exp(-Math.max(0L, now - current.timestamp) / decayTimeNanos);
+                    cost = current.cost * weight + latencyNanos * (1.0 - weight);
+                }
+                next = new State(cost, now);
+            } while (!state.compareAndSet(current, next));
+        }
+
+        /**
+         * @return current latency estimate, decayed towards zero for time without finished calls
+         */
+        double get() {
+            State current = state.get();
+            double weight = Math.exp(-Math.max(0L, System.nanoTime() - current.timestamp) / decayTimeNanos);
+            return current.cost * weight;
+        }
+
+        private static class State {
+
+            private final double cost;
+            private final long timestamp;
+
+            State(double cost, long timestamp) {
+                this.cost = cost;
+                this.timestamp = timestamp;
+            }
+        }
+    }
+
+    /**
+     * Parsed load balancing config of peak EWMA policy.
+     */
+    static class PeakEwmaConfig extends EndpointLoadBalancerConfig {
+
+        private final long decayTimeMillis;
+
+        PeakEwmaConfig(long decayTimeMillis, OutlierDetectionConfig outlierDetection) {
+            super(outlierDetection);
+            this.decayTimeMillis = decayTimeMillis;
+        }
+
+        long getDecayTimeMillis() {
+            return decayTimeMillis;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancerProvider;
+import io.grpc.NameResolver;
+import io.grpc.Status;
+
+import java.util.Map;
+
+/***
+ * PeakEwmaLoadBalancerProvider class
+ * Registers {@link PeakEwmaLoadBalancer} in gRPC load balancer registry.
+ * Accepts decayTime (milliseconds in which latency observation loses most of its weight)
+ * and outlierDetection config.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class PeakEwmaLoadBalancerProvider extends LoadBalancerProvider {
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public int getPriority() {
+        return 5;
+    }
+
+    @Override
+    public String getPolicyName() {
+        return LoadBalancingPolicy.PEAK_EWMA.getPolicyName();
+    }
+
+    @Override
+    public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+        return new PeakEwmaLoadBalancer(helper);
+    }
+
+    @Override
+    public NameResolver.ConfigOrError parseLoadBalancingPolicyConfig(Map<String, ?> rawConfig) {
+        Object decayTime = rawConfig.get("decayTime");
+
+        if (decayTime != null && (!(decayTime instanceof Number) || ((Number) decayTime).longValue() < 1)) {
+            return NameResolver.ConfigOrError.fromError(Status.INTERNAL.withDescription("decayTime must be a positive number"));
+        }
+
+        OutlierDetectionConfig outlierDetection;
+        try {
+            outlierDetection = EndpointLoadBalancerConfig.parseOutlierDetection(rawConfig);
+        } catch (IllegalArgumentException e) {
+            return NameResolver.ConfigOrError.fromError(Status.INTERNAL.withDescription(e.getMessage()));
+        }
+
+        return NameResolver.ConfigOrError.fromConfig(new PeakEwmaLoadBalancer.PeakEwmaConfig(
+                decayTime != null ? ((Number) decayTime).longValue() : PeakEwmaLoadBalancer.DEFAULT_DECAY_TIME_MILLIS,
+                outlierDetection));
+    }
+}
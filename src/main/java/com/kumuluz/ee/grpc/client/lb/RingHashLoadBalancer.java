@@ -0,0 +1,222 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import io.grpc.ConnectivityState;
+import io.grpc.Metadata;
+import io.grpc.Status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/***
+ * RingHashLoadBalancer class
+ * Routes calls by hash of request key (read from configured header) to endpoints placed on consistent hash ring.
+ * When endpoint is added or removed, only keys in its part of the ring move to other endpoints.
+ * While endpoint owning the key is connecting, calls wait for it; endpoints in failure are skipped. When all endpoints
+ * on the ring are in failure or ejected, calls fall back to random ready endpoint.
+ * Calls without key are routed to random ready endpoint.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class RingHashLoadBalancer extends EndpointLoadBalancer {
+
+    static final String DEFAULT_HASH_HEADER = "kumuluzee-hash-key";
+    static final int DEFAULT_REPLICAS = 128;
+
+    private Metadata.Key<String> hashHeader = Metadata.Key.of(DEFAULT_HASH_HEADER, Metadata.ASCII_STRING_MARSHALLER);
+    private int replicas = DEFAULT_REPLICAS;
+
+    private List<Endpoint> ringEndpoints;
+    private Ring ring;
+
+    RingHashLoadBalancer(Helper helper) {
+        super(helper);
+    }
+
+    @Override
+    public Status acceptResolvedAddresses(ResolvedAddresses resolvedAddresses) {
+        Object config = resolvedAddresses.getLoadBalancingPolicyConfig();
+        if (config instanceof RingHashConfig) {
+            RingHashConfig ringHashConfig = (RingHashConfig) config;
+            hashHeader = Metadata.Key.of(ringHashConfig.getHashHeader(), Metadata.ASCII_STRING_MARSHALLER);
+            if (replicas != ringHashConfig.getReplicas()) {
+                replicas = ringHashConfig.getReplicas();
+                ring = null;
+            }
+        }
+
+        return super.acceptResolvedAddresses(resolvedAddresses);
+    }
+
+    @Override
+    protected SubchannelPicker newPicker(List<Endpoint> ready) {
+        List<Endpoint> all = new ArrayList<>(getEndpoints());
+        // ring is placed over all endpoints, so reconnecting endpoint does not move keys of other endpoints
+        if (ring == null || !all.equals(ringEndpoints)) {
+            ringEndpoints = all;
+            ring = new Ring(all, replicas);
+        }
+
+        ConnectivityState[] states = new ConnectivityState[all.size()];
+        for (int i = 0; i < all.size(); i++) {
+            // ejected endpoint is skipped like failed one, its keys move to next endpoint on the ring
+            states[i] = all.get(i).isEjected() ? ConnectivityState.TRANSIENT_FAILURE : all.get(i).getState().getState();
+        }
+
+        return new RingHashPicker(ring, states, ready.toArray(new Endpoint[0]), hashHeader);
+    }
+
+    private static class RingHashPicker extends SubchannelPicker {
+
+        private final Ring ring;
+        private final ConnectivityState[] states;
+        private final Endpoint[] ready;
+        private final Metadata.Key<String> hashHeader;
+
+        RingHashPicker(Ring ring, ConnectivityState[] states, Endpoint[] ready, Metadata.Key<String> hashHeader) {
+            this.ring = ring;
+            this.states = states;
+            this.ready = ready;
+            this.hashHeader = hashHeader;
+        }
+
+        @Override
+        public PickResult pickSubchannel(PickSubchannelArgs args) {
+            String key = args.getHeaders().get(hashHeader);
+            if (key != null) {
+                PickResult result = ring.lookup(hash(key), states);
+                if (result != null) {
+                    return result;
+                }
+            }
+
+            if (ready.length == 0) {
+                return PickResult.withError(Status.UNAVAILABLE.withDescription("No ready endpoint"));
+            }
+            return pick(ready[ThreadLocalRandom.current().nextInt(ready.length)]);
+        }
+    }
+
+    /**
+     * Sorted ring of endpoint hashes. Each endpoint is placed on the ring fixed number of times (virtual nodes),
+     * so keys are distributed evenly and positions of endpoints do not depend on number of endpoints.
+     */
+    private static class Ring {
+
+        private final long[] hashes;
+        private final int[] indexes;
+        private final List<Endpoint> endpoints;
+
+        Ring(List<Endpoint> endpoints, int replicas) {
+            this.endpoints = endpoints;
+
+            long[][] entries = new long[endpoints.size() * replicas][];
+            int n = 0;
+            for (int i = 0; i < endpoints.size(); i++) {
+                String endpointKey = endpoints.get(i).getName();
+                for (int r = 0; r < replicas; r++) {
+                    entries[n++] = new long[]{hash(endpointKey + "_" + r), i};
+                }
+            }
+            Arrays.sort(entries, Comparator.comparingLong((long[] entry) -> entry[0]));
+
+            hashes = new long[entries.length];
+            indexes = new int[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                hashes[i] = entries[i][0];
+                indexes[i] = (int) entries[i][1];
+            }
+        }
+
+        /**
+         * Finds first endpoint clockwise from provided hash, which is not in failure.
+         *
+         * @return pick result or null, if all endpoints are in failure
+         */
+        PickResult lookup(long hash, ConnectivityState[] states) {
+            int position = Arrays.binarySearch(hashes, hash);
+            if (position < 0) {
+                position = -position - 1;
+            }
+
+            for (int i = 0; i < hashes.length; i++) {
+                int index = indexes[(position + i) % hashes.length];
+                if (states[index] == ConnectivityState.READY) {
+                    return pick(endpoints.get(index));
+                }
+                if (states[index] != ConnectivityState.TRANSIENT_FAILURE) {
+                    // wait until endpoint owning the key connects
+                    return PickResult.withNoResult();
+                }
+            }
+
+            return null;
+        }
+
+    }
+
+    /**
+     * 64-bit FNV-1a hash with final avalanche step, stable across JVMs.
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Parsed load balancing config of ring hash policy.
+     */
+    static class RingHashConfig extends EndpointLoadBalancerConfig {
+
+        private final String hashHeader;
+        private final int replicas;
+
+        RingHashConfig(String hashHeader, int replicas, OutlierDetectionConfig outlierDetection) {
+            super(outlierDetection);
+            this.hashHeader = hashHeader;
+            this.replicas = replicas;
+        }
+
+        String getHashHeader() {
+            return hashHeader;
+        }
+
+        int getReplicas() {
+            return replicas;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancerProvider;
+import io.grpc.NameResolver;
+import io.grpc.Status;
+
+import java.util.Map;
+
+/***
+ * RingHashLoadBalancerProvider class
+ * Registers {@link RingHashLoadBalancer} in gRPC load balancer registry.
+ * Accepts hashHeader (header with request key) and replicas (number of ring entries per endpoint) config
+ * and outlierDetection config.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class RingHashLoadBalancerProvider extends LoadBalancerProvider {
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public int getPriority() {
+        return 5;
+    }
+
+    @Override
+    public String getPolicyName() {
+        return LoadBalancingPolicy.RING_HASH.getPolicyName();
+    }
+
+    @Override
+    public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+        return new RingHashLoadBalancer(helper);
+    }
+
+    @Override
+    public NameResolver.ConfigOrError parseLoadBalancingPolicyConfig(Map<String, ?> rawConfig) {
+        Object hashHeader = rawConfig.get("hashHeader");
+        Object replicas = rawConfig.get("replicas");
+
+        if (hashHeader != null && !(hashHeader instanceof String)) {
+            return NameResolver.ConfigOrError.fromError(Status.INTERNAL.withDescription("hashHeader must be a string"));
+        }
+        if (replicas != null && (!(replicas instanceof Number) || ((Number) replicas).intValue() < 1)) {
+            return NameResolver.ConfigOrError.fromError(Status.INTERNAL.withDescription("replicas must be a positive number"));
+        }
+
+        OutlierDetectionConfig outlierDetection;
+        try {
+            outlierDetection = EndpointLoadBalancerConfig.parseOutlierDetection(rawConfig);
+        } catch (IllegalArgumentException e) {
+            return NameResolver.ConfigOrError.fromError(Status.INTERNAL.withDescription(e.getMessage()));
+        }
+
+        return NameResolver.ConfigOrError.fromConfig(new RingHashLoadBalancer.RingHashConfig(
+                hashHeader != null ? ((String) hashHeader).toLowerCase() : RingHashLoadBalancer.DEFAULT_HASH_HEADER,
+                replicas != null ? ((Number) replicas).intValue() : RingHashLoadBalancer.DEFAULT_REPLICAS,
+                outlierDetection));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ * RoundRobinLoadBalancer class
+ * Routes calls to ready endpoints in turn.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class RoundRobinLoadBalancer extends EndpointLoadBalancer {
+
+    RoundRobinLoadBalancer(Helper helper) {
+        super(helper);
+    }
+
+    @Override
+    protected SubchannelPicker newPicker(List<Endpoint> ready) {
+        return new RoundRobinPicker(ready);
+    }
+
+    private static class RoundRobinPicker extends SubchannelPicker {
+
+        private final Endpoint[] endpoints;
+        // random start, so new pickers do not all begin with the first endpoint
+        private final AtomicInteger index = new AtomicInteger(ThreadLocalRandom.current().nextInt(1 << 16));
+
+        RoundRobinPicker(List<Endpoint> ready) {
+            this.endpoints = ready.toArray(new Endpoint[0]);
+        }
+
+        @Override
+        public PickResult pickSubchannel(PickSubchannelArgs args) {
+            return pick(endpoints[(index.getAndIncrement() & Integer.MAX_VALUE) % endpoints.length]);
+        }
+    }
+}
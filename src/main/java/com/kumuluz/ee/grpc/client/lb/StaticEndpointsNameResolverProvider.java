@@ -0,0 +1,194 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.NameResolver;
+import io.grpc.NameResolverProvider;
+import io.grpc.Status;
+import io.grpc.SynchronizationContext;
+
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/***
+ * StaticEndpointsNameResolverProvider class
+ * Resolves list of configured endpoints (host:port) to addresses. Each endpoint becomes one address group with all
+ * addresses of its host. Host names are resolved again on every refresh, so DNS changes are picked up when connections
+ * fail.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class StaticEndpointsNameResolverProvider extends NameResolverProvider {
+
+    private static final String SCHEME = "kumuluzee-static";
+
+    /**
+     * Builds channel target for provided endpoints.
+     *
+     * @param endpoints endpoints in host:port format
+     * @return target which is resolved by this provider
+     */
+    public static String target(List<String> endpoints) {
+        try {
+            return SCHEME + ":///" + URLEncoder.encode(String.join(",", endpoints), "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    protected boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    protected int priority() {
+        // lower than DNS resolver, so DNS stays the default scheme for targets without one
+        return 4;
+    }
+
+    @Override
+    public String getDefaultScheme() {
+        return SCHEME;
+    }
+
+    @Override
+    protected String getScheme() {
+        return SCHEME;
+    }
+
+    @Override
+    public Collection<Class<? extends SocketAddress>> getProducedSocketAddressTypes() {
+        return Collections.singleton(InetSocketAddress.class);
+    }
+
+    @Override
+    public NameResolver newNameResolver(URI targetUri, NameResolver.Args args) {
+        if (!SCHEME.equals(targetUri.getScheme())) {
+            return null;
+        }
+
+        String path = targetUri.getPath();
+        if (path == null || path.length() <= 1) {
+            throw new IllegalArgumentException("No endpoints in target " + targetUri);
+        }
+
+        List<URI> endpoints = new ArrayList<>();
+        for (String endpoint : path.substring(1).split(",")) {
+            URI uri = URI.create("//" + endpoint.trim());
+            if (uri.getHost() == null || uri.getPort() < 0) {
+                throw new IllegalArgumentException("Endpoint must be in host:port format: " + endpoint);
+            }
+            endpoints.add(uri);
+        }
+
+        return new StaticEndpointsNameResolver(endpoints, args);
+    }
+
+    private static class StaticEndpointsNameResolver extends NameResolver {
+
+        private final List<URI> endpoints;
+        private final Executor executor;
+        private final SynchronizationContext syncContext;
+
+        private Listener2 listener;
+        private boolean resolving;
+        private boolean shutdown;
+
+        StaticEndpointsNameResolver(List<URI> endpoints, Args args) {
+            this.endpoints = endpoints;
+            this.executor = args.getOffloadExecutor() != null ? args.getOffloadExecutor() : Runnable::run;
+            this.syncContext = args.getSynchronizationContext();
+        }
+
+        @Override
+        public String getServiceAuthority() {
+            return endpoints.get(0).getAuthority();
+        }
+
+        @Override
+        public void start(Listener2 listener) {
+            this.listener = listener;
+            resolve();
+        }
+
+        @Override
+        public void refresh() {
+            resolve();
+        }
+
+        private void resolve() {
+            if (resolving || shutdown) {
+                return;
+            }
+            resolving = true;
+
+            executor.execute(() -> {
+                List<EquivalentAddressGroup> groups = new ArrayList<>();
+                UnknownHostException error = null;
+
+                for (URI endpoint : endpoints) {
+                    try {
+                        // all addresses of endpoint form one group, so host with several addresses (e.g. IPv4 and
+                        // IPv6 localhost) gets same share of calls as any other endpoint
+                        List<SocketAddress> addresses = new ArrayList<>();
+                        for (InetAddress address : InetAddress.getAllByName(endpoint.getHost())) {
+                            addresses.add(new InetSocketAddress(address, endpoint.getPort()));
+                        }
+                        groups.add(new EquivalentAddressGroup(addresses));
+                    } catch (UnknownHostException e) {
+                        error = e;
+                    }
+                }
+
+                Status status = Status.UNAVAILABLE.withDescription("Unable to resolve endpoints " + endpoints).withCause(error);
+                syncContext.execute(() -> {
+                    resolving = false;
+                    if (shutdown) {
+                        return;
+                    }
+                    if (groups.isEmpty()) {
+                        listener.onError(status);
+                    } else {
+                        listener.onResult(ResolutionResult.newBuilder().setAddresses(groups).build());
+                    }
+                });
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+/***
+ * WeightedRoundRobinConfig class
+ * Weighted round robin load balancing of client (kumuluzee.grpc.clients[i].weightedRoundRobin). Endpoint weights
+ * are computed from load reported by servers as rps / (utilization + errorUtilizationPenalty * eps / rps).
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class WeightedRoundRobinConfig {
+
+    private long blackoutPeriod;
+    private long weightExpirationPeriod;
+    private long weightUpdatePeriod;
+    private double errorUtilizationPenalty;
+    private boolean outOfBandReporting;
+    private long outOfBandReportingPeriod;
+
+    public static class Builder {
+        private long blackoutPeriod = 10000L;
+        private long weightExpirationPeriod = 180000L;
+        private long weightUpdatePeriod = 1000L;
+        private double errorUtilizationPenalty = 1.0;
+        private boolean outOfBandReporting;
+        private long outOfBandReportingPeriod = 10000L;
+
+        public void blackoutPeriod(long blackoutPeriod) {
+            this.blackoutPeriod = blackoutPeriod;
+        }
+
+        public void weightExpirationPeriod(long weightExpirationPeriod) {
+            this.weightExpirationPeriod = weightExpirationPeriod;
+        }
+
+        public void weightUpdatePeriod(long weightUpdatePeriod) {
+            this.weightUpdatePeriod = weightUpdatePeriod;
+        }
+
+        public void errorUtilizationPenalty(double errorUtilizationPenalty) {
+            this.errorUtilizationPenalty = errorUtilizationPenalty;
+        }
+
+        public void outOfBandReporting(boolean outOfBandReporting) {
+            this.outOfBandReporting = outOfBandReporting;
+        }
+
+        public void outOfBandReportingPeriod(long outOfBandReportingPeriod) {
+            this.outOfBandReportingPeriod = outOfBandReportingPeriod;
+        }
+
+        public WeightedRoundRobinConfig build() {
+            WeightedRoundRobinConfig config = new WeightedRoundRobinConfig();
+
+            config.blackoutPeriod = Math.max(0L, blackoutPeriod);
+            config.weightExpirationPeriod = Math.max(1L, weightExpirationPeriod);
+            config.weightUpdatePeriod = Math.max(100L, weightUpdatePeriod);
+            config.errorUtilizationPenalty = Math.max(0, errorUtilizationPenalty);
+            config.outOfBandReporting = outOfBandReporting;
+            config.outOfBandReportingPeriod = Math.max(100L, outOfBandReportingPeriod);
+
+            return config;
+        }
+    }
+
+    private WeightedRoundRobinConfig() {
+    }
+
+    /**
+     * @return milliseconds after first report of endpoint, before its weight is used
+     */
+    public long getBlackoutPeriod() {
+        return blackoutPeriod;
+    }
+
+    /**
+     * @return milliseconds without report, after which weight of endpoint is no longer used
+     */
+    public long getWeightExpirationPeriod() {
+        return weightExpirationPeriod;
+    }
+
+    public long getWeightUpdatePeriod() {
+        return weightUpdatePeriod;
+    }
+
+    public double getErrorUtilizationPenalty() {
+        return errorUtilizationPenalty;
+    }
+
+    /**
+     * @return true if reports are received on out-of-band stream in addition to trailers of calls
+     */
+    public boolean isOutOfBandReporting() {
+        return outOfBandReporting;
+    }
+
+    public long getOutOfBandReportingPeriod() {
+        return outOfBandReportingPeriod;
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import com.kumuluz.ee.grpc.utils.LoadReport;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.SynchronizationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/***
+ * WeightedRoundRobinLoadBalancer class
+ * Routes calls to ready endpoints in turn, proportionally to weights computed from load reported by servers.
+ * Endpoints without recent reports get mean weight of other endpoints.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class WeightedRoundRobinLoadBalancer extends EndpointLoadBalancer {
+
+    private final Map<Endpoint, EndpointWeight> weights = new ConcurrentHashMap<>();
+
+    private volatile WeightedRoundRobinConfig config = new WeightedRoundRobinConfig.Builder().build();
+    private SynchronizationContext.ScheduledHandle updateTimer;
+    private long updatePeriod;
+
+    WeightedRoundRobinLoadBalancer(Helper helper) {
+        super(helper);
+    }
+
+    @Override
+    public Status acceptResolvedAddresses(ResolvedAddresses resolvedAddresses) {
+        Object lbConfig = resolvedAddresses.getLoadBalancingPolicyConfig();
+        if (lbConfig instanceof WeightedRoundRobinPolicyConfig) {
+            config = ((WeightedRoundRobinPolicyConfig) lbConfig).getWeightedRoundRobin();
+        }
+
+        // weights change without changes of endpoint state, so picker is rebuilt periodically
+        if (updateTimer == null || updatePeriod != config.getWeightUpdatePeriod()) {
+            if (updateTimer != null) {
+                updateTimer.cancel();
+            }
+            updatePeriod = config.getWeightUpdatePeriod();
+            updateTimer = getHelper().getSynchronizationContext().scheduleWithFixedDelay(this::updateBalancingState,
+                    updatePeriod, updatePeriod, TimeUnit.MILLISECONDS, getHelper().getScheduledExecutorService());
+        }
+
+        Status status = super.acceptResolvedAddresses(resolvedAddresses);
+        weights.keySet().retainAll(getEndpoints());
+        for (EndpointWeight weight : weights.values()) {
+            if (!config.isOutOfBandReporting()) {
+                weight.stopReports();
+            }
+        }
+        return status;
+    }
+
+    @Override
+    protected void trailersReceived(Endpoint endpoint, Metadata trailers) {
+        String report = trailers.get(LoadReport.TRAILER_KEY);
+        if (report != null) {
+            EndpointWeight weight = weights.get(endpoint);
+            if (weight != null) {
+                weight.update(LoadReport.fromText(report), config);
+            }
+        }
+    }
+
+    @Override
+    protected SubchannelPicker newPicker(List<Endpoint> ready) {
+        WeightedRoundRobinConfig config = this.config;
+        long now = System.nanoTime();
+
+        Endpoint[] endpoints = ready.toArray(new Endpoint[0]);
+        double[] endpointWeights = new double[endpoints.length];
+        for (int i = 0; i < endpoints.length; i++) {
+            EndpointWeight weight = weights.computeIfAbsent(endpoints[i], EndpointWeight::new);
+            if (config.isOutOfBandReporting()) {
+                weight.startReports(config);
+            }
+            endpointWeights[i] = weight.getWeight(now, config);
+        }
+
+        return new WeightedRoundRobinPicker(endpoints, endpointWeights);
+    }
+
+    @Override
+    public void shutdown() {
+        if (updateTimer != null) {
+            updateTimer.cancel();
+            updateTimer = null;
+        }
+        for (EndpointWeight weight : weights.values()) {
+            weight.stopReports();
+        }
+        weights.clear();
+        super.shutdown();
+    }
+
+    /**
+     * Picks endpoints with static stride scheduling: sequence number selects endpoint and generation, endpoint is
+     * picked in share of generations proportional to its weight, otherwise next sequence number is tried.
+     */
+    private static class WeightedRoundRobinPicker extends SubchannelPicker {
+
+        private static final int MAX_WEIGHT = 0xFFFF;
+        // weights are capped to multiple of mean weight, which bounds number of tries per pick
+        private static final double MAX_RATIO = 10.0;
+
+        private final Endpoint[] endpoints;
+        private final int[] scaledWeights;
+        private final AtomicLong sequence = new AtomicLong(ThreadLocalRandom.current().nextInt(1 << 16));
+
+        WeightedRoundRobinPicker(Endpoint[] endpoints, double[] weights) {
+            this.endpoints = endpoints;
+            this.scaledWeights = new int[endpoints.length];
+
+            double sum = 0;
+            int count = 0;
+            for (double weight : weights) {
+                if (weight > 0) {
+                    sum += weight;
+                    count++;
+                }
+            }
+            double mean = count > 0 ? sum / count : 1.0;
+
+            double max = 0;
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = weights[i] > 0 ? Math.min(weights[i], mean * MAX_RATIO) : mean;
+                max = Math.max(max, weights[i]);
+            }
+            for (int i = 0; i < weights.length; i++) {
+                scaledWeights[i] = (int) Math.max(1, Math.round(weights[i] / max * MAX_WEIGHT));
+            }
+        }
+
+        @Override
+        public PickResult pickSubchannel(PickSubchannelArgs args) {
+            int n = endpoints.length;
+            while (true) {
+                long sequenceNumber = sequence.getAndIncrement() & Long.MAX_VALUE;
+                int index = (int) (sequenceNumber % n);
+                long generation = (sequenceNumber / n) % MAX_WEIGHT;
+                int weight = scaledWeights[index];
+                // offset spreads picks of endpoints with equal weights across generations
+                long offset = (long) index * MAX_WEIGHT / 2;
+
+                if ((weight * generation + offset) % MAX_WEIGHT >= MAX_WEIGHT - weight) {
+                    return pick(endpoints[index]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Weight of endpoint, computed from its latest load report.
+     */
+    private static class EndpointWeight {
+
+        private final Endpoint endpoint;
+
+        private volatile double weight;
+        private volatile long nonEmptySince;
+        private volatile long lastUpdated;
+        private volatile ClientCall<String, String> reportCall;
+        private volatile boolean reportsUnsupported;
+
+        EndpointWeight(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        void update(LoadReport report, WeightedRoundRobinConfig config) {
+            if (report == null) {
+                return;
+            }
+
+            double utilization = report.getApplicationUtilization() > 0
+                    ? report.getApplicationUtilization() : report.getCpuUtilization();
+            double rps = report.getRps();
+            if (utilization <= 0 || rps <= 0) {
+                return;
+            }
+
+            long now = System.nanoTime();
+            weight = rps / (utilization + config.getErrorUtilizationPenalty() * report.getEps() / rps);
+            if (nonEmptySince == 0) {
+                nonEmptySince = now;
+            }
+            lastUpdated = now;
+        }
+
+        /**
+         * @return weight or 0, if it is not known, still in blackout period or expired
+         */
+        double getWeight(long now, WeightedRoundRobinConfig config) {
+            if (nonEmptySince == 0) {
+                return 0;
+            }
+            if (now - lastUpdated >= TimeUnit.MILLISECONDS.toNanos(config.getWeightExpirationPeriod())) {
+                nonEmptySince = 0;
+                return 0;
+            }
+            if (now - nonEmptySince < TimeUnit.MILLISECONDS.toNanos(config.getBlackoutPeriod())) {
+                return 0;
+            }
+            return weight;
+        }
+
+        /**
+         * Opens out-of-band report stream on subchannel of endpoint, if it is not open yet. Must be called from
+         * synchronization context.
+         */
+        void startReports(WeightedRoundRobinConfig config) {
+            if (reportCall != null || reportsUnsupported ||
+                    endpoint.getState().getState() != ConnectivityState.READY) {
+                return;
+            }
+
+            ClientCall<String, String> call = endpoint.getSubchannel().asChannel()
+                    .newCall(LoadReport.STREAM_METHOD, CallOptions.DEFAULT);
+            reportCall = call;
+            call.start(new ClientCall.Listener<String>() {
+                @Override
+                public void onMessage(String message) {
+                    update(LoadReport.fromText(message), config);
+                    call.request(1);
+                }
+
+                @Override
+                public void onClose(Status status, Metadata trailers) {
+                    if (status.getCode() == Status.Code.UNIMPLEMENTED) {
+                        // server does not report load out of band, weight is updated from trailers only
+                        reportsUnsupported = true;
+                    }
+                    // stream is reopened with next picker, if endpoint is still ready
+                    if (reportCall == call) {
+                        reportCall = null;
+                    }
+                }
+            }, new Metadata());
+            call.sendMessage(String.valueOf(config.getOutOfBandReportingPeriod()));
+            call.halfClose();
+            call.request(1);
+        }
+
+        void stopReports() {
+            ClientCall<String, String> call = reportCall;
+            reportCall = null;
+            if (call != null) {
+                call.cancel("Out-of-band load reports no longer needed", null);
+            }
+        }
+    }
+
+    /**
+     * Parsed load balancing config of weighted round robin policy.
+     */
+    static class WeightedRoundRobinPolicyConfig extends EndpointLoadBalancerConfig {
+
+        private final WeightedRoundRobinConfig weightedRoundRobin;
+
+        WeightedRoundRobinPolicyConfig(WeightedRoundRobinConfig weightedRoundRobin,
+                                       OutlierDetectionConfig outlierDetection) {
+            super(outlierDetection);
+            this.weightedRoundRobin = weightedRoundRobin;
+        }
+
+        WeightedRoundRobinConfig getWeightedRoundRobin() {
+            return weightedRoundRobin;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancerProvider;
+import io.grpc.NameResolver;
+import io.grpc.Status;
+
+import java.util.Map;
+
+/***
+ * WeightedRoundRobinLoadBalancerProvider class
+ * Registers {@link WeightedRoundRobinLoadBalancer} in gRPC load balancer registry.
+ * Accepts blackoutPeriod, weightExpirationPeriod, weightUpdatePeriod, errorUtilizationPenalty, outOfBandReporting,
+ * outOfBandReportingPeriod and outlierDetection config.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class WeightedRoundRobinLoadBalancerProvider extends LoadBalancerProvider {
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public int getPriority() {
+        return 5;
+    }
+
+    @Override
+    public String getPolicyName() {
+        return LoadBalancingPolicy.WEIGHTED_ROUND_ROBIN.getPolicyName();
+    }
+
+    @Override
+    public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+        return new WeightedRoundRobinLoadBalancer(helper);
+    }
+
+    @Override
+    public NameResolver.ConfigOrError parseLoadBalancingPolicyConfig(Map<String, ?> rawConfig) {
+        WeightedRoundRobinConfig.Builder builder = new WeightedRoundRobinConfig.Builder();
+        OutlierDetectionConfig outlierDetection;
+
+        try {
+            Number value;
+            if ((value = number(rawConfig, "blackoutPeriod")) != null) {
+                builder.blackoutPeriod(value.longValue());
+            }
+            if ((value = number(rawConfig, "weightExpirationPeriod")) != null) {
+                builder.weightExpirationPeriod(value.longValue());
+            }
+            if ((value = number(rawConfig, "weightUpdatePeriod")) != null) {
+                builder.weightUpdatePeriod(value.longValue());
+            }
+            if ((value = number(rawConfig, "errorUtilizationPenalty")) != null) {
+                builder.errorUtilizationPenalty(value.doubleValue());
+            }
+            if ((value = number(rawConfig, "outOfBandReportingPeriod")) != null) {
+                builder.outOfBandReportingPeriod(value.longValue());
+            }
+
+            Object outOfBandReporting = rawConfig.get("outOfBandReporting");
+            if (outOfBandReporting != null && !(outOfBandReporting instanceof Boolean)) {
+                throw new IllegalArgumentException("outOfBandReporting must be a boolean");
+            }
+            builder.outOfBandReporting(Boolean.TRUE.equals(outOfBandReporting));
+
+            outlierDetection = EndpointLoadBalancerConfig.parseOutlierDetection(rawConfig);
+        } catch (IllegalArgumentException e) {
+            return NameResolver.ConfigOrError.fromError(Status.INTERNAL.withDescription(e.getMessage()));
+        }
+
+        return NameResolver.ConfigOrError.fromConfig(
+                new WeightedRoundRobinLoadBalancer.WeightedRoundRobinPolicyConfig(builder.build(), outlierDetection));
+    }
+
+    private static Number number(Map<String, ?> config, String key) {
+        Object value = config.get(key);
+        if (value != null && (!(value instanceof Number) || ((Number) value).doubleValue() < 0)) {
+            throw new IllegalArgumentException(key + " must be a non-negative number");
+        }
+        return (Number) value;
+    }
+}
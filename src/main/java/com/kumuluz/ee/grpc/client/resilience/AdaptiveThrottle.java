@@ -0,0 +1,76 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.resilience;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/***
+ * AdaptiveThrottle class
+ * Client-side adaptive throttling. Calls are rejected locally with probability
+ * max(0, (requests - k * accepts) / (requests + 1)), where requests and accepts are counted over sliding window.
+ * When backend rejects calls because of overload, accept ratio drops and client sends proportionally fewer calls.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class AdaptiveThrottle {
+
+    private static final int REQUESTS = 0;
+    private static final int ACCEPTS = 1;
+
+    private final double k;
+    private final RollingWindow window;
+
+    public AdaptiveThrottle(ThrottlingConfig config) {
+        this.k = config.getK();
+        this.window = new RollingWindow(config.getWindow(), 20, 2);
+    }
+
+    /**
+     * @return true if call may be sent, false if it is rejected locally
+     */
+    public boolean tryAcquire() {
+        double probability = getRejectProbability();
+
+        if (probability > 0.0 && ThreadLocalRandom.current().nextDouble() < probability) {
+            window.increment(REQUESTS);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records result of sent call.
+     *
+     * @param accepted false if backend rejected call because of overload
+     */
+    public void onResult(boolean accepted) {
+        window.increment(REQUESTS);
+        if (accepted) {
+            window.increment(ACCEPTS);
+        }
+    }
+
+    public double getRejectProbability() {
+        long[] sums = window.sum();
+        return Math.max(0.0, (sums[REQUESTS] - k * sums[ACCEPTS]) / (sums[REQUESTS] + 1));
+    }
+}
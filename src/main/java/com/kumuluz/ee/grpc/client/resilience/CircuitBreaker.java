@@ -0,0 +1,139 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/***
+ * CircuitBreaker class
+ * Opens circuit when rate of failed or slow calls in sliding window exceeds threshold. After wait duration, limited
+ * number of trial calls is permitted (half-open); circuit closes when all of them succeed and opens again on first
+ * failure. State transitions use CAS, so no locks are taken on call path.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final int CALLS = 0;
+    private static final int FAILURES = 1;
+    private static final int SLOW_CALLS = 2;
+
+    private final CircuitBreakerConfig config;
+    private final RollingWindow window;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicLong openedAt = new AtomicLong();
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+
+    public CircuitBreaker(CircuitBreakerConfig config) {
+        this.config = config;
+        this.window = new RollingWindow(config.getWindow(), 10, 3);
+    }
+
+    /**
+     * Tries to acquire permission for call.
+     *
+     * @return state in which call was permitted or null if call is rejected
+     */
+    public State tryAcquire() {
+        State current = state.get();
+
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAt.get() < TimeUnit.MILLISECONDS.toNanos(config.getWaitDuration())) {
+                return null;
+            }
+            if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                halfOpenSuccesses.set(0);
+                halfOpenPermits.set(config.getHalfOpenCalls());
+            }
+            current = state.get();
+        }
+
+        if (current == State.HALF_OPEN) {
+            int permits;
+            do {
+                permits = halfOpenPermits.get();
+                if (permits <= 0) {
+                    return null;
+                }
+            } while (!halfOpenPermits.compareAndSet(permits, permits - 1));
+        }
+
+        return current;
+    }
+
+    /**
+     * Records result of permitted call.
+     *
+     * @param permittedIn  state returned by {@link #tryAcquire()}
+     * @param failed       true if call failed
+     * @param latencyNanos call duration
+     */
+    public void onResult(State permittedIn, boolean failed, long latencyNanos) {
+        boolean slow = latencyNanos >= TimeUnit.MILLISECONDS.toNanos(config.getSlowCallDuration());
+
+        if (permittedIn == State.HALF_OPEN) {
+            if (failed || slow) {
+                open(State.HALF_OPEN);
+            } else if (halfOpenSuccesses.incrementAndGet() >= config.getHalfOpenCalls() &&
+                    state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+                window.reset();
+            }
+            return;
+        }
+
+        window.increment(CALLS);
+        if (failed) {
+            window.increment(FAILURES);
+        }
+        if (slow) {
+            window.increment(SLOW_CALLS);
+        }
+
+        if ((failed || slow) && state.get() == State.CLOSED) {
+            long[] sums = window.sum();
+            if (sums[CALLS] >= config.getMinimumCalls() &&
+                    (sums[FAILURES] * 100 >= sums[CALLS] * config.getFailureRateThreshold() ||
+                            sums[SLOW_CALLS] * 100 >= sums[CALLS] * config.getSlowCallRateThreshold())) {
+                open(State.CLOSED);
+            }
+        }
+    }
+
+    private void open(State from) {
+        openedAt.set(System.nanoTime());
+        if (state.compareAndSet(from, State.OPEN)) {
+            halfOpenPermits.set(0);
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.resilience;
+
+/***
+ * CircuitBreakerConfig class
+ * Configuration of {@link CircuitBreaker} (kumuluzee.grpc.clients[i].methods[j].circuitBreaker).
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class CircuitBreakerConfig {
+
+    private int failureRateThreshold;
+    private int slowCallRateThreshold;
+    private long slowCallDuration;
+    private int minimumCalls;
+    private long window;
+    private long waitDuration;
+    private int halfOpenCalls;
+
+    public static class Builder {
+        private int failureRateThreshold = 50;
+        private int slowCallRateThreshold = 100;
+        private long slowCallDuration = 60000L;
+        private int minimumCalls = 20;
+        private long window = 10000L;
+        private long waitDuration = 5000L;
+        private int halfOpenCalls = 5;
+
+        public void failureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public void slowCallRateThreshold(int slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public void slowCallDuration(long slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+        }
+
+        public void minimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public void window(long window) {
+            this.window = window;
+        }
+
+        public void waitDuration(long waitDuration) {
+            this.waitDuration = waitDuration;
+        }
+
+        public void halfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+        }
+
+        public CircuitBreakerConfig build() {
+            CircuitBreakerConfig config = new CircuitBreakerConfig();
+
+            config.failureRateThreshold = failureRateThreshold;
+            config.slowCallRateThreshold = slowCallRateThreshold;
+            config.slowCallDuration = slowCallDuration;
+            config.minimumCalls = Math.max(1, minimumCalls);
+            config.window = window;
+            config.waitDuration = waitDuration;
+            config.halfOpenCalls = Math.max(1, halfOpenCalls);
+
+            return config;
+        }
+    }
+
+    private CircuitBreakerConfig() {
+    }
+
+    /**
+     * @return percentage of failed calls in window, which opens circuit
+     */
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * @return percentage of slow calls in window, which opens circuit
+     */
+    public int getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    /**
+     * @return duration in milliseconds after which call is considered slow
+     */
+    public long getSlowCallDuration() {
+        return slowCallDuration;
+    }
+
+    /**
+     * @return number of calls in window required before rates are evaluated
+     */
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    /**
+     * @return length of sliding window in milliseconds
+     */
+    public long getWindow() {
+        return window;
+    }
+
+    /**
+     * @return time in milliseconds circuit stays open before trial calls are permitted
+     */
+    public long getWaitDuration() {
+        return waitDuration;
+    }
+
+    /**
+     * @return number of trial calls permitted in half-open state
+     */
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+}
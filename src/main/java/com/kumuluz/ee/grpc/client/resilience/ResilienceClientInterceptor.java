@@ -0,0 +1,233 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.resilience;
+
+import com.kumuluz.ee.grpc.client.GrpcMethodConfig;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/***
+ * ResilienceClientInterceptor class
+ * Guards calls with circuit breaker and adaptive throttling configured per method, service or whole channel.
+ * Rejected calls fail fast with UNAVAILABLE status, without reaching the network.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class ResilienceClientInterceptor implements ClientInterceptor {
+
+    private static final Logger logger = Logger.getLogger(ResilienceClientInterceptor.class.getName());
+
+    // status codes which indicate that backend failed or is overloaded
+    private static final Set<Status.Code> FAILURE_CODES = EnumSet.of(Status.Code.UNAVAILABLE,
+            Status.Code.DEADLINE_EXCEEDED, Status.Code.RESOURCE_EXHAUSTED, Status.Code.INTERNAL, Status.Code.UNKNOWN);
+    private static final Set<Status.Code> REJECTED_CODES = EnumSet.of(Status.Code.UNAVAILABLE,
+            Status.Code.RESOURCE_EXHAUSTED);
+
+    private static final CallGuard NO_GUARD = new CallGuard(null, null, null);
+
+    private final List<GrpcMethodConfig> methodConfigs;
+    private final Executor executor;
+    private final Map<GrpcMethodConfig, CallGuard> guards = new IdentityHashMap<>();
+    private final Map<String, CallGuard> methodGuards = new ConcurrentHashMap<>();
+
+    /**
+     * @param methodConfigs method configs with circuit breaker and throttling settings
+     * @param executor      executor on which rejection is delivered to calls without executor in call options
+     */
+    public ResilienceClientInterceptor(List<GrpcMethodConfig> methodConfigs, Executor executor) {
+        this.methodConfigs = methodConfigs;
+        this.executor = executor;
+
+        for (GrpcMethodConfig methodConfig : methodConfigs) {
+            if (methodConfig.getCircuitBreaker() != null || methodConfig.getThrottling() != null) {
+                guards.put(methodConfig, new CallGuard(methodConfig.getName(),
+                        methodConfig.getCircuitBreaker() != null ? new CircuitBreaker(methodConfig.getCircuitBreaker()) : null,
+                        methodConfig.getThrottling() != null ? new AdaptiveThrottle(methodConfig.getThrottling()) : null));
+            }
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        CallGuard guard = methodGuards.computeIfAbsent(method.getFullMethodName(), this::findGuard);
+        if (guard == NO_GUARD) {
+            return next.newCall(method, callOptions);
+        }
+
+        Executor callExecutor = callOptions.getExecutor() != null ? callOptions.getExecutor() : executor;
+        return new GuardedCall<>(next.newCall(method, callOptions), guard, callExecutor);
+    }
+
+    private CallGuard findGuard(String fullMethodName) {
+        GrpcMethodConfig methodConfig = GrpcMethodConfig.findMostSpecific(methodConfigs, fullMethodName,
+                c -> guards.containsKey(c));
+        return methodConfig != null ? guards.get(methodConfig) : NO_GUARD;
+    }
+
+    /**
+     * @param fullMethodName full method name (package.Service/Method)
+     * @return circuit breaker guarding method or null if method is not guarded by circuit breaker
+     */
+    public CircuitBreaker getCircuitBreaker(String fullMethodName) {
+        return methodGuards.computeIfAbsent(fullMethodName, this::findGuard).circuitBreaker;
+    }
+
+    /**
+     * @param fullMethodName full method name (package.Service/Method)
+     * @return number of calls of method rejected locally
+     */
+    public long getRejectedCalls(String fullMethodName) {
+        return methodGuards.computeIfAbsent(fullMethodName, this::findGuard).rejected.sum();
+    }
+
+    /**
+     * Circuit breaker and throttle shared by all methods matching one method config.
+     */
+    private static class CallGuard {
+
+        private final String name;
+        private final CircuitBreaker circuitBreaker;
+        private final AdaptiveThrottle throttle;
+        private final LongAdder rejected = new LongAdder();
+
+        CallGuard(String name, CircuitBreaker circuitBreaker, AdaptiveThrottle throttle) {
+            this.name = name;
+            this.circuitBreaker = circuitBreaker;
+            this.throttle = throttle;
+        }
+    }
+
+    /**
+     * Call which asks guard for permission when started and reports result when closed.
+     */
+    private static class GuardedCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+        private final ClientCall<ReqT, RespT> delegate;
+        private final CallGuard guard;
+        private final Executor executor;
+        private boolean rejected;
+
+        GuardedCall(ClientCall<ReqT, RespT> delegate, CallGuard guard, Executor executor) {
+            this.delegate = delegate;
+            this.guard = guard;
+            this.executor = executor;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            if (guard.throttle != null && !guard.throttle.tryAcquire()) {
+                reject(responseListener, "Call rejected by client-side throttling");
+                return;
+            }
+
+            CircuitBreaker.State permittedIn = null;
+            if (guard.circuitBreaker != null) {
+                permittedIn = guard.circuitBreaker.tryAcquire();
+                if (permittedIn == null) {
+                    reject(responseListener, "Circuit breaker is open");
+                    return;
+                }
+            }
+
+            long startNanos = System.nanoTime();
+            CircuitBreaker.State state = permittedIn;
+            delegate.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(responseListener) {
+                @Override
+                public void onClose(Status status, Metadata trailers) {
+                    if (guard.throttle != null) {
+                        guard.throttle.onResult(!REJECTED_CODES.contains(status.getCode()));
+                    }
+                    if (guard.circuitBreaker != null) {
+                        guard.circuitBreaker.onResult(state, FAILURE_CODES.contains(status.getCode()),
+                                System.nanoTime() - startNanos);
+                    }
+                    super.onClose(status, trailers);
+                }
+            }, headers);
+        }
+
+        private void reject(Listener<RespT> responseListener, String reason) {
+            rejected = true;
+            guard.rejected.increment();
+            logger.fine(reason + " (" + guard.name + ")");
+            // listener must not be called from start, caller may still hold locks or set up call
+            executor.execute(() -> responseListener.onClose(Status.UNAVAILABLE.withDescription(reason), new Metadata()));
+        }
+
+        @Override
+        public void request(int numMessages) {
+            if (!rejected) {
+                delegate.request(numMessages);
+            }
+        }
+
+        @Override
+        public void cancel(String message, Throwable cause) {
+            if (!rejected) {
+                delegate.cancel(message, cause);
+            }
+        }
+
+        @Override
+        public void halfClose() {
+            if (!rejected) {
+                delegate.halfClose();
+            }
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+            if (!rejected) {
+                delegate.sendMessage(message);
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return !rejected && delegate.isReady();
+        }
+
+        @Override
+        public void setMessageCompression(boolean enabled) {
+            if (!rejected) {
+                delegate.setMessageCompression(enabled);
+            }
+        }
+    }
+}
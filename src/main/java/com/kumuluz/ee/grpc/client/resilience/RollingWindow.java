@@ -0,0 +1,108 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/***
+ * RollingWindow class
+ * Lock-free counters over sliding time window, split into buckets. Bucket is reused (reset) when window moves past
+ * it. Increments racing with bucket reset may be lost, so sums are approximate.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class RollingWindow {
+
+    private final long origin = System.nanoTime();
+    private final long bucketNanos;
+    private final Bucket[] buckets;
+    private final int counters;
+
+    RollingWindow(long windowMillis, int bucketCount, int counters) {
+        this.bucketNanos = Math.max(1L, TimeUnit.MILLISECONDS.toNanos(windowMillis) / bucketCount);
+        this.buckets = new Bucket[bucketCount];
+        this.counters = counters;
+
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket(counters);
+        }
+    }
+
+    void increment(int counter) {
+        long epoch = epoch();
+        current(epoch).counts.incrementAndGet(counter);
+    }
+
+    /**
+     * @return sum of every counter over window
+     */
+    long[] sum() {
+        long epoch = epoch();
+        long[] sums = new long[counters];
+
+        for (Bucket bucket : buckets) {
+            long bucketEpoch = bucket.epoch.get();
+            if (bucketEpoch > epoch - buckets.length && bucketEpoch <= epoch) {
+                for (int i = 0; i < counters; i++) {
+                    sums[i] += bucket.counts.get(i);
+                }
+            }
+        }
+
+        return sums;
+    }
+
+    void reset() {
+        for (Bucket bucket : buckets) {
+            bucket.epoch.set(-1L);
+        }
+    }
+
+    private long epoch() {
+        return (System.nanoTime() - origin) / bucketNanos;
+    }
+
+    private Bucket current(long epoch) {
+        Bucket bucket = buckets[(int) (epoch % buckets.length)];
+        long bucketEpoch = bucket.epoch.get();
+
+        if (bucketEpoch < epoch && bucket.epoch.compareAndSet(bucketEpoch, epoch)) {
+            for (int i = 0; i < counters; i++) {
+                bucket.counts.set(i, 0L);
+            }
+        }
+
+        return bucket;
+    }
+
+    private static class Bucket {
+
+        private final AtomicLong epoch = new AtomicLong(-1L);
+        private final AtomicLongArray counts;
+
+        Bucket(int counters) {
+            this.counts = new AtomicLongArray(counters);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.resilience;
+
+/***
+ * ThrottlingConfig class
+ * Configuration of {@link AdaptiveThrottle} (kumuluzee.grpc.clients[i].methods[j].throttling).
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class ThrottlingConfig {
+
+    private double k;
+    private long window;
+
+    public static class Builder {
+        private double k = 2.0;
+        private long window = 120000L;
+
+        public void k(double k) {
+            this.k = k;
+        }
+
+        public void window(long window) {
+            this.window = window;
+        }
+
+        public ThrottlingConfig build() {
+            ThrottlingConfig config = new ThrottlingConfig();
+
+            config.k = k;
+            config.window = window;
+
+            return config;
+        }
+    }
+
+    private ThrottlingConfig() {
+    }
+
+    /**
+     * @return multiplier of accepted requests; lower value throttles more aggressively
+     */
+    public double getK() {
+        return k;
+    }
+
+    /**
+     * @return length of sliding window in milliseconds
+     */
+    public long getWindow() {
+        return window;
+    }
+}
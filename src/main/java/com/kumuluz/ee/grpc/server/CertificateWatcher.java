@@ -0,0 +1,132 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server;
+
+import io.grpc.util.AdvancedTlsX509KeyManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.GeneralSecurityException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/***
+ * CertificateWatcher class
+ * Watches server certificate and key files and loads them into key manager when they change. New handshakes use
+ * new certificate, while existing connections are kept open.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class CertificateWatcher {
+
+    private static final Logger logger = Logger.getLogger(CertificateWatcher.class.getName());
+
+    // files are usually replaced in several steps (e.g. Kubernetes secret symlink swap), so changes are collected
+    private static final long SETTLE_MILLIS = 500L;
+
+    private final File certFile;
+    private final File keyFile;
+    private final AdvancedTlsX509KeyManager keyManager;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    private long lastCertModified;
+    private long lastKeyModified;
+
+    CertificateWatcher(File certFile, File keyFile, AdvancedTlsX509KeyManager keyManager) throws IOException {
+        this.certFile = certFile.getAbsoluteFile();
+        this.keyFile = keyFile.getAbsoluteFile();
+        this.keyManager = keyManager;
+        this.lastCertModified = this.certFile.lastModified();
+        this.lastKeyModified = this.keyFile.lastModified();
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        Set<Path> directories = new HashSet<>();
+        directories.add(this.certFile.getParentFile().toPath());
+        directories.add(this.keyFile.getParentFile().toPath());
+        for (Path directory : directories) {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        }
+
+        thread = new Thread(this::watch, "grpc-certificate-watcher");
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void stop() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Could not close certificate watch service", e);
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                // wait for related changes and drain their events
+                Thread.sleep(SETTLE_MILLIS);
+                do {
+                    key.pollEvents();
+                    key.reset();
+                } while ((key = watchService.poll()) != null);
+
+                reloadIfChanged();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // watcher stopped
+        }
+    }
+
+    private void reloadIfChanged() {
+        long certModified = certFile.lastModified();
+        long keyModified = keyFile.lastModified();
+        if (certModified == lastCertModified && keyModified == lastKeyModified) {
+            return;
+        }
+
+        try {
+            keyManager.updateIdentityCredentialsFromFile(keyFile, certFile);
+            lastCertModified = certModified;
+            lastKeyModified = keyModified;
+            logger.info("Reloaded gRPC server certificate " + certFile);
+        } catch (IOException | GeneralSecurityException e) {
+            // keep serving with previous certificate, files may be only partially written
+            logger.log(Level.WARNING, "Could not reload gRPC server certificate " + certFile + ", keeping previous one", e);
+        }
+    }
+}
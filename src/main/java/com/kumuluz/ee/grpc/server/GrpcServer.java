@@ -22,34 +22,61 @@ package com.kumuluz.ee.grpc.server;
 
 import com.kumuluz.ee.grpc.annotations.GrpcService;
 import com.kumuluz.ee.grpc.server.auth.JWTContext;
+import com.kumuluz.ee.grpc.server.broadcast.BroadcastBinder;
+import com.kumuluz.ee.grpc.server.cache.CoalescedCalls;
+import com.kumuluz.ee.grpc.server.cache.ResponseCache;
+import com.kumuluz.ee.grpc.server.cache.ResponseCacheBinder;
+import com.kumuluz.ee.grpc.server.compression.CompressionConfig;
+import com.kumuluz.ee.grpc.server.compression.CompressionServerInterceptor;
+import com.kumuluz.ee.grpc.server.deadline.DeadlineConfig;
+import com.kumuluz.ee.grpc.server.deadline.DeadlineServerInterceptor;
+import com.kumuluz.ee.grpc.server.load.LoadReportServerInterceptor;
+import com.kumuluz.ee.grpc.server.load.LoadReportService;
+import com.kumuluz.ee.grpc.server.zerocopy.ZeroCopyBinder;
+import com.kumuluz.ee.grpc.utils.CompressionCodecs;
 import com.kumuluz.ee.grpc.utils.GrpcServiceDef;
 import io.grpc.BindableService;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptor;
 import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.inprocess.InProcessServerBuilder;
 import io.grpc.netty.shaded.io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
 import io.grpc.netty.shaded.io.netty.handler.ssl.ClientAuth;
+import io.grpc.netty.shaded.io.netty.handler.ssl.OpenSsl;
+import io.grpc.netty.shaded.io.netty.handler.ssl.OpenSslSessionContext;
+import io.grpc.netty.shaded.io.netty.handler.ssl.OpenSslSessionTicketKey;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslContext;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslContextBuilder;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SupportedCipherSuiteFilter;
 import io.grpc.protobuf.services.HealthStatusManager;
 import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
 import io.grpc.protobuf.services.ProtoReflectionService;
+import io.grpc.util.AdvancedTlsX509KeyManager;
 
 import javax.annotation.security.DenyAll;
 import javax.annotation.security.PermitAll;
 import javax.annotation.security.RolesAllowed;
-import javax.net.ssl.SSLException;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -66,9 +93,19 @@ public class GrpcServer {
 
     private static Logger logger = Logger.getLogger(GrpcServer.class.getName());
 
+    private static final int TICKET_KEY_LENGTH = 48;
+
     private GrpcServerConf conf;
     private Server server;
+    private Server inProcessServer;
+    private String inProcessName;
+    private boolean clientCertificatesRequired;
     private HealthStatusManager healthStatusManager;
+    private LoadReportService loadReportService;
+    private CertificateWatcher certificateWatcher;
+    private DeadlineServerInterceptor deadlineInterceptor;
+    private Map<String, ResponseCache> responseCaches = new ConcurrentHashMap<>();
+    private Map<String, CoalescedCalls> coalescedCalls = new ConcurrentHashMap<>();
     private Map<String, Map<String, Method>> serviceMethods = new HashMap<>();
     private static GrpcServer instance;
 
@@ -96,6 +133,9 @@ public class GrpcServer {
         SslContext sslContext = createContext(conf.getCertFile(), conf.getPrivateKeyFile(),
                 conf.getChainFile(), conf.getMutualTLS());
 
+        clientCertificatesRequired = sslContext != null && conf.getChainFile() != null &&
+                conf.getMutualTLS() == ClientAuth.REQUIRE;
+
         if (sslContext != null) {
             sb = NettyServerBuilder
                     .forPort(conf.getPort())
@@ -134,11 +174,24 @@ public class GrpcServer {
         }
 
 
+        sb.compressorRegistry(CompressionCodecs.compressorRegistry(conf.getCompressionCodecs()));
+        sb.decompressorRegistry(CompressionCodecs.decompressorRegistry(conf.getCompressionCodecs()));
+
         bindServices(sb, conf.getServices());
 
         sb.handshakeTimeout(conf.getTimeout(), TimeUnit.SECONDS);
         server = sb.build();
 
+        // same services are served to clients in this JVM without network transport
+        if (ConfigurationUtil.getInstance().getBoolean("kumuluzee.grpc.server.inProcess.enabled").orElse(true)) {
+            inProcessName = "kumuluzee-grpc-" + conf.getPort();
+            inProcessServer = InProcessServerBuilder.forName(inProcessName)
+                    .addServices(server.getServices())
+                    .compressorRegistry(CompressionCodecs.compressorRegistry(conf.getCompressionCodecs()))
+                    .decompressorRegistry(CompressionCodecs.decompressorRegistry(conf.getCompressionCodecs()))
+                    .build();
+        }
+
         checkSecurityAnnotations();
     }
 
@@ -208,19 +261,58 @@ public class GrpcServer {
      * Bind services annotated with @GrpcService
      */
     private void bindServices(ServerBuilder sb, Set<GrpcServiceDef> grpcServices) {
+        ConfigurationUtil confUtil = ConfigurationUtil.getInstance();
+
+        // load reports: per call in trailers and/or out of band on separate stream
+        boolean perCallLoadReports = confUtil.getBoolean("kumuluzee.grpc.server.loadReporting.perCall").orElse(false);
+        boolean outOfBandLoadReports = confUtil.getBoolean("kumuluzee.grpc.server.loadReporting.outOfBand").orElse(false);
+        ServerInterceptor loadReportInterceptor = perCallLoadReports || outOfBandLoadReports
+                ? new LoadReportServerInterceptor(perCallLoadReports) : null;
+
+        List<DeadlineConfig> deadlineConfigs = parseDeadlineConfigs(confUtil);
+        if (!deadlineConfigs.isEmpty()) {
+            deadlineInterceptor = new DeadlineServerInterceptor(deadlineConfigs);
+        }
+
+        List<CompressionConfig> compressionConfigs = parseCompressionConfigs(confUtil);
+        ServerInterceptor compressionInterceptor = compressionConfigs.isEmpty()
+                ? null : new CompressionServerInterceptor(compressionConfigs);
+
         for (GrpcServiceDef grpcService : grpcServices) {
             String serviceName = grpcService.getServiceName();
             try {
                 Class<?> service = Class.forName(serviceName);
                 Constructor<?> serviceConstructor = service.getConstructor();
 
+                List<ServerInterceptor> interceptors = new ArrayList<>();
                 if (grpcService.hasInterceptors()) {
+                    interceptors.addAll(grpcService.getServiceInterceptors());
+                }
+                if (compressionInterceptor != null) {
+                    // first interceptor is called last, so compression is decided for each response service sends
+                    interceptors.add(0, compressionInterceptor);
+                }
+                if (deadlineInterceptor != null) {
+                    // reject calls without enough time left before authorization and service interceptors run
+                    interceptors.add(deadlineInterceptor);
+                }
+                if (loadReportInterceptor != null) {
+                    // last interceptor is called first, so rejected calls are counted too
+                    interceptors.add(loadReportInterceptor);
+                }
+
+                // cached responses are served inside interceptors, so calls are still authorized and counted
+                ServerServiceDefinition definition = ResponseCacheBinder.bind(
+                        ((BindableService) serviceConstructor.newInstance()).bindService(), service, responseCaches,
+                        coalescedCalls);
+                definition = BroadcastBinder.bind(definition, service);
+                definition = ZeroCopyBinder.bind(definition, service);
 
-                    sb.addService(ServerInterceptors
-                            .intercept((BindableService) serviceConstructor.newInstance(),
-                                    grpcService.getServiceInterceptors()));
+                if (!interceptors.isEmpty()) {
+
+                    sb.addService(ServerInterceptors.intercept(definition, interceptors));
                 } else {
-                    sb.addService((BindableService) serviceConstructor.newInstance());
+                    sb.addService(definition);
                 }
             } catch (ClassNotFoundException c) {
                 logger.log(Level.WARNING, "Service class not found {0}", serviceName);
@@ -231,8 +323,12 @@ public class GrpcServer {
             }
         }
 
+        if (outOfBandLoadReports) {
+            loadReportService = new LoadReportService();
+            sb.addService(loadReportService);
+        }
+
         // Health check service
-        ConfigurationUtil confUtil = ConfigurationUtil.getInstance();
         boolean healthCheckEnabled = confUtil.getBoolean("kumuluzee.grpc.server.health.healthCheckEnabled").orElse(false);
 
         if (healthCheckEnabled) {
@@ -245,27 +341,129 @@ public class GrpcServer {
         }
     }
 
+    private List<DeadlineConfig> parseDeadlineConfigs(ConfigurationUtil confUtil) {
+        List<DeadlineConfig> deadlineConfigs = new ArrayList<>();
+        int size = confUtil.getListSize("kumuluzee.grpc.server.deadlines").orElse(0);
+        for (int i = 0; i < size; i++) {
+            String prefix = "kumuluzee.grpc.server.deadlines[" + i + "]";
+            DeadlineConfig.Builder builder = new DeadlineConfig.Builder();
+            confUtil.get(prefix + ".name").ifPresent(builder::name);
+            confUtil.getLong(prefix + ".defaultDeadline").ifPresent(builder::defaultDeadline);
+            confUtil.getLong(prefix + ".minimumDeadline").ifPresent(builder::minimumDeadline);
+            deadlineConfigs.add(builder.build());
+        }
+        return deadlineConfigs;
+    }
+
+    private List<CompressionConfig> parseCompressionConfigs(ConfigurationUtil confUtil) {
+        List<CompressionConfig> compressionConfigs = new ArrayList<>();
+        int size = confUtil.getListSize("kumuluzee.grpc.server.compression.methods").orElse(0);
+        for (int i = 0; i < size; i++) {
+            String prefix = "kumuluzee.grpc.server.compression.methods[" + i + "]";
+            CompressionConfig.Builder builder = new CompressionConfig.Builder();
+            confUtil.get(prefix + ".name").ifPresent(builder::name);
+            confUtil.get(prefix + ".codec").ifPresent(builder::codec);
+            confUtil.getInteger(prefix + ".minSize").ifPresent(builder::minSize);
+            CompressionConfig config = builder.build();
+
+            if (!config.getCodec().equals("identity") && !conf.getCompressionCodecs().contains(config.getCodec())) {
+                logger.log(Level.WARNING, "Compression codec {0} of {1} is not enabled, responses are not compressed",
+                        new String[] {config.getCodec(), config.getName()});
+            } else {
+                compressionConfigs.add(config);
+            }
+        }
+        return compressionConfigs;
+    }
+
     private SslContext createContext(File certChainFile, File privateKeyFile, File caCertFile, ClientAuth clientAuth) {
         try {
             if (certChainFile != null && privateKeyFile != null &&
                     certChainFile.canRead() && privateKeyFile.canRead()) {
-                SslContextBuilder builder = GrpcSslContexts.forServer(certChainFile, privateKeyFile);
+                SslProvider provider = SslProvider.OPENSSL;
+                if (!OpenSsl.isAvailable()) {
+                    logger.warning("OpenSSL is not available, gRPC server falls back to JDK TLS provider: " +
+                            OpenSsl.unavailabilityCause());
+                    provider = SslProvider.JDK;
+                }
+
+                SslContextBuilder builder;
+                if (conf.getWatchCertificates()) {
+                    // key manager is consulted on every handshake, so reloaded certificates apply to new connections
+                    AdvancedTlsX509KeyManager keyManager = new AdvancedTlsX509KeyManager();
+                    keyManager.updateIdentityCredentialsFromFile(privateKeyFile, certChainFile);
+                    builder = GrpcSslContexts.configure(SslContextBuilder.forServer(keyManager), provider);
+                    certificateWatcher = new CertificateWatcher(certChainFile, privateKeyFile, keyManager);
+                    certificateWatcher.start();
+                } else {
+                    builder = GrpcSslContexts.configure(SslContextBuilder.forServer(certChainFile, privateKeyFile),
+                            provider);
+                }
                 if (caCertFile != null && clientAuth != null) {
                     builder.trustManager(caCertFile).clientAuth(clientAuth);
                 }
-                return builder.sslProvider(SslProvider.OPENSSL)
-                    .build();
+                if (!conf.getCiphers().isEmpty()) {
+                    builder.ciphers(conf.getCiphers(), SupportedCipherSuiteFilter.INSTANCE);
+                }
+                if (conf.getSessionCacheSize() > 0) {
+                    builder.sessionCacheSize(conf.getSessionCacheSize());
+                }
+                if (conf.getSessionTimeout() > 0) {
+                    builder.sessionTimeout(conf.getSessionTimeout());
+                }
+
+                SslContext sslContext = builder.build();
+                configureSessionTickets(sslContext);
+                return sslContext;
             }
 
             return null;
-        } catch (SSLException e) {
+        } catch (IOException | GeneralSecurityException e) {
             e.printStackTrace();
         }
         return null;
     }
 
+    private void configureSessionTickets(SslContext sslContext) {
+        if (!conf.getSessionTickets() && conf.getSessionTicketKeys().isEmpty()) {
+            return;
+        }
+        if (!(sslContext.sessionContext() instanceof OpenSslSessionContext)) {
+            logger.warning("Session ticket keys can only be set with OpenSSL provider, using JDK defaults");
+            return;
+        }
+
+        List<OpenSslSessionTicketKey> keys = new ArrayList<>();
+        if (conf.getSessionTicketKeys().isEmpty()) {
+            // random key, tickets are only valid for this server instance
+            byte[] key = new byte[TICKET_KEY_LENGTH];
+            new SecureRandom().nextBytes(key);
+            keys.add(toTicketKey(key));
+        } else {
+            for (String encodedKey : conf.getSessionTicketKeys()) {
+                byte[] key = Base64.getDecoder().decode(encodedKey);
+                if (key.length != TICKET_KEY_LENGTH) {
+                    throw new IllegalArgumentException("Session ticket key must be " + TICKET_KEY_LENGTH +
+                            " bytes long, got " + key.length);
+                }
+                keys.add(toTicketKey(key));
+            }
+        }
+
+        ((OpenSslSessionContext) sslContext.sessionContext())
+                .setTicketKeys(keys.toArray(new OpenSslSessionTicketKey[0]));
+    }
+
+    private static OpenSslSessionTicketKey toTicketKey(byte[] key) {
+        return new OpenSslSessionTicketKey(Arrays.copyOfRange(key, 0, 16), Arrays.copyOfRange(key, 16, 32),
+                Arrays.copyOfRange(key, 32, 48));
+    }
+
     public void start() throws IOException {
         server.start();
+        if (inProcessServer != null) {
+            inProcessServer.start();
+        }
 
         logger.info("gRPC server started, listening on " + server.getPort());
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -278,6 +476,18 @@ public class GrpcServer {
         if (server != null) {
             server.shutdown();
         }
+        if (inProcessServer != null) {
+            inProcessServer.shutdown();
+        }
+        if (loadReportService != null) {
+            loadReportService.shutdown();
+        }
+        if (certificateWatcher != null) {
+            certificateWatcher.stop();
+        }
+        if (deadlineInterceptor != null) {
+            deadlineInterceptor.shutdown();
+        }
     }
 
     public void waitForShutdown() throws InterruptedException {
@@ -290,6 +500,73 @@ public class GrpcServer {
         return server.getPort();
     }
 
+    /**
+     * @return name of in-process server serving same services or null, if in-process server is disabled
+     */
+    public String getInProcessName() {
+        return inProcessName;
+    }
+
+    /**
+     * @return true, if network server requires client certificates, which in-process calls do not present
+     */
+    public boolean isClientCertificatesRequired() {
+        return clientCertificatesRequired;
+    }
+
+    /**
+     * Checks whether address and port point to this server, so calls can use in-process server instead.
+     *
+     * @param address host name or IP address
+     * @param port    port
+     * @return true, if address is local address of this host and port is port of this server
+     */
+    public boolean isLocalTarget(String address, int port) {
+        int serverPort;
+        try {
+            serverPort = server.getPort();
+        } catch (IllegalStateException e) {
+            // server is not started yet
+            serverPort = conf.getPort();
+        }
+        if (address == null || port != serverPort) {
+            return false;
+        }
+
+        try {
+            InetAddress inetAddress = InetAddress.getByName(address);
+            return inetAddress.isLoopbackAddress() || inetAddress.isAnyLocalAddress() ||
+                    NetworkInterface.getByInetAddress(inetAddress) != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param fullMethodName full method name (package.Service/Method)
+     * @return response cache of method or null, if method is not annotated with
+     * {@link com.kumuluz.ee.grpc.annotations.GrpcCacheable}
+     */
+    public ResponseCache getResponseCache(String fullMethodName) {
+        return responseCaches.get(fullMethodName);
+    }
+
+    /**
+     * @param fullMethodName full method name (package.Service/Method)
+     * @return in-flight calls of method or null, if method is not annotated with
+     * {@link com.kumuluz.ee.grpc.annotations.GrpcCoalesced}
+     */
+    public CoalescedCalls getCoalescedCalls(String fullMethodName) {
+        return coalescedCalls.get(fullMethodName);
+    }
+
+    /**
+     * @return deadline interceptor with deadline counters or null, if no deadline policy is configured
+     */
+    public DeadlineServerInterceptor getDeadlineInterceptor() {
+        return deadlineInterceptor;
+    }
+
     public HealthStatusManager getHealthStatusManager() {
         return healthStatusManager;
     }
@@ -20,10 +20,13 @@
  */
 package com.kumuluz.ee.grpc.server;
 
+import com.kumuluz.ee.grpc.utils.CompressionCodecs;
 import com.kumuluz.ee.grpc.utils.GrpcServiceDef;
 import io.grpc.netty.shaded.io.netty.handler.ssl.ClientAuth;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 /***
@@ -44,6 +47,13 @@ public class GrpcServerConf {
     private File privateKeyFile;
     private File chainFile;
     private ClientAuth mutualTLS;
+    private Long sessionCacheSize = 0L;
+    private Long sessionTimeout = 0L;
+    private boolean sessionTickets;
+    private List<String> sessionTicketKeys = new ArrayList<>();
+    private List<String> ciphers = new ArrayList<>();
+    private boolean watchCertificates;
+    private List<String> compressionCodecs = CompressionCodecs.DEFAULT_CODECS;
 
     private Long timeout;
     private Long permitKeepAliveTime;
@@ -198,4 +208,66 @@ public class GrpcServerConf {
     public void setMaxConnectionAgeGrace(Long maxConnectionAgeGrace) {
         this.maxConnectionAgeGrace = maxConnectionAgeGrace;
     }
+
+    public Long getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    public void setSessionCacheSize(Long sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+    }
+
+    public Long getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    public void setSessionTimeout(Long sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    public boolean getSessionTickets() {
+        return sessionTickets;
+    }
+
+    public void setSessionTickets(boolean sessionTickets) {
+        this.sessionTickets = sessionTickets;
+    }
+
+    /**
+     * @return base64 encoded 48 byte session ticket keys, first one encrypts new tickets
+     */
+    public List<String> getSessionTicketKeys() {
+        return sessionTicketKeys;
+    }
+
+    public void setSessionTicketKeys(List<String> sessionTicketKeys) {
+        this.sessionTicketKeys = sessionTicketKeys;
+    }
+
+    public List<String> getCiphers() {
+        return ciphers;
+    }
+
+    public void setCiphers(List<String> ciphers) {
+        this.ciphers = ciphers;
+    }
+
+    public boolean getWatchCertificates() {
+        return watchCertificates;
+    }
+
+    public void setWatchCertificates(boolean watchCertificates) {
+        this.watchCertificates = watchCertificates;
+    }
+
+    /**
+     * @return names of codecs, which can compress responses and are advertised for requests
+     */
+    public List<String> getCompressionCodecs() {
+        return compressionCodecs;
+    }
+
+    public void setCompressionCodecs(List<String> compressionCodecs) {
+        this.compressionCodecs = compressionCodecs;
+    }
 }
@@ -24,6 +24,11 @@ import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
 import com.kumuluz.ee.grpc.annotations.GrpcInterceptor;
 import com.kumuluz.ee.grpc.annotations.GrpcService;
 import com.kumuluz.ee.grpc.server.auth.JWTServerInterceptor;
+import com.kumuluz.ee.grpc.server.ratelimit.RateLimitAlgorithm;
+import com.kumuluz.ee.grpc.server.ratelimit.RateLimitConfig;
+import com.kumuluz.ee.grpc.server.ratelimit.RateLimitKey;
+import com.kumuluz.ee.grpc.server.ratelimit.RateLimitServerInterceptor;
+import com.kumuluz.ee.grpc.utils.ConfigurationListUtil;
 import com.kumuluz.ee.grpc.utils.GrpcServiceDef;
 import io.grpc.BindableService;
 import io.grpc.ServerInterceptor;
@@ -50,6 +55,7 @@ public class GrpcServerInit {
     private final static Long GRPC_DEFAULT_TIMEOUT = 120L;
 
     private boolean withCallCredentials;
+    private RateLimitServerInterceptor rateLimitInterceptor;
 
     public void initialize() {
         logger.info("gRPC Server initialization");
@@ -81,11 +87,25 @@ public class GrpcServerInit {
             grpcServerConf = new GrpcServerConf(port, true, chainFile, keyFile, caFile,
                 setClientAuth(confUtil), timeout, permitKeepAliveTime, permitKeepAliveWithoutCalls, keepAliveTimeout,
                 keepAliveTime, maxConnectionIdle, maxConnectionAge, maxConnectionAgeGrace);
+            grpcServerConf.setSessionCacheSize(confUtil.getLong("kumuluzee.grpc.server.https.sessionCacheSize").orElse(0L));
+            grpcServerConf.setSessionTimeout(confUtil.getLong("kumuluzee.grpc.server.https.sessionTimeout").orElse(0L));
+            grpcServerConf.setSessionTickets(confUtil.getBoolean("kumuluzee.grpc.server.https.sessionTickets").orElse(false));
+            grpcServerConf.setSessionTicketKeys(
+                    ConfigurationListUtil.readList(confUtil, "kumuluzee.grpc.server.https.sessionTicketKeys"));
+            grpcServerConf.setCiphers(ConfigurationListUtil.readList(confUtil, "kumuluzee.grpc.server.https.ciphers"));
+            grpcServerConf.setWatchCertificates(confUtil.getBoolean("kumuluzee.grpc.server.https.watchCertificates").orElse(false));
         } else {
             grpcServerConf = new GrpcServerConf(port, timeout, permitKeepAliveTime, permitKeepAliveWithoutCalls,
                 keepAliveTimeout, keepAliveTime, maxConnectionIdle, maxConnectionAge, maxConnectionAgeGrace);
         }
 
+        List<String> compressionCodecs = ConfigurationListUtil.readList(confUtil,
+                "kumuluzee.grpc.server.compression.codecs");
+        if (!compressionCodecs.isEmpty()) {
+            compressionCodecs.replaceAll(String::toLowerCase);
+            grpcServerConf.setCompressionCodecs(compressionCodecs);
+        }
+
         Set<GrpcServiceDef> services = new HashSet<>();
 
         ServiceLoader.load(BindableService.class).forEach(service ->
@@ -148,6 +168,15 @@ public class GrpcServerInit {
             serviceInterceptors.add(new JWTServerInterceptor());
         }
 
+        /* limit calls of each caller; added first, so it runs after JWT token is verified */
+        if (service.getClass().getAnnotation(GrpcService.class).rateLimited()) {
+            RateLimitServerInterceptor rateLimiter = getRateLimitInterceptor();
+            if (rateLimiter != null) {
+                logger.info("Rate limiting service " + serviceName);
+                serviceInterceptors.add(0, rateLimiter);
+            }
+        }
+
         for (GrpcInterceptor interceptor : interceptors) {
             try {
                 serviceInterceptors.add((ServerInterceptor) Class.forName(interceptor.name()).newInstance());
@@ -166,6 +195,32 @@ public class GrpcServerInit {
                 .setServiceInterceptors(serviceInterceptors);
     }
 
+    private RateLimitServerInterceptor getRateLimitInterceptor() {
+        if (rateLimitInterceptor == null) {
+            ConfigurationUtil confUtil = ConfigurationUtil.getInstance();
+            List<RateLimitConfig> rateLimitConfigs = new ArrayList<>();
+            int size = confUtil.getListSize("kumuluzee.grpc.server.rateLimits").orElse(0);
+            for (int i = 0; i < size; i++) {
+                String prefix = "kumuluzee.grpc.server.rateLimits[" + i + "]";
+                RateLimitConfig.Builder builder = new RateLimitConfig.Builder();
+                confUtil.get(prefix + ".name").ifPresent(builder::name);
+                confUtil.get(prefix + ".algorithm").map(RateLimitAlgorithm::fromConfigName).ifPresent(builder::algorithm);
+                confUtil.get(prefix + ".key").map(RateLimitKey::fromConfigName).ifPresent(builder::key);
+                confUtil.getDouble(prefix + ".rate").ifPresent(builder::rate);
+                confUtil.getInteger(prefix + ".burst").ifPresent(builder::burst);
+                confUtil.getInteger(prefix + ".maxKeys").ifPresent(builder::maxKeys);
+                rateLimitConfigs.add(builder.build());
+            }
+
+            if (rateLimitConfigs.isEmpty()) {
+                logger.warning("Service is rate limited, but no limits are configured in kumuluzee.grpc.server.rateLimits");
+                return null;
+            }
+            rateLimitInterceptor = new RateLimitServerInterceptor(rateLimitConfigs);
+        }
+        return rateLimitInterceptor;
+    }
+
     private ClientAuth setClientAuth(ConfigurationUtil confUtil) {
         Optional<String> mutualTLS = confUtil.get("kumuluzee.grpc.server.https.mutualTLS");
 
@@ -50,6 +50,11 @@ public class JWTServerInterceptor implements ServerInterceptor {
 
     private static final Logger logger = Logger.getLogger(JWTServerInterceptor.class.getName());
 
+    /**
+     * Subject of verified JWT token, available in context of secured calls.
+     */
+    public static final Context.Key<String> SUBJECT_KEY = Context.key("kumuluzee-grpc-jwt-subject");
+
     private static final Metadata.Key<String> AUTHORIZATION_HEADER = Metadata.Key.of("Authorization", Metadata.ASCII_STRING_MARSHALLER);
 
     @Override
@@ -65,6 +70,7 @@ public class JWTServerInterceptor implements ServerInterceptor {
             return NOOP_LISTENER;
         }
 
+        String subject = null;
         if (authorization.startsWith("Bearer")) {
             JWTContext jwtContext = JWTContext.getInstance();
 
@@ -79,6 +85,7 @@ public class JWTServerInterceptor implements ServerInterceptor {
 
                 try {
                     DecodedJWT jwt = JWT.decode(token);
+                    subject = jwt.getSubject();
                     // Check if security annotations are required and
                     // method is annotated with security annotations and if user has required roles in token
                     if (!checkClientRolesForMethod(serverCall.getMethodDescriptor(), jwt)) {
@@ -99,6 +106,9 @@ public class JWTServerInterceptor implements ServerInterceptor {
         Context context;
         try {
             context = Context.current();
+            if (subject != null) {
+                context = context.withValue(SUBJECT_KEY, subject);
+            }
         } catch (Exception e) {
             e.printStackTrace();
             return NOOP_LISTENER;
@@ -0,0 +1,93 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.broadcast;
+
+import com.kumuluz.ee.grpc.annotations.GrpcBroadcast;
+import com.kumuluz.ee.grpc.utils.ServiceDefinitionUtil;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/***
+ * BroadcastBinder class
+ * Replaces response marshallers of methods annotated with {@link GrpcBroadcast} in service definition with marshallers
+ * accepting messages serialized by {@link BroadcastHub}.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class BroadcastBinder {
+
+    private static final Logger logger = Logger.getLogger(BroadcastBinder.class.getName());
+
+    private BroadcastBinder() {
+    }
+
+    /**
+     * @param definition       service definition
+     * @param serviceImplClass service implementation class with {@link GrpcBroadcast} annotations
+     * @return service definition with broadcast methods or same definition, if there are none
+     */
+    public static ServerServiceDefinition bind(ServerServiceDefinition definition, Class<?> serviceImplClass) {
+        Set<String> broadcastMethods = new HashSet<>();
+        for (Method method : serviceImplClass.getMethods()) {
+            if (method.isAnnotationPresent(GrpcBroadcast.class)) {
+                broadcastMethods.add(ServiceDefinitionUtil.methodKey(method.getName()));
+            }
+        }
+        if (broadcastMethods.isEmpty()) {
+            return definition;
+        }
+
+        List<ServerMethodDefinition<?, ?>> methods = new ArrayList<>();
+        for (ServerMethodDefinition<?, ?> methodDefinition : definition.getMethods()) {
+            MethodDescriptor<?, ?> method = methodDefinition.getMethodDescriptor();
+            if (!broadcastMethods.contains(ServiceDefinitionUtil.methodKey(method.getBareMethodName()))) {
+                methods.add(methodDefinition);
+            } else if (method.getType().serverSendsOneMessage()) {
+                logger.warning("Only streaming methods can broadcast, ignoring @GrpcBroadcast on " +
+                        method.getFullMethodName());
+                methods.add(methodDefinition);
+            } else {
+                methods.add(broadcastMethod(methodDefinition));
+                logger.info("Broadcasting responses of " + method.getFullMethodName());
+            }
+        }
+
+        return ServiceDefinitionUtil.withMethods(definition, methods);
+    }
+
+    private static <ReqT, RespT> ServerMethodDefinition<ReqT, RespT> broadcastMethod(
+            ServerMethodDefinition<ReqT, RespT> definition) {
+        MethodDescriptor<ReqT, RespT> method = definition.getMethodDescriptor();
+        MethodDescriptor<ReqT, RespT> broadcastMethod = method.toBuilder()
+                .setResponseMarshaller(new PreEncodedMarshaller<>(method.getResponseMarshaller()))
+                .build();
+        return ServerMethodDefinition.create(broadcastMethod, definition.getServerCallHandler());
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.broadcast;
+
+/***
+ * BroadcastConfig class
+ * Configuration of {@link BroadcastHub}.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class BroadcastConfig {
+
+    private int queueSize;
+    private SlowConsumerPolicy slowConsumerPolicy;
+
+    public static class Builder {
+        private int queueSize = 128;
+        private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.DROP;
+
+        public void queueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public void slowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+            this.slowConsumerPolicy = slowConsumerPolicy;
+        }
+
+        public BroadcastConfig build() {
+            if (queueSize < 1) {
+                throw new IllegalArgumentException("Broadcast queue size must be positive");
+            }
+
+            BroadcastConfig config = new BroadcastConfig();
+
+            config.queueSize = queueSize;
+            config.slowConsumerPolicy = slowConsumerPolicy;
+
+            return config;
+        }
+    }
+
+    private BroadcastConfig() {
+    }
+
+    /**
+     * @return maximum number of messages waiting for subscriber, which is not ready
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public SlowConsumerPolicy getSlowConsumerPolicy() {
+        return slowConsumerPolicy;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.broadcast;
+
+import com.kumuluz.ee.grpc.utils.ByteArrayMarshaller;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/***
+ * BroadcastHub class
+ * Sends same messages to many subscribers of streaming method. Each message is serialized once and its bytes are
+ * shared by all subscribers. Messages are written only to subscribers which are ready, others get them queued up to
+ * configured size, after which {@link SlowConsumerPolicy} applies. Method must be annotated with
+ * {@link com.kumuluz.ee.grpc.annotations.GrpcBroadcast}.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class BroadcastHub<T> {
+
+    private static final Logger logger = Logger.getLogger(BroadcastHub.class.getName());
+
+    private final MethodDescriptor.Marshaller<T> marshaller;
+    private final BroadcastConfig config;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+
+    /**
+     * @param method streaming method of subscribers
+     * @param config queue size and slow consumer policy
+     */
+    public BroadcastHub(MethodDescriptor<?, T> method, BroadcastConfig config) {
+        this.marshaller = method.getResponseMarshaller();
+        this.config = config;
+    }
+
+    /**
+     * Adds subscriber. Must be called from service method, before it returns.
+     *
+     * @param responseObserver response observer of streaming call
+     */
+    public void subscribe(StreamObserver<T> responseObserver) {
+        if (!(responseObserver instanceof ServerCallStreamObserver)) {
+            throw new IllegalArgumentException("Only response observers of server calls can subscribe");
+        }
+        Subscriber subscriber = new Subscriber((ServerCallStreamObserver<T>) responseObserver);
+        subscriber.observer.setOnReadyHandler(subscriber::drain);
+        subscriber.observer.setOnCancelHandler(() -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Serializes message once and sends it to all subscribers.
+     *
+     * @param message message to send
+     */
+    public void broadcast(T message) {
+        byte[] bytes;
+        try {
+            bytes = ByteArrayMarshaller.toBytes(marshaller.stream(message));
+        } catch (IOException e) {
+            throw Status.INTERNAL.withDescription("Could not serialize broadcast message").withCause(e)
+                    .asRuntimeException();
+        }
+
+        PreEncodedMessage encoded = new PreEncodedMessage(bytes);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(encoded);
+        }
+    }
+
+    /**
+     * Completes calls of all subscribers after their queued messages are sent.
+     */
+    public void complete() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.complete();
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * @return number of messages not sent to subscribers because their queue was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return number of queued messages replaced by newer message
+     */
+    public long getConflated() {
+        return conflated.sum();
+    }
+
+    /**
+     * @return number of subscribers disconnected because they did not keep up
+     */
+    public long getDisconnected() {
+        return disconnected.sum();
+    }
+
+    /**
+     * Subscriber call with its queue. Writes to call are serialized by subscriber lock.
+     */
+    private class Subscriber {
+
+        private final ServerCallStreamObserver<T> observer;
+        private final ArrayDeque<PreEncodedMessage> queue = new ArrayDeque<>();
+        private boolean completing;
+        private boolean closed;
+
+        Subscriber(ServerCallStreamObserver<T> observer) {
+            this.observer = observer;
+        }
+
+        synchronized void offer(PreEncodedMessage message) {
+            if (closed || completing) {
+                return;
+            }
+            if (queue.isEmpty() && observer.isReady()) {
+                send(message);
+                return;
+            }
+
+            if (queue.size() >= config.getQueueSize()) {
+                switch (config.getSlowConsumerPolicy()) {
+                    case DROP:
+                        dropped.increment();
+                        return;
+                    case CONFLATE:
+                        conflated.add(queue.size());
+                        queue.clear();
+                        break;
+                    case DISCONNECT:
+                        disconnected.increment();
+                        close(Status.RESOURCE_EXHAUSTED.withDescription("Subscriber does not keep up with broadcast"));
+                        return;
+                    default:
+                        throw new IllegalStateException("Unknown slow consumer policy");
+                }
+            }
+            queue.add(message);
+        }
+
+        synchronized void drain() {
+            while (!closed && !queue.isEmpty() && observer.isReady()) {
+                send(queue.poll());
+            }
+            if (completing && !closed && queue.isEmpty()) {
+                closed = true;
+                subscribers.remove(this);
+                observer.onCompleted();
+            }
+        }
+
+        synchronized void complete() {
+            completing = true;
+            drain();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void send(PreEncodedMessage message) {
+            try {
+                // pre-encoded message is passed through response marshaller of broadcast method
+                observer.onNext((T) (Object) message);
+            } catch (ClassCastException e) {
+                logger.log(Level.SEVERE, "Broadcast method must be annotated with @GrpcBroadcast", e);
+                close(Status.INTERNAL.withDescription("Broadcast method is not configured"));
+            } catch (RuntimeException e) {
+                // call was cancelled
+                logger.log(Level.FINE, "Could not send broadcast message", e);
+                closed = true;
+                subscribers.remove(this);
+            }
+        }
+
+        private void close(Status status) {
+            closed = true;
+            queue.clear();
+            subscribers.remove(this);
+            try {
+                observer.onError(status.asRuntimeException());
+            } catch (RuntimeException e) {
+                logger.log(Level.FINE, "Could not close broadcast subscriber", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.broadcast;
+
+import io.grpc.MethodDescriptor;
+
+import java.io.InputStream;
+
+/***
+ * PreEncodedMarshaller class
+ * Response marshaller of broadcast method, which sends {@link PreEncodedMessage} as is and serializes other messages
+ * with original marshaller.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class PreEncodedMarshaller<T> implements MethodDescriptor.Marshaller<T> {
+
+    private final MethodDescriptor.Marshaller<T> delegate;
+
+    PreEncodedMarshaller(MethodDescriptor.Marshaller<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public InputStream stream(T value) {
+        Object message = value;
+        if (message instanceof PreEncodedMessage) {
+            return ((PreEncodedMessage) message).stream();
+        }
+        return delegate.stream(value);
+    }
+
+    @Override
+    public T parse(InputStream stream) {
+        return delegate.parse(stream);
+    }
+}
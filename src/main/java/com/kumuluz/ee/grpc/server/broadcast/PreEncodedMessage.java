@@ -0,0 +1,54 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.broadcast;
+
+import com.kumuluz.ee.grpc.utils.SizedMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/***
+ * PreEncodedMessage class
+ * Message serialized once and shared by all subscribers of {@link BroadcastHub}.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+final class PreEncodedMessage implements SizedMessage {
+
+    private final byte[] bytes;
+
+    PreEncodedMessage(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    @Override
+    public int getSerializedSize() {
+        return bytes.length;
+    }
+
+    /**
+     * @return stream over shared bytes; framer reads its length without copying
+     */
+    InputStream stream() {
+        return new ByteArrayInputStream(bytes);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.broadcast;
+
+/***
+ * SlowConsumerPolicy enum
+ * What {@link BroadcastHub} does when queue of subscriber, which does not keep up, is full.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * New message is not sent to subscriber.
+     */
+    DROP("drop"),
+    /**
+     * Queued messages are replaced by new message, so subscriber receives latest state.
+     */
+    CONFLATE("conflate"),
+    /**
+     * Subscriber call is closed with RESOURCE_EXHAUSTED status.
+     */
+    DISCONNECT("disconnect");
+
+    private final String configName;
+
+    SlowConsumerPolicy(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public static SlowConsumerPolicy fromConfigName(String configName) {
+        for (SlowConsumerPolicy policy : values()) {
+            if (policy.configName.equalsIgnoreCase(configName)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown slow consumer policy: " + configName);
+    }
+}
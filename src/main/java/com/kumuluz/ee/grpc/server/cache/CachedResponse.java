@@ -0,0 +1,48 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.cache;
+
+/***
+ * CachedResponse class
+ * Response message of cacheable or coalesced method together with its serialized bytes. Message is sent through
+ * interceptors as is, bytes are streamed to transport by {@link CachedResponseMarshaller}.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+final class CachedResponse {
+
+    private final Object message;
+    private final byte[] bytes;
+
+    CachedResponse(Object message, byte[] bytes) {
+        this.message = message;
+        this.bytes = bytes;
+    }
+
+    Object getMessage() {
+        return message;
+    }
+
+    byte[] getBytes() {
+        return bytes;
+    }
+}
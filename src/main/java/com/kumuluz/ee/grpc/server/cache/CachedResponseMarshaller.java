@@ -0,0 +1,75 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.cache;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/***
+ * CachedResponseMarshaller class
+ * Response marshaller of cacheable or coalesced method. Response sent with {@link #send(ServerCall, CachedResponse)}
+ * is streamed from its stored bytes, when it reaches transport on same thread unchanged by interceptors. Other
+ * responses are serialized with original marshaller.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class CachedResponseMarshaller<T> implements MethodDescriptor.Marshaller<T> {
+
+    private static final ThreadLocal<CachedResponse> sending = new ThreadLocal<>();
+
+    private final MethodDescriptor.Marshaller<T> delegate;
+
+    CachedResponseMarshaller(MethodDescriptor.Marshaller<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Sends response message on call, so that its stored bytes are written instead of serializing it again.
+     */
+    @SuppressWarnings("unchecked")
+    static void send(ServerCall<?, ?> call, CachedResponse response) {
+        sending.set(response);
+        try {
+            ((ServerCall<?, Object>) call).sendMessage(response.getMessage());
+        } finally {
+            sending.remove();
+        }
+    }
+
+    @Override
+    public InputStream stream(T value) {
+        CachedResponse response = sending.get();
+        if (response != null && response.getMessage() == value) {
+            // framer reads length of byte array streams without copying
+            return new ByteArrayInputStream(response.getBytes());
+        }
+        return delegate.stream(value);
+    }
+
+    @Override
+    public T parse(InputStream stream) {
+        return delegate.parse(stream);
+    }
+}
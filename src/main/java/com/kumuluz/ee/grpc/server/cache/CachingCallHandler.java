@@ -0,0 +1,278 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.cache;
+
+import com.kumuluz.ee.grpc.server.auth.JWTServerInterceptor;
+import com.kumuluz.ee.grpc.utils.ByteArrayMarshaller;
+import io.grpc.Attributes;
+import io.grpc.Context;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.SecurityLevel;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/***
+ * CachingCallHandler class
+ * Handles calls of cacheable or coalesced unary method, as innermost handler after all interceptors. Cached responses
+ * are sent without calling method or serializing response again. Concurrent identical calls of coalesced method wait
+ * for one method call. Other calls are passed to method and their responses are stored.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class CachingCallHandler<ReqT, RespT> implements ServerCallHandler<ReqT, RespT> {
+
+    private static final Logger logger = Logger.getLogger(CachingCallHandler.class.getName());
+
+    private final MethodDescriptor<ReqT, RespT> method;
+    private final ServerCallHandler<ReqT, RespT> handler;
+    private final ResponseCache cache;
+    private final CoalescedCalls coalescedCalls;
+    private final boolean perCaller;
+
+    /**
+     * @param method         method with original marshallers, used for request keys and stored responses
+     * @param cache          response cache or null, if responses are not cached
+     * @param coalescedCalls in-flight calls or null, if calls are not coalesced
+     * @param perCaller      include JWT subject in request key; calls without subject are neither cached nor coalesced
+     */
+    CachingCallHandler(MethodDescriptor<ReqT, RespT> method, ServerCallHandler<ReqT, RespT> handler,
+                       ResponseCache cache, CoalescedCalls coalescedCalls, boolean perCaller) {
+        this.method = method;
+        this.handler = handler;
+        this.cache = cache;
+        this.coalescedCalls = coalescedCalls;
+        this.perCaller = perCaller;
+    }
+
+    @Override
+    public ServerCall.Listener<ReqT> startCall(ServerCall<ReqT, RespT> call, Metadata headers) {
+        // second request is requested to detect clients sending too many messages
+        call.request(2);
+
+        return new ServerCall.Listener<ReqT>() {
+
+            private ReqT request;
+            private ServerCall.Listener<ReqT> delegate;
+            private CoalescedCalls.Flight flight;
+
+            @Override
+            public void onMessage(ReqT message) {
+                if (request != null) {
+                    call.close(Status.INTERNAL.withDescription("Too many requests"), new Metadata());
+                    return;
+                }
+                request = message;
+            }
+
+            @Override
+            public void onHalfClose() {
+                if (request == null) {
+                    call.close(Status.INTERNAL.withDescription("Half-closed without a request"), new Metadata());
+                    return;
+                }
+
+                // anonymous callers of per-caller method must not share responses
+                ResponseCache.Key key = null;
+                String caller = perCaller ? JWTServerInterceptor.SUBJECT_KEY.get() : null;
+                if (!perCaller || caller != null) {
+                    try {
+                        key = new ResponseCache.Key(caller, ByteArrayMarshaller.toBytes(method.streamRequest(request)));
+                    } catch (IOException | RuntimeException e) {
+                        call.close(Status.INTERNAL.withDescription("Could not serialize request").withCause(e),
+                                new Metadata());
+                        return;
+                    }
+                }
+                if (key != null && cache != null) {
+                    CachedResponse response = cache.get(key);
+                    if (response != null) {
+                        call.sendHeaders(new Metadata());
+                        CachedResponseMarshaller.send(call, response);
+                        call.close(Status.OK, new Metadata());
+                        return;
+                    }
+                }
+
+                if (key != null && coalescedCalls != null) {
+                    flight = coalescedCalls.join(key, call);
+                    if (!flight.claimExecution()) {
+                        // response is sent when call in flight completes
+                        return;
+                    }
+                }
+
+                if (flight == null) {
+                    delegate = handler.startCall(new ResponseServerCall(call, key, null), headers);
+                    delegate.onMessage(request);
+                    delegate.onHalfClose();
+                    return;
+                }
+
+                Context previous = flight.getContext().attach();
+                try {
+                    delegate = handler.startCall(new ResponseServerCall(call, key, flight), headers);
+                    delegate.onMessage(request);
+                    delegate.onHalfClose();
+                } catch (RuntimeException e) {
+                    // waiting calls would otherwise wait until their deadlines
+                    logger.log(Level.WARNING, "Coalesced call of " + method.getFullMethodName() + " failed", e);
+                    flight.complete(null, Status.fromThrowable(e), null, new Metadata());
+                } finally {
+                    flight.getContext().detach(previous);
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                if (flight != null) {
+                    // method keeps running while other calls wait for it
+                    flight.leave(call);
+                } else if (delegate != null) {
+                    delegate.onCancel();
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                if (delegate != null) {
+                    delegate.onComplete();
+                }
+            }
+
+            @Override
+            public void onReady() {
+                if (delegate != null) {
+                    delegate.onReady();
+                }
+            }
+        };
+    }
+
+    /**
+     * Call passed to method, which serializes its response once, stores it when call completes successfully and
+     * sends it to caller or to all calls waiting for flight.
+     */
+    private class ResponseServerCall extends ServerCall<ReqT, RespT> {
+
+        private final ServerCall<ReqT, RespT> call;
+        private final ResponseCache.Key key;
+        private final CoalescedCalls.Flight flight;
+        private Metadata headers;
+        private CachedResponse response;
+
+        ResponseServerCall(ServerCall<ReqT, RespT> call, ResponseCache.Key key, CoalescedCalls.Flight flight) {
+            this.call = call;
+            this.key = key;
+            this.flight = flight;
+        }
+
+        @Override
+        public void request(int numMessages) {
+            call.request(numMessages);
+        }
+
+        @Override
+        public void sendHeaders(Metadata headers) {
+            // headers of coalesced calls are replayed to every waiting call when method completes
+            if (flight == null) {
+                call.sendHeaders(headers);
+            } else {
+                this.headers = headers;
+            }
+        }
+
+        @Override
+        public void sendMessage(RespT message) {
+            if (key == null) {
+                // response is neither stored nor shared
+                call.sendMessage(message);
+                return;
+            }
+            try {
+                response = new CachedResponse(message, ByteArrayMarshaller.toBytes(method.streamResponse(message)));
+            } catch (IOException e) {
+                throw Status.INTERNAL.withDescription("Could not serialize response").withCause(e).asRuntimeException();
+            }
+            if (flight == null) {
+                CachedResponseMarshaller.send(call, response);
+            }
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            if (cache != null && key != null && status.isOk() && response != null) {
+                cache.put(key, response);
+            }
+            if (flight == null) {
+                call.close(status, trailers);
+            } else {
+                flight.complete(headers, status, response, trailers);
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return call.isReady();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return flight == null ? call.isCancelled() : flight.isCancelled();
+        }
+
+        @Override
+        public void setMessageCompression(boolean enabled) {
+            call.setMessageCompression(enabled);
+        }
+
+        @Override
+        public void setCompression(String compressor) {
+            call.setCompression(compressor);
+        }
+
+        @Override
+        public SecurityLevel getSecurityLevel() {
+            return call.getSecurityLevel();
+        }
+
+        @Override
+        public Attributes getAttributes() {
+            return call.getAttributes();
+        }
+
+        @Override
+        public String getAuthority() {
+            return call.getAuthority();
+        }
+
+        @Override
+        public MethodDescriptor<ReqT, RespT> getMethodDescriptor() {
+            return call.getMethodDescriptor();
+        }
+    }
+}
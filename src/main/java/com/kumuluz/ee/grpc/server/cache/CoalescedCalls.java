@@ -0,0 +1,203 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.cache;
+
+import io.grpc.Context;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.Status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/***
+ * CoalescedCalls class
+ * In-flight calls of one coalesced method, keyed by serialized request and optionally caller. First call of a request
+ * runs the method, later identical calls wait for its response.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class CoalescedCalls {
+
+    private static final Logger logger = Logger.getLogger(CoalescedCalls.class.getName());
+
+    private final String methodName;
+    private final ConcurrentHashMap<ResponseCache.Key, Flight> flights = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    CoalescedCalls(String methodName) {
+        this.methodName = methodName;
+    }
+
+    /**
+     * Adds call to in-flight call with same key or starts new one.
+     *
+     * @return flight call was added to; caller runs method if {@link Flight#claimExecution()} returns true
+     */
+    Flight join(ResponseCache.Key key, ServerCall<?, ?> call) {
+        while (true) {
+            Flight flight = flights.computeIfAbsent(key, Flight::new);
+            if (flight.add(call)) {
+                return flight;
+            }
+            // flight completed in the meantime
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return full method name (package.Service/Method)
+     */
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * @return number of times method was called
+     */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /**
+     * @return number of calls which received response of call already in flight
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return number of requests currently in flight
+     */
+    public int getInFlight() {
+        return flights.size();
+    }
+
+    /**
+     * Calls waiting for one method execution. Method runs in own context, which is not cancelled when first caller
+     * goes away, but only when all callers have cancelled or their deadlines expired.
+     */
+    class Flight {
+
+        private final ResponseCache.Key key;
+        private final Context.CancellableContext context;
+        private final List<ServerCall<?, ?>> calls = new ArrayList<>();
+        private boolean claimed;
+        private boolean completed;
+
+        Flight(ResponseCache.Key key) {
+            this.key = key;
+            // keeps context values (e.g. JWT subject), but not cancellation and deadline of first caller
+            this.context = Context.current().fork().withCancellation();
+        }
+
+        Context.CancellableContext getContext() {
+            return context;
+        }
+
+        private synchronized boolean add(ServerCall<?, ?> call) {
+            if (completed) {
+                return false;
+            }
+            if (claimed) {
+                coalesced.increment();
+            }
+            calls.add(call);
+            return true;
+        }
+
+        synchronized boolean claimExecution() {
+            if (claimed) {
+                return false;
+            }
+            claimed = true;
+            executions.increment();
+            return true;
+        }
+
+        boolean isCancelled() {
+            return context.isCancelled();
+        }
+
+        /**
+         * Removes cancelled call. Method is cancelled when no call is waiting anymore.
+         */
+        void leave(ServerCall<?, ?> call) {
+            synchronized (this) {
+                calls.remove(call);
+                if (completed || !calls.isEmpty()) {
+                    return;
+                }
+                completed = true;
+            }
+            flights.remove(key, this);
+            context.cancel(null);
+        }
+
+        /**
+         * Sends result of method to all waiting calls. Every call receives copy of headers and trailers sent by
+         * method, and response message streamed from its stored bytes.
+         *
+         * @param headers headers sent by method or null, if it did not send any
+         */
+        void complete(Metadata headers, Status status, CachedResponse response, Metadata trailers) {
+            List<ServerCall<?, ?>> waiting;
+            synchronized (this) {
+                if (completed) {
+                    return;
+                }
+                completed = true;
+                waiting = new ArrayList<>(calls);
+                calls.clear();
+            }
+            flights.remove(key, this);
+
+            for (ServerCall<?, ?> call : waiting) {
+                try {
+                    if (headers != null || (status.isOk() && response != null)) {
+                        Metadata callHeaders = new Metadata();
+                        if (headers != null) {
+                            callHeaders.merge(headers);
+                        }
+                        call.sendHeaders(callHeaders);
+                    }
+                    if (status.isOk() && response != null) {
+                        CachedResponseMarshaller.send(call, response);
+                    }
+                    Metadata callTrailers = new Metadata();
+                    callTrailers.merge(trailers);
+                    call.close(status, callTrailers);
+                } catch (RuntimeException e) {
+                    // call was cancelled while response was sent
+                    logger.log(Level.FINE, "Could not send coalesced response of " + methodName, e);
+                }
+            }
+            context.cancel(null);
+        }
+    }
+}
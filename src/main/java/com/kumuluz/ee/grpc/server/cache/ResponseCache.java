@@ -0,0 +1,224 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.cache;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * ResponseCache class
+ * Responses of one cacheable method with their serialized bytes, keyed by serialized request and optionally caller.
+ * Entries are split into separately locked segments with least recently used eviction within each segment.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class ResponseCache {
+
+    /**
+     * Upper bound of segments; each segment is locked separately.
+     */
+    private static final int MAX_SEGMENTS = 16;
+
+    /**
+     * Smallest capacity of segment; caches below twice this size use single segment.
+     */
+    private static final int MIN_SEGMENT_ENTRIES = 16;
+
+    private final String methodName;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    ResponseCache(String methodName, long ttl, int maxEntries) {
+        this.methodName = methodName;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl);
+
+        // power of two segments, each holding at least MIN_SEGMENT_ENTRIES entries, so small caches stay one LRU
+        int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, maxEntries / MIN_SEGMENT_ENTRIES)));
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        for (int i = 0; i < segmentCount; i++) {
+            int capacity = maxEntries / segmentCount + (i < maxEntries % segmentCount ? 1 : 0);
+            segments[i] = new Segment(Math.max(1, capacity));
+        }
+    }
+
+    private Segment segmentFor(Key key) {
+        int h = key.hash;
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    /**
+     * @return cached response or null if there is no valid entry
+     */
+    CachedResponse get(Key key) {
+        long now = System.nanoTime();
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            TimedResponse entry = segment.get(key);
+            if (entry != null) {
+                if (now - entry.created < ttlNanos) {
+                    hits.increment();
+                    return entry.response;
+                }
+                segment.remove(key);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    void put(Key key, CachedResponse response) {
+        TimedResponse entry = new TimedResponse(response, System.nanoTime());
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, entry);
+        }
+    }
+
+    /**
+     * Removes all cached responses.
+     */
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return full method name (package.Service/Method)
+     */
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of entries evicted because cache was full
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return share of calls answered from cache, 0 if there were no calls
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    /**
+     * Serialized request and caller, compared by content.
+     */
+    static final class Key {
+
+        private final String caller;
+        private final byte[] request;
+        private final int hash;
+
+        Key(String caller, byte[] request) {
+            this.caller = caller;
+            this.request = request;
+            this.hash = 31 * Objects.hashCode(caller) + Arrays.hashCode(request);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash && Objects.equals(caller, key.caller) && Arrays.equals(request, key.request);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Access-ordered part of cache, evicting its least recently used entry when full.
+     */
+    private final class Segment extends LinkedHashMap<Key, TimedResponse> {
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, TimedResponse> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class TimedResponse {
+
+        private final CachedResponse response;
+        private final long created;
+
+        TimedResponse(CachedResponse response, long created) {
+            this.response = response;
+            this.created = created;
+        }
+    }
+}
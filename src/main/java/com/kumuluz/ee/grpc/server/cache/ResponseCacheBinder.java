@@ -0,0 +1,125 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.cache;
+
+import com.kumuluz.ee.grpc.annotations.GrpcCacheable;
+import com.kumuluz.ee.grpc.annotations.GrpcCoalesced;
+import com.kumuluz.ee.grpc.utils.ServiceDefinitionUtil;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/***
+ * ResponseCacheBinder class
+ * Wraps handlers of unary methods annotated with {@link GrpcCacheable} or {@link GrpcCoalesced} in service
+ * definition. Method keeps its message types, so interceptors see same messages as for other methods; only response
+ * marshaller is replaced, so that stored responses are not serialized again.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class ResponseCacheBinder {
+
+    private static final Logger logger = Logger.getLogger(ResponseCacheBinder.class.getName());
+
+    private ResponseCacheBinder() {
+    }
+
+    /**
+     * @param definition       service definition
+     * @param serviceImplClass service implementation class with {@link GrpcCacheable} and {@link GrpcCoalesced}
+     *                         annotations
+     * @param caches           created caches are added to this map by full method name
+     * @param coalescedCalls   in-flight calls of coalesced methods are added to this map by full method name
+     * @return service definition with caching and coalescing methods or same definition, if there are none
+     */
+    public static ServerServiceDefinition bind(ServerServiceDefinition definition, Class<?> serviceImplClass,
+                                               Map<String, ResponseCache> caches,
+                                               Map<String, CoalescedCalls> coalescedCalls) {
+        Map<String, Method> annotatedMethods = new HashMap<>();
+        for (Method method : serviceImplClass.getMethods()) {
+            if (method.isAnnotationPresent(GrpcCacheable.class) || method.isAnnotationPresent(GrpcCoalesced.class)) {
+                annotatedMethods.put(ServiceDefinitionUtil.methodKey(method.getName()), method);
+            }
+        }
+        if (annotatedMethods.isEmpty()) {
+            return definition;
+        }
+
+        List<ServerMethodDefinition<?, ?>> methods = new ArrayList<>();
+        for (ServerMethodDefinition<?, ?> methodDefinition : definition.getMethods()) {
+            MethodDescriptor<?, ?> method = methodDefinition.getMethodDescriptor();
+            String fullMethodName = method.getFullMethodName();
+            Method implMethod = annotatedMethods.get(ServiceDefinitionUtil.methodKey(method.getBareMethodName()));
+            if (implMethod == null) {
+                methods.add(methodDefinition);
+                continue;
+            }
+            if (method.getType() != MethodDescriptor.MethodType.UNARY) {
+                logger.warning("Only unary methods can be cached or coalesced, ignoring annotations on " +
+                        fullMethodName);
+                methods.add(methodDefinition);
+                continue;
+            }
+
+            GrpcCacheable cacheable = implMethod.getAnnotation(GrpcCacheable.class);
+            GrpcCoalesced coalesced = implMethod.getAnnotation(GrpcCoalesced.class);
+
+            ResponseCache cache = null;
+            if (cacheable != null) {
+                cache = new ResponseCache(fullMethodName, cacheable.ttl(), cacheable.maxEntries());
+                caches.put(fullMethodName, cache);
+                logger.info("Caching responses of " + fullMethodName);
+            }
+            CoalescedCalls calls = null;
+            if (coalesced != null) {
+                calls = new CoalescedCalls(fullMethodName);
+                coalescedCalls.put(fullMethodName, calls);
+                logger.info("Coalescing concurrent calls of " + fullMethodName);
+            }
+            boolean perCaller = (cacheable != null && cacheable.perCaller())
+                    || (coalesced != null && coalesced.perCaller());
+
+            methods.add(cachingMethod(methodDefinition, cache, calls, perCaller));
+        }
+
+        return ServiceDefinitionUtil.withMethods(definition, methods);
+    }
+
+    private static <ReqT, RespT> ServerMethodDefinition<ReqT, RespT> cachingMethod(
+            ServerMethodDefinition<ReqT, RespT> definition, ResponseCache cache, CoalescedCalls coalescedCalls,
+            boolean perCaller) {
+        MethodDescriptor<ReqT, RespT> method = definition.getMethodDescriptor();
+        MethodDescriptor<ReqT, RespT> cachingMethod = method.toBuilder()
+                .setResponseMarshaller(new CachedResponseMarshaller<>(method.getResponseMarshaller()))
+                .build();
+        return ServerMethodDefinition.create(cachingMethod,
+                new CachingCallHandler<>(method, definition.getServerCallHandler(), cache, coalescedCalls,
+                        perCaller));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.cancellation;
+
+import io.grpc.Context;
+
+/***
+ * CancellationScope class
+ * Interrupts thread which opened the scope when call context is cancelled, until scope is closed. Closing the scope
+ * clears interrupt caused by cancellation, so pooled threads are returned without interrupt flag.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class CancellationScope implements AutoCloseable {
+
+    private final Context context;
+    private final Thread thread;
+    private final Context.CancellationListener listener = this::cancelled;
+
+    private boolean open = true;
+    private boolean interrupted;
+
+    CancellationScope(Context context) {
+        this.context = context;
+        this.thread = Thread.currentThread();
+        // listener is called immediately if context is already cancelled
+        context.addListener(listener, Runnable::run);
+    }
+
+    private synchronized void cancelled(Context context) {
+        if (open) {
+            interrupted = true;
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * @return true if thread was interrupted because of cancellation
+     */
+    public synchronized boolean isInterrupted() {
+        return interrupted;
+    }
+
+    @Override
+    public void close() {
+        context.removeListener(listener);
+        synchronized (this) {
+            open = false;
+            if (interrupted) {
+                Thread.interrupted();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.cancellation;
+
+import io.grpc.Context;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+/***
+ * CancellationServerInterceptor class
+ * Interrupts handler thread when call is cancelled by client or its deadline expires, so blocking service
+ * implementations stop waiting. Enable it on service with
+ * {@code @GrpcService(interceptors = @GrpcInterceptor(name = "com.kumuluz.ee.grpc.server.cancellation.CancellationServerInterceptor"))}.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class CancellationServerInterceptor implements ServerInterceptor {
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        Context context = Context.current();
+        ServerCall.Listener<ReqT> listener = next.startCall(call, headers);
+
+        // unary and server streaming handlers are called from onHalfClose, streaming request observers from onMessage
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT>(listener) {
+            @Override
+            public void onMessage(ReqT message) {
+                try (CancellationScope ignored = new CancellationScope(context)) {
+                    super.onMessage(message);
+                }
+            }
+
+            @Override
+            public void onHalfClose() {
+                try (CancellationScope ignored = new CancellationScope(context)) {
+                    super.onHalfClose();
+                }
+            }
+        };
+    }
+}
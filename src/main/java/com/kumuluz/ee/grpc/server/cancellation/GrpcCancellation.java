@@ -0,0 +1,99 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.cancellation;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/***
+ * GrpcCancellation class
+ * Helpers for service implementations to stop work when call is cancelled by client or its deadline expires.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public final class GrpcCancellation {
+
+    private GrpcCancellation() {
+    }
+
+    /**
+     * @return true if current call was cancelled or its deadline expired
+     */
+    public static boolean isCancelled() {
+        return Context.current().isCancelled();
+    }
+
+    /**
+     * Throws status exception if current call was cancelled, so handler can stop at safe points.
+     *
+     * @throws StatusRuntimeException with CANCELLED or DEADLINE_EXCEEDED status
+     */
+    public static void checkCancelled() {
+        Context context = Context.current();
+        if (context.isCancelled()) {
+            Status status = Contexts.statusFromCancelled(context);
+            throw (status != null ? status : Status.CANCELLED).asRuntimeException();
+        }
+    }
+
+    /**
+     * Interrupts current thread when current call is cancelled, until returned scope is closed. Use with
+     * try-with-resources around blocking code which reacts to interrupts.
+     *
+     * @return scope which must be closed by current thread
+     */
+    public static CancellationScope interruptOnCancel() {
+        return new CancellationScope(Context.current());
+    }
+
+    /**
+     * Cancels future when current call is cancelled.
+     *
+     * @param future future of work done for current call
+     * @return same future
+     */
+    public static <T> CompletableFuture<T> cancellable(CompletableFuture<T> future) {
+        Context context = Context.current();
+        Context.CancellationListener listener = cancelled -> future.cancel(true);
+        context.addListener(listener, Runnable::run);
+        future.whenComplete((result, error) -> context.removeListener(listener));
+        return future;
+    }
+
+    /**
+     * Runs supplier on executor in context of current call. Supplier can check {@link #isCancelled()} and returned
+     * future is cancelled when call is cancelled.
+     *
+     * @param supplier work done for current call
+     * @param executor executor running supplier
+     * @return future completed with result of supplier
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        return cancellable(CompletableFuture.supplyAsync(supplier, Context.current().fixedContextExecutor(executor)));
+    }
+}
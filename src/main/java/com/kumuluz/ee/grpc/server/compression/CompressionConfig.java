@@ -0,0 +1,90 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.compression;
+
+import com.kumuluz.ee.grpc.utils.CompressionCodecs;
+
+/***
+ * CompressionConfig class
+ * Response compression policy of server methods (kumuluzee.grpc.server.compression.methods[i]). Name is either full
+ * method name (package.Service/Method), service name (package.Service) or empty for all methods.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class CompressionConfig {
+
+    private String name;
+    private String codec;
+    private int minSize;
+
+    public static class Builder {
+        private String name = "*";
+        private String codec = CompressionCodecs.GZIP;
+        private int minSize = 1024;
+
+        public void name(String name) {
+            this.name = name == null || name.isEmpty() ? "*" : name;
+        }
+
+        public void codec(String codec) {
+            this.codec = codec.trim().toLowerCase();
+        }
+
+        public void minSize(int minSize) {
+            this.minSize = minSize;
+        }
+
+        public CompressionConfig build() {
+            CompressionConfig config = new CompressionConfig();
+
+            config.name = name;
+            config.codec = codec;
+            config.minSize = minSize;
+
+            return config;
+        }
+    }
+
+    private CompressionConfig() {
+    }
+
+    /**
+     * @return name in configuration format (package.Service/Method, package.Service or * for all methods)
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return name of codec compressing responses or identity, if responses are not compressed
+     */
+    public String getCodec() {
+        return codec;
+    }
+
+    /**
+     * @return minimum serialized size in bytes of compressed responses
+     */
+    public int getMinSize() {
+        return minSize;
+    }
+}
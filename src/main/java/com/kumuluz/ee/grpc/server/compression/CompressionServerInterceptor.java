@@ -0,0 +1,98 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.compression;
+
+import com.kumuluz.ee.grpc.utils.CompressionCodecs;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * CompressionServerInterceptor class
+ * Compresses responses of methods with compression policy, when client accepts codec of policy. Responses smaller than
+ * minimum size of policy are sent uncompressed.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class CompressionServerInterceptor implements ServerInterceptor {
+
+    private static final CompressionConfig NO_POLICY = new CompressionConfig.Builder().build();
+
+    private final Map<String, CompressionConfig> configs = new HashMap<>();
+    private final Map<String, CompressionConfig> methodConfigs = new ConcurrentHashMap<>();
+
+    public CompressionServerInterceptor(List<CompressionConfig> compressionConfigs) {
+        for (CompressionConfig config : compressionConfigs) {
+            configs.putIfAbsent(config.getName(), config);
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        CompressionConfig config = findConfig(call.getMethodDescriptor().getFullMethodName());
+        if (config == NO_POLICY || config.getCodec().equals("identity")) {
+            return next.startCall(call, headers);
+        }
+
+        // ignored by call, if client does not accept codec
+        call.setCompression(config.getCodec());
+        return next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(call) {
+
+            // messages may be written from other thread than the one setting it, e.g. from executor of service
+            private volatile boolean messageCompression = true;
+
+            @Override
+            public void setMessageCompression(boolean enabled) {
+                messageCompression = enabled;
+            }
+
+            @Override
+            public void sendMessage(RespT message) {
+                super.setMessageCompression(messageCompression &&
+                        CompressionCodecs.shouldCompress(message, config.getMinSize()));
+                super.sendMessage(message);
+            }
+        }, headers);
+    }
+
+    private CompressionConfig findConfig(String fullMethodName) {
+        return methodConfigs.computeIfAbsent(fullMethodName, name -> {
+            CompressionConfig config = configs.get(name);
+            int separator = name.indexOf('/');
+            if (config == null && separator > 0) {
+                config = configs.get(name.substring(0, separator));
+            }
+            if (config == null) {
+                config = configs.get("*");
+            }
+            return config != null ? config : NO_POLICY;
+        });
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.deadline;
+
+/***
+ * DeadlineConfig class
+ * Deadline policy of server methods (kumuluzee.grpc.server.deadlines[i]). Name is either full method name
+ * (package.Service/Method), service name (package.Service) or empty for all methods.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class DeadlineConfig {
+
+    private String name;
+    private long defaultDeadline;
+    private long minimumDeadline;
+
+    public static class Builder {
+        private String name = "*";
+        private long defaultDeadline;
+        private long minimumDeadline;
+
+        public void name(String name) {
+            this.name = name == null || name.isEmpty() ? "*" : name;
+        }
+
+        public void defaultDeadline(long defaultDeadline) {
+            this.defaultDeadline = defaultDeadline;
+        }
+
+        public void minimumDeadline(long minimumDeadline) {
+            this.minimumDeadline = minimumDeadline;
+        }
+
+        public DeadlineConfig build() {
+            DeadlineConfig config = new DeadlineConfig();
+
+            config.name = name;
+            config.defaultDeadline = defaultDeadline;
+            config.minimumDeadline = minimumDeadline;
+
+            return config;
+        }
+    }
+
+    private DeadlineConfig() {
+    }
+
+    /**
+     * @return name in configuration format (package.Service/Method, package.Service or * for all methods)
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return deadline in milliseconds applied to calls without deadline, 0 if calls without deadline are not limited
+     */
+    public long getDefaultDeadline() {
+        return defaultDeadline;
+    }
+
+    /**
+     * @return minimum remaining time in milliseconds calls need to be handled, 0 if calls are never rejected early
+     */
+    public long getMinimumDeadline() {
+        return minimumDeadline;
+    }
+}
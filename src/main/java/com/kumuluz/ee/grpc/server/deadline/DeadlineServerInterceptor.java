@@ -0,0 +1,232 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.deadline;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Deadline;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * DeadlineServerInterceptor class
+ * Applies default deadline to calls without deadline and rejects calls with less remaining time than configured
+ * minimum before service handler is called. Default deadline is set on call context, so it is also propagated to
+ * outgoing calls made by handler.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class DeadlineServerInterceptor implements ServerInterceptor {
+
+    private static final DeadlineStats NO_POLICY = new DeadlineStats(null);
+
+    private final Map<String, DeadlineStats> configs = new HashMap<>();
+    private final Map<String, DeadlineStats> methodStats = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "grpc-server-deadlines");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DeadlineServerInterceptor(List<DeadlineConfig> deadlineConfigs) {
+        for (DeadlineConfig config : deadlineConfigs) {
+            configs.putIfAbsent(config.getName(), new DeadlineStats(config));
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        DeadlineStats stats = findStats(call.getMethodDescriptor().getFullMethodName());
+        if (stats.config == null) {
+            return next.startCall(call, headers);
+        }
+
+        Deadline deadline = Context.current().getDeadline();
+        if (deadline == null) {
+            if (stats.config.getDefaultDeadline() <= 0) {
+                return next.startCall(call, headers);
+            }
+            stats.defaulted.increment();
+            return startWithDeadline(call, headers, next, stats);
+        }
+
+        long minimum = stats.config.getMinimumDeadline();
+        if (minimum > 0) {
+            long remaining = deadline.timeRemaining(TimeUnit.MILLISECONDS);
+            if (remaining < minimum) {
+                stats.rejected.increment();
+                call.close(Status.DEADLINE_EXCEEDED.withDescription("Remaining deadline " + remaining +
+                        " ms is shorter than required " + minimum + " ms"), new Metadata());
+                return new ServerCall.Listener<ReqT>() {
+                };
+            }
+        }
+
+        return next.startCall(call, headers);
+    }
+
+    private <ReqT, RespT> ServerCall.Listener<ReqT> startWithDeadline(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                      ServerCallHandler<ReqT, RespT> next,
+                                                                      DeadlineStats stats) {
+        Context.CancellableContext context = Context.current()
+                .withDeadlineAfter(stats.config.getDefaultDeadline(), TimeUnit.MILLISECONDS, scheduler);
+        DeadlineCall<ReqT, RespT> deadlineCall = new DeadlineCall<>(call, context);
+
+        context.addListener(cancelled -> {
+            // context is also cancelled when call finishes or client cancels it
+            if (cancelled.cancellationCause() instanceof TimeoutException && deadlineCall.expire()) {
+                stats.expired.increment();
+            }
+        }, Runnable::run);
+
+        return Contexts.interceptCall(context, deadlineCall, headers, next);
+    }
+
+    /**
+     * @param fullMethodName full method name (package.Service/Method)
+     * @return number of calls of method, which received default deadline
+     */
+    public long getDefaultedCalls(String fullMethodName) {
+        return findStats(fullMethodName).defaulted.sum();
+    }
+
+    /**
+     * @param fullMethodName full method name (package.Service/Method)
+     * @return number of calls of method rejected before handler was called
+     */
+    public long getRejectedCalls(String fullMethodName) {
+        return findStats(fullMethodName).rejected.sum();
+    }
+
+    /**
+     * @param fullMethodName full method name (package.Service/Method)
+     * @return number of calls of method closed because default deadline expired
+     */
+    public long getExpiredCalls(String fullMethodName) {
+        return findStats(fullMethodName).expired.sum();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private DeadlineStats findStats(String fullMethodName) {
+        return methodStats.computeIfAbsent(fullMethodName, name -> {
+            DeadlineStats stats = configs.get(name);
+            int separator = name.indexOf('/');
+            if (stats == null && separator > 0) {
+                stats = configs.get(name.substring(0, separator));
+            }
+            if (stats == null) {
+                stats = configs.get("*");
+            }
+            return stats != null ? stats : NO_POLICY;
+        });
+    }
+
+    /**
+     * Counters shared by all methods matching one deadline config.
+     */
+    private static class DeadlineStats {
+
+        private final DeadlineConfig config;
+        private final LongAdder defaulted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder expired = new LongAdder();
+
+        DeadlineStats(DeadlineConfig config) {
+            this.config = config;
+        }
+    }
+
+    /**
+     * Call which can be closed by deadline timer. Writes of handler after expiration are dropped.
+     */
+    private static class DeadlineCall<ReqT, RespT> extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+
+        private final Context.CancellableContext context;
+        private boolean closed;
+        private boolean expired;
+
+        DeadlineCall(ServerCall<ReqT, RespT> delegate, Context.CancellableContext context) {
+            super(delegate);
+            this.context = context;
+        }
+
+        synchronized boolean expire() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            expired = true;
+            super.close(Status.DEADLINE_EXCEEDED.withDescription("Server default deadline exceeded"), new Metadata());
+            return true;
+        }
+
+        @Override
+        public synchronized void sendHeaders(Metadata headers) {
+            if (!closed) {
+                super.sendHeaders(headers);
+            }
+        }
+
+        @Override
+        public synchronized void sendMessage(RespT message) {
+            if (!closed) {
+                super.sendMessage(message);
+            }
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                super.close(status, trailers);
+            }
+            // stops deadline timer
+            context.cancel(null);
+        }
+
+        @Override
+        public synchronized boolean isCancelled() {
+            return expired || super.isCancelled();
+        }
+    }
+}
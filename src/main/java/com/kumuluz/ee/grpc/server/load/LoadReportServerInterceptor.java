@@ -0,0 +1,99 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.load;
+
+import com.kumuluz.ee.grpc.utils.LoadReport;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/***
+ * LoadReportServerInterceptor class
+ * Counts calls of service in {@link ServerLoadReporter} and attaches current load report to trailers of every call.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class LoadReportServerInterceptor implements ServerInterceptor {
+
+    private final ServerLoadReporter reporter;
+    private final boolean attachReports;
+
+    /**
+     * @param attachReports attach load report to trailers of every call; if false, calls are only counted for
+     *                      out-of-band reports
+     */
+    public LoadReportServerInterceptor(boolean attachReports) {
+        this(ServerLoadReporter.getInstance(), attachReports);
+    }
+
+    public LoadReportServerInterceptor(ServerLoadReporter reporter, boolean attachReports) {
+        this.reporter = reporter;
+        this.attachReports = attachReports;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        AtomicBoolean finished = new AtomicBoolean();
+        reporter.callStarted();
+
+        ServerCall<ReqT, RespT> reportingCall = new ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                if (finished.compareAndSet(false, true)) {
+                    reporter.callFinished(status);
+                }
+                if (attachReports) {
+                    trailers.put(LoadReport.TRAILER_KEY, reporter.getLoadReport().toText());
+                }
+                super.close(status, trailers);
+            }
+        };
+
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(reportingCall, headers);
+        } catch (RuntimeException e) {
+            if (finished.compareAndSet(false, true)) {
+                reporter.callFinished(Status.fromThrowable(e));
+            }
+            throw e;
+        }
+
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT>(listener) {
+            @Override
+            public void onCancel() {
+                // cancelled calls are not closed by the service
+                if (finished.compareAndSet(false, true)) {
+                    reporter.callFinished(Status.CANCELLED);
+                }
+                super.onCancel();
+            }
+        };
+    }
+}
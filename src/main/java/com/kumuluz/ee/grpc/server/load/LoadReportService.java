@@ -0,0 +1,92 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.load;
+
+import com.kumuluz.ee.grpc.utils.LoadReport;
+import io.grpc.BindableService;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * LoadReportService class
+ * Streams load reports of server to clients out of band, in interval requested by client.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class LoadReportService implements BindableService {
+
+    private static final long MIN_INTERVAL_MILLIS = 100L;
+
+    private final ServerLoadReporter reporter;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "grpc-load-reports");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LoadReportService() {
+        this(ServerLoadReporter.getInstance());
+    }
+
+    public LoadReportService(ServerLoadReporter reporter) {
+        this.reporter = reporter;
+    }
+
+    @Override
+    public ServerServiceDefinition bindService() {
+        return ServerServiceDefinition.builder(LoadReport.SERVICE_NAME)
+                .addMethod(LoadReport.STREAM_METHOD, ServerCalls.asyncServerStreamingCall(this::streamLoadReports))
+                .build();
+    }
+
+    private void streamLoadReports(String request, StreamObserver<String> responseObserver) {
+        long interval;
+        try {
+            interval = Math.max(MIN_INTERVAL_MILLIS, Long.parseLong(request.trim()));
+        } catch (NumberFormatException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Report interval must be a number of milliseconds").asRuntimeException());
+            return;
+        }
+
+        ServerCallStreamObserver<String> observer = (ServerCallStreamObserver<String>) responseObserver;
+        ScheduledFuture<?> reports = scheduler.scheduleWithFixedDelay(() -> {
+            // skip report if client does not keep up, next one will be more recent anyway
+            if (observer.isReady()) {
+                observer.onNext(reporter.getLoadReport().toText());
+            }
+        }, 0, interval, TimeUnit.MILLISECONDS);
+        observer.setOnCancelHandler(() -> reports.cancel(false));
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
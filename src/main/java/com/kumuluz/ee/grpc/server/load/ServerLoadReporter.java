@@ -0,0 +1,193 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.load;
+
+import com.kumuluz.ee.grpc.utils.LoadReport;
+import io.grpc.Status;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * ServerLoadReporter class
+ * Tracks load of server (CPU utilization, calls and failures per second, calls in flight) and metrics set by
+ * application, which are reported to clients in load reports.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class ServerLoadReporter {
+
+    private static final ServerLoadReporter instance = new ServerLoadReporter();
+
+    private static final long SAMPLE_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // status codes caused by server, not by client request
+    private static final Set<Status.Code> ERROR_CODES = EnumSet.of(Status.Code.UNKNOWN, Status.Code.INTERNAL,
+            Status.Code.UNAVAILABLE, Status.Code.DATA_LOSS, Status.Code.RESOURCE_EXHAUSTED);
+
+    private final OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, Double> namedMetrics = new ConcurrentHashMap<>();
+
+    private volatile double cpuUtilizationOverride = -1;
+    private volatile double applicationUtilization;
+
+    // read on every call with per-call reports, so only one thread refreshes it and others keep using previous one
+    private volatile Sample sample = new Sample(System.nanoTime(), 0, 0, 0, 0, 0);
+    private final AtomicBoolean sampling = new AtomicBoolean();
+
+    /**
+     * Creates reporter independent of the one used by {@link com.kumuluz.ee.grpc.server.GrpcServer}, e.g. for
+     * additional servers started by application.
+     */
+    public ServerLoadReporter() {
+    }
+
+    public static ServerLoadReporter getInstance() {
+        return instance;
+    }
+
+    /**
+     * Overrides measured CPU utilization, e.g. when server runs in container where process CPU load is not reliable.
+     *
+     * @param cpuUtilization utilization to report or negative value to report measured CPU utilization again
+     */
+    public void setCpuUtilization(double cpuUtilization) {
+        this.cpuUtilizationOverride = cpuUtilization;
+    }
+
+    /**
+     * Sets utilization computed by application. Clients balance by it instead of CPU utilization, when it is set.
+     *
+     * @param applicationUtilization utilization or 0 to stop reporting it
+     */
+    public void setApplicationUtilization(double applicationUtilization) {
+        this.applicationUtilization = applicationUtilization;
+    }
+
+    public void setNamedMetric(String name, double value) {
+        namedMetrics.put(name, value);
+    }
+
+    public void removeNamedMetric(String name) {
+        namedMetrics.remove(name);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    void callStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    void callFinished(Status status) {
+        inFlight.decrementAndGet();
+        calls.increment();
+        if (ERROR_CODES.contains(status.getCode())) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * @return current load of server, rates are averaged over last second
+     */
+    public LoadReport getLoadReport() {
+        Sample current = sample();
+
+        Map<String, Double> metrics = new LinkedHashMap<>(namedMetrics);
+        metrics.put("in_flight", (double) inFlight.get());
+
+        return new LoadReport(current.cpuUtilization, applicationUtilization, current.rps, current.eps, metrics);
+    }
+
+    private Sample sample() {
+        Sample current = sample;
+        long now = System.nanoTime();
+        if (now - current.timestamp >= SAMPLE_PERIOD_NANOS && sampling.compareAndSet(false, true)) {
+            try {
+                long currentCalls = calls.sum();
+                long currentErrors = errors.sum();
+                double seconds = (now - current.timestamp) / (double) TimeUnit.SECONDS.toNanos(1);
+
+                current = new Sample(now, currentCalls, currentErrors,
+                        (currentCalls - current.calls) / seconds, (currentErrors - current.errors) / seconds,
+                        measureCpuUtilization());
+                sample = current;
+            } finally {
+                sampling.set(false);
+            }
+        }
+
+        double cpuUtilization = cpuUtilizationOverride;
+        return cpuUtilization >= 0 ? current.withCpuUtilization(cpuUtilization) : current;
+    }
+
+    private double measureCpuUtilization() {
+        if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+            double processCpuLoad = ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuLoad();
+            if (processCpuLoad >= 0) {
+                return processCpuLoad;
+            }
+        }
+
+        double loadAverage = osBean.getSystemLoadAverage();
+        return loadAverage >= 0 ? loadAverage / osBean.getAvailableProcessors() : 0;
+    }
+
+    /**
+     * Rates measured in last sample period.
+     */
+    private static class Sample {
+
+        private final long timestamp;
+        private final long calls;
+        private final long errors;
+        private final double rps;
+        private final double eps;
+        private final double cpuUtilization;
+
+        Sample(long timestamp, long calls, long errors, double rps, double eps, double cpuUtilization) {
+            this.timestamp = timestamp;
+            this.calls = calls;
+            this.errors = errors;
+            this.rps = rps;
+            this.eps = eps;
+            this.cpuUtilization = cpuUtilization;
+        }
+
+        Sample withCpuUtilization(double cpuUtilization) {
+            return new Sample(timestamp, calls, errors, rps, eps, cpuUtilization);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.ratelimit;
+
+/***
+ * RateLimitAlgorithm enum
+ * Algorithm limiting calls of one caller (kumuluzee.grpc.server.rateLimits[i].algorithm).
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public enum RateLimitAlgorithm {
+
+    /**
+     * Bucket holding up to burst tokens, refilled at configured rate. Each call takes one token.
+     */
+    TOKEN_BUCKET("token-bucket"),
+    /**
+     * Generic cell rate algorithm. Same limits as token bucket, but state is a single timestamp.
+     */
+    GCRA("gcra");
+
+    private final String configName;
+
+    RateLimitAlgorithm(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public static RateLimitAlgorithm fromConfigName(String configName) {
+        for (RateLimitAlgorithm algorithm : values()) {
+            if (algorithm.configName.equalsIgnoreCase(configName)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown gRPC rate limit algorithm: " + configName);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.ratelimit;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * RateLimitBuckets class
+ * Rate limit state of callers in lock striped maps. Each stripe keeps its callers in access order, forgets callers
+ * idle long enough for their limit to be fully restored and evicts least recently seen callers when full.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class RateLimitBuckets {
+
+    private final Stripe[] stripes;
+    private final int maxKeysPerStripe;
+    private final boolean gcra;
+
+    // nanoseconds between calls at configured rate
+    private final double interval;
+    // nanoseconds of calls which can be made at once (GCRA tolerance)
+    private final long tolerance;
+    private final int burst;
+    // caller idle this long has full burst available again, so its state can be dropped
+    private final long idleNanos;
+
+    RateLimitBuckets(RateLimitConfig config) {
+        int stripeCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.maxKeysPerStripe = Math.max(1, config.getMaxKeys() / stripeCount);
+        this.gcra = config.getAlgorithm() == RateLimitAlgorithm.GCRA;
+        this.interval = TimeUnit.SECONDS.toNanos(1) / config.getRate();
+        this.burst = config.getBurst();
+        this.tolerance = (long) (interval * (burst - 1));
+        this.idleNanos = (long) (interval * burst);
+    }
+
+    /**
+     * Takes one call from limit of caller.
+     *
+     * @param key  caller identity
+     * @param now  current {@link System#nanoTime()}
+     * @return 0 if call is allowed, otherwise nanoseconds until next call of caller is allowed
+     */
+    long acquire(String key, long now) {
+        int hash = key.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+        synchronized (stripe) {
+            stripe.evictIdle(now);
+            Bucket bucket = stripe.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(now);
+                stripe.put(key, bucket);
+            }
+            bucket.lastSeen = now;
+            return gcra ? acquireGcra(bucket, now) : acquireToken(bucket, now);
+        }
+    }
+
+    private long acquireGcra(Bucket bucket, long now) {
+        // state is theoretical arrival time of next call
+        long arrival = Math.max(bucket.state, now);
+        long wait = arrival - tolerance - now;
+        if (wait > 0) {
+            return wait;
+        }
+        bucket.state = arrival + (long) interval;
+        return 0L;
+    }
+
+    private long acquireToken(Bucket bucket, long now) {
+        bucket.tokens = Math.min(burst, bucket.tokens + (now - bucket.state) / interval);
+        bucket.state = now;
+        if (bucket.tokens >= 1) {
+            bucket.tokens -= 1;
+            return 0L;
+        }
+        return (long) Math.ceil((1 - bucket.tokens) * interval);
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private class Bucket {
+        // GCRA: theoretical arrival time, token bucket: time of last refill
+        long state;
+        double tokens;
+        long lastSeen;
+
+        Bucket(long now) {
+            this.state = now;
+            this.tokens = burst;
+            this.lastSeen = now;
+        }
+    }
+
+    private class Stripe extends LinkedHashMap<String, Bucket> {
+
+        Stripe() {
+            super(16, 0.75f, true);
+        }
+
+        void evictIdle(long now) {
+            Iterator<Bucket> iterator = values().iterator();
+            while (iterator.hasNext()) {
+                if (now - iterator.next().lastSeen < idleNanos) {
+                    break;
+                }
+                iterator.remove();
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > maxKeysPerStripe;
+        }
+    }
+}
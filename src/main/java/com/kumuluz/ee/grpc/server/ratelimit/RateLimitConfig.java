@@ -0,0 +1,128 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.ratelimit;
+
+/***
+ * RateLimitConfig class
+ * Rate limit of server methods (kumuluzee.grpc.server.rateLimits[i]). Name is either full method name
+ * (package.Service/Method), service name (package.Service) or empty for all methods. Every caller gets own limit.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class RateLimitConfig {
+
+    private String name;
+    private RateLimitAlgorithm algorithm;
+    private RateLimitKey key;
+    private double rate;
+    private int burst;
+    private int maxKeys;
+
+    public static class Builder {
+        private String name = "*";
+        private RateLimitAlgorithm algorithm = RateLimitAlgorithm.TOKEN_BUCKET;
+        private RateLimitKey key = RateLimitKey.PEER;
+        private double rate;
+        private int burst;
+        private int maxKeys = 100000;
+
+        public void name(String name) {
+            this.name = name == null || name.isEmpty() ? "*" : name;
+        }
+
+        public void algorithm(RateLimitAlgorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        public void key(RateLimitKey key) {
+            this.key = key;
+        }
+
+        public void rate(double rate) {
+            this.rate = rate;
+        }
+
+        public void burst(int burst) {
+            this.burst = burst;
+        }
+
+        public void maxKeys(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        public RateLimitConfig build() {
+            if (rate <= 0) {
+                throw new IllegalArgumentException("Rate limit of " + name + " must be positive");
+            }
+
+            RateLimitConfig config = new RateLimitConfig();
+
+            config.name = name;
+            config.algorithm = algorithm;
+            config.key = key;
+            config.rate = rate;
+            config.burst = burst > 0 ? burst : (int) Math.max(1, Math.ceil(rate));
+            config.maxKeys = maxKeys;
+
+            return config;
+        }
+    }
+
+    private RateLimitConfig() {
+    }
+
+    /**
+     * @return name in configuration format (package.Service/Method, package.Service or * for all methods)
+     */
+    public String getName() {
+        return name;
+    }
+
+    public RateLimitAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public RateLimitKey getKey() {
+        return key;
+    }
+
+    /**
+     * @return allowed calls per second of one caller
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * @return number of calls one caller can make at once after being idle
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * @return maximum number of callers tracked at once; least recently seen callers are forgotten first
+     */
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+}
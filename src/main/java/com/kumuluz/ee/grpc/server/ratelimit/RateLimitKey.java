@@ -0,0 +1,63 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.ratelimit;
+
+/***
+ * RateLimitKey enum
+ * Identity of caller, which calls are limited by (kumuluzee.grpc.server.rateLimits[i].key).
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public enum RateLimitKey {
+
+    /**
+     * Subject of verified JWT token. Calls without token are limited by peer address.
+     */
+    SUBJECT("subject"),
+    /**
+     * Subject of client certificate with mutual TLS. Calls without certificate are limited by peer address.
+     */
+    CERTIFICATE("certificate"),
+    /**
+     * IP address of peer.
+     */
+    PEER("peer");
+
+    private final String configName;
+
+    RateLimitKey(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public static RateLimitKey fromConfigName(String configName) {
+        for (RateLimitKey key : values()) {
+            if (key.configName.equalsIgnoreCase(configName)) {
+                return key;
+            }
+        }
+        throw new IllegalArgumentException("Unknown gRPC rate limit key: " + configName);
+    }
+}
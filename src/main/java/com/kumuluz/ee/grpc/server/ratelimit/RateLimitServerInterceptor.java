@@ -0,0 +1,165 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.ratelimit;
+
+import com.kumuluz.ee.grpc.server.auth.JWTServerInterceptor;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * RateLimitServerInterceptor class
+ * Limits calls of each caller. Calls over limit are closed with RESOURCE_EXHAUSTED status and retry pushback in
+ * trailers, which is respected by gRPC clients with retry policy.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class RateLimitServerInterceptor implements ServerInterceptor {
+
+    /**
+     * Trailer telling client how many milliseconds to wait before retrying.
+     */
+    public static final Metadata.Key<String> RETRY_PUSHBACK_KEY =
+            Metadata.Key.of("grpc-retry-pushback-ms", Metadata.ASCII_STRING_MARSHALLER);
+
+    private static final Limit NO_LIMIT = new Limit(null);
+
+    private final Map<String, Limit> limits = new HashMap<>();
+    private final Map<String, Limit> methodLimits = new ConcurrentHashMap<>();
+
+    public RateLimitServerInterceptor(List<RateLimitConfig> rateLimitConfigs) {
+        for (RateLimitConfig config : rateLimitConfigs) {
+            limits.putIfAbsent(config.getName(), new Limit(config));
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        Limit limit = findLimit(call.getMethodDescriptor().getFullMethodName());
+        if (limit.config == null) {
+            return next.startCall(call, headers);
+        }
+
+        long wait = limit.buckets.acquire(callerKey(limit.config.getKey(), call), System.nanoTime());
+        if (wait > 0) {
+            limit.rejected.increment();
+            Metadata trailers = new Metadata();
+            trailers.put(RETRY_PUSHBACK_KEY, String.valueOf(Math.max(1L, TimeUnit.NANOSECONDS.toMillis(wait))));
+            call.close(Status.RESOURCE_EXHAUSTED.withDescription("Rate limit exceeded"), trailers);
+            return new ServerCall.Listener<ReqT>() {
+            };
+        }
+
+        return next.startCall(call, headers);
+    }
+
+    /**
+     * @param fullMethodName full method name (package.Service/Method)
+     * @return number of calls of method rejected because caller exceeded its limit
+     */
+    public long getRejectedCalls(String fullMethodName) {
+        return findLimit(fullMethodName).rejected.sum();
+    }
+
+    /**
+     * @param fullMethodName full method name (package.Service/Method)
+     * @return number of callers currently tracked by limit of method
+     */
+    public int getTrackedCallers(String fullMethodName) {
+        Limit limit = findLimit(fullMethodName);
+        return limit.buckets != null ? limit.buckets.size() : 0;
+    }
+
+    private String callerKey(RateLimitKey key, ServerCall<?, ?> call) {
+        if (key == RateLimitKey.SUBJECT) {
+            String subject = JWTServerInterceptor.SUBJECT_KEY.get();
+            if (subject != null) {
+                return "sub:" + subject;
+            }
+        } else if (key == RateLimitKey.CERTIFICATE) {
+            SSLSession session = call.getAttributes().get(Grpc.TRANSPORT_ATTR_SSL_SESSION);
+            if (session != null) {
+                try {
+                    Certificate[] certificates = session.getPeerCertificates();
+                    if (certificates.length > 0 && certificates[0] instanceof X509Certificate) {
+                        return "cert:" + ((X509Certificate) certificates[0]).getSubjectX500Principal().getName();
+                    }
+                } catch (SSLPeerUnverifiedException e) {
+                    // client did not present certificate
+                }
+            }
+        }
+
+        // port is left out, since clients open new connections from different ports
+        SocketAddress address = call.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
+        if (address instanceof InetSocketAddress && ((InetSocketAddress) address).getAddress() != null) {
+            return "peer:" + ((InetSocketAddress) address).getAddress().getHostAddress();
+        }
+        return "peer:" + address;
+    }
+
+    private Limit findLimit(String fullMethodName) {
+        return methodLimits.computeIfAbsent(fullMethodName, name -> {
+            Limit limit = limits.get(name);
+            int separator = name.indexOf('/');
+            if (limit == null && separator > 0) {
+                limit = limits.get(name.substring(0, separator));
+            }
+            if (limit == null) {
+                limit = limits.get("*");
+            }
+            return limit != null ? limit : NO_LIMIT;
+        });
+    }
+
+    /**
+     * Callers and counters shared by all methods matching one rate limit config.
+     */
+    private static class Limit {
+
+        private final RateLimitConfig config;
+        private final RateLimitBuckets buckets;
+        private final LongAdder rejected = new LongAdder();
+
+        Limit(RateLimitConfig config) {
+            this.config = config;
+            this.buckets = config != null ? new RateLimitBuckets(config) : null;
+        }
+    }
+}
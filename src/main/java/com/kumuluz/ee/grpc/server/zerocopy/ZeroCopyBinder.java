@@ -0,0 +1,192 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.zerocopy;
+
+import com.google.protobuf.MessageLite;
+import com.kumuluz.ee.grpc.annotations.GrpcZeroCopy;
+import com.kumuluz.ee.grpc.utils.ServiceDefinitionUtil;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/***
+ * ZeroCopyBinder class
+ * Replaces request marshallers of methods annotated with {@link GrpcZeroCopy} in service definition with marshallers
+ * parsing messages from received transport buffers. Buffers are released when call completes or is cancelled, so
+ * only methods receiving one request (unary and server streaming) are supported; on client streaming methods buffers
+ * of every received message would stay retained for whole call.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class ZeroCopyBinder {
+
+    private static final Logger logger = Logger.getLogger(ZeroCopyBinder.class.getName());
+
+    private ZeroCopyBinder() {
+    }
+
+    /**
+     * @param definition       service definition
+     * @param serviceImplClass service implementation class with {@link GrpcZeroCopy} annotations
+     * @return service definition with zero-copy methods or same definition, if there are none
+     */
+    public static ServerServiceDefinition bind(ServerServiceDefinition definition, Class<?> serviceImplClass) {
+        Map<String, GrpcZeroCopy> zeroCopyMethods = new HashMap<>();
+        for (Method method : serviceImplClass.getMethods()) {
+            GrpcZeroCopy zeroCopy = method.getAnnotation(GrpcZeroCopy.class);
+            if (zeroCopy != null) {
+                zeroCopyMethods.put(ServiceDefinitionUtil.methodKey(method.getName()), zeroCopy);
+            }
+        }
+        if (zeroCopyMethods.isEmpty()) {
+            return definition;
+        }
+
+        List<ServerMethodDefinition<?, ?>> methods = new ArrayList<>();
+        for (ServerMethodDefinition<?, ?> methodDefinition : definition.getMethods()) {
+            MethodDescriptor<?, ?> method = methodDefinition.getMethodDescriptor();
+            GrpcZeroCopy zeroCopy = zeroCopyMethods.get(ServiceDefinitionUtil.methodKey(method.getBareMethodName()));
+            if (zeroCopy == null) {
+                methods.add(methodDefinition);
+            } else if (!method.getType().clientSendsOneMessage()) {
+                logger.warning("Only unary and server streaming methods can parse requests without copying, " +
+                        "ignoring @GrpcZeroCopy on " + method.getFullMethodName());
+                methods.add(methodDefinition);
+            } else if (!(method.getRequestMarshaller() instanceof MethodDescriptor.PrototypeMarshaller) ||
+                    !(((MethodDescriptor.PrototypeMarshaller<?>) method.getRequestMarshaller()).getMessagePrototype()
+                            instanceof MessageLite)) {
+                logger.warning("Only protobuf requests can be parsed without copying, ignoring @GrpcZeroCopy on " +
+                        method.getFullMethodName());
+                methods.add(methodDefinition);
+            } else {
+                methods.add(zeroCopyMethod(methodDefinition, zeroCopy.minSize()));
+                logger.info("Parsing requests of " + method.getFullMethodName() + " without copying");
+            }
+        }
+
+        return ServiceDefinitionUtil.withMethods(definition, methods);
+    }
+
+    private static <ReqT, RespT> ServerMethodDefinition<ReqT, RespT> zeroCopyMethod(
+            ServerMethodDefinition<ReqT, RespT> definition, int minSize) {
+        MethodDescriptor<ReqT, RespT> method = definition.getMethodDescriptor();
+        ZeroCopyMarshaller<ReqT> marshaller = new ZeroCopyMarshaller<>(
+                (MethodDescriptor.PrototypeMarshaller<ReqT>) method.getRequestMarshaller(), minSize);
+        MethodDescriptor<ReqT, RespT> zeroCopyMethod = method.toBuilder()
+                .setRequestMarshaller(marshaller)
+                .build();
+        return ServerMethodDefinition.create(zeroCopyMethod,
+                new ZeroCopyCallHandler<>(definition.getServerCallHandler(), marshaller));
+    }
+
+    private static class ZeroCopyCallHandler<ReqT, RespT> implements ServerCallHandler<ReqT, RespT> {
+
+        private final ServerCallHandler<ReqT, RespT> delegate;
+        private final ZeroCopyMarshaller<ReqT> marshaller;
+
+        ZeroCopyCallHandler(ServerCallHandler<ReqT, RespT> delegate, ZeroCopyMarshaller<ReqT> marshaller) {
+            this.delegate = delegate;
+            this.marshaller = marshaller;
+        }
+
+        @Override
+        public ServerCall.Listener<ReqT> startCall(ServerCall<ReqT, RespT> call, Metadata headers) {
+            return new RetainingListener<>(delegate.startCall(call, headers), marshaller);
+        }
+    }
+
+    /**
+     * Keeps transport buffers of parsed requests until call completes. Listener is called serially, so no
+     * synchronization is needed.
+     */
+    private static class RetainingListener<ReqT>
+            extends ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT> {
+
+        private final ZeroCopyMarshaller<ReqT> marshaller;
+        private List<InputStream> retainedBuffers;
+
+        RetainingListener(ServerCall.Listener<ReqT> delegate, ZeroCopyMarshaller<ReqT> marshaller) {
+            super(delegate);
+            this.marshaller = marshaller;
+        }
+
+        @Override
+        public void onMessage(ReqT message) {
+            InputStream retained = marshaller.takeRetainedBuffers(message);
+            if (retained != null) {
+                if (retainedBuffers == null) {
+                    retainedBuffers = new ArrayList<>();
+                }
+                retainedBuffers.add(retained);
+            }
+            super.onMessage(message);
+        }
+
+        @Override
+        public void onCancel() {
+            try {
+                super.onCancel();
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                super.onComplete();
+            } finally {
+                release();
+            }
+        }
+
+        private void release() {
+            // buffers of garbage collected messages are released also when method gets no more requests
+            marshaller.releaseCollected();
+            if (retainedBuffers == null) {
+                return;
+            }
+            for (InputStream retained : retainedBuffers) {
+                try {
+                    retained.close();
+                } catch (IOException e) {
+                    logger.log(Level.FINE, "Could not release request buffers", e);
+                }
+            }
+            retainedBuffers = null;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.zerocopy;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.nio.ByteBuffer;
+
+/***
+ * ZeroCopyByteStrings class
+ * Creates byte strings for bytes fields of responses without copying data. Wrapped data is written directly to
+ * transport buffers when response is sent, so it must not be modified until call completes.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class ZeroCopyByteStrings {
+
+    private ZeroCopyByteStrings() {
+    }
+
+    /**
+     * @param bytes data, which is not modified until call completes
+     * @return byte string sharing data
+     */
+    public static ByteString wrap(byte[] bytes) {
+        return UnsafeByteOperations.unsafeWrap(bytes);
+    }
+
+    /**
+     * @param bytes  data, which is not modified until call completes
+     * @param offset offset of wrapped data
+     * @param length length of wrapped data
+     * @return byte string sharing data
+     */
+    public static ByteString wrap(byte[] bytes, int offset, int length) {
+        return UnsafeByteOperations.unsafeWrap(bytes, offset, length);
+    }
+
+    /**
+     * @param buffer data between position and limit, which is not modified until call completes; position of buffer
+     *               is not changed
+     * @return byte string sharing data
+     */
+    public static ByteString wrap(ByteBuffer buffer) {
+        return UnsafeByteOperations.unsafeWrap(buffer);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.server.zerocopy;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.Detachable;
+import io.grpc.HasByteBuffer;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/***
+ * ZeroCopyMarshaller class
+ * Request marshaller, which parses large protobuf messages from received transport buffers without copying them.
+ * Bytes fields alias transport buffers, which stay retained until {@link #takeRetainedBuffers(Object)} result for
+ * parsed message is closed. Buffers of message which is never taken (e.g. interceptor dropped it) are released after
+ * message is garbage collected, on next parse or when any call of method ends.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class ZeroCopyMarshaller<T> implements MethodDescriptor.PrototypeMarshaller<T> {
+
+    private static final Logger logger = Logger.getLogger(ZeroCopyMarshaller.class.getName());
+
+    // buffers are tied to parsed message, which may be passed to call listener later or on other thread
+    private final Map<RetainedMessage, InputStream> retained = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    private final MethodDescriptor.PrototypeMarshaller<T> delegate;
+    private final Parser<? extends MessageLite> parser;
+    private final int minSize;
+
+    ZeroCopyMarshaller(MethodDescriptor.PrototypeMarshaller<T> delegate, int minSize) {
+        this.delegate = delegate;
+        this.parser = ((MessageLite) delegate.getMessagePrototype()).getParserForType();
+        this.minSize = minSize;
+    }
+
+    /**
+     * @return transport buffers retained by message or null, if message was parsed by copying
+     */
+    InputStream takeRetainedBuffers(T message) {
+        releaseCollected();
+        return retained.remove(new RetainedMessage(message, null));
+    }
+
+    /**
+     * Releases buffers of messages, which were garbage collected without reaching call listener.
+     */
+    void releaseCollected() {
+        Reference<?> reference;
+        while ((reference = collected.poll()) != null) {
+            InputStream buffers = retained.remove(reference);
+            if (buffers != null) {
+                try {
+                    buffers.close();
+                } catch (IOException e) {
+                    logger.log(Level.FINE, "Could not release request buffers", e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public InputStream stream(T value) {
+        return delegate.stream(value);
+    }
+
+    @Override
+    public T parse(InputStream stream) {
+        releaseCollected();
+        try {
+            if (stream instanceof KnownLength && stream instanceof Detachable && stream instanceof HasByteBuffer
+                    && ((HasByteBuffer) stream).byteBufferSupported() && stream.available() >= minSize) {
+                return parseRetained(((Detachable) stream).detach());
+            }
+        } catch (IOException e) {
+            throw Status.INTERNAL.withDescription("Could not read message").withCause(e).asRuntimeException();
+        }
+        return delegate.parse(stream);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T parseRetained(InputStream detached) throws IOException {
+        boolean kept = false;
+        try {
+            int remaining = detached.available();
+            ByteString bytes = ByteString.EMPTY;
+            detached.mark(remaining);
+            while (remaining > 0) {
+                ByteBuffer buffer = ((HasByteBuffer) detached).getByteBuffer();
+                if (buffer == null) {
+                    // part of message is not backed by byte buffer
+                    detached.reset();
+                    return delegate.parse(detached);
+                }
+                int length = Math.min(buffer.remaining(), remaining);
+                buffer.limit(buffer.position() + length);
+                bytes = bytes.concat(UnsafeByteOperations.unsafeWrap(buffer));
+                if (detached.skip(length) != length) {
+                    throw new IOException("Could not skip message bytes");
+                }
+                remaining -= length;
+            }
+
+            // input of wrapped byte strings is immutable, so bytes fields can alias it
+            CodedInputStream input = bytes.newCodedInput();
+            input.enableAliasing(true);
+            input.setSizeLimit(Integer.MAX_VALUE);
+            T message = (T) parser.parseFrom(input);
+
+            retained.put(new RetainedMessage(message, collected), detached);
+            kept = true;
+            return message;
+        } catch (InvalidProtocolBufferException e) {
+            throw Status.INTERNAL.withDescription("Invalid protobuf byte sequence").withCause(e).asRuntimeException();
+        } finally {
+            if (!kept) {
+                detached.close();
+            }
+        }
+    }
+
+    @Override
+    public T getMessagePrototype() {
+        return delegate.getMessagePrototype();
+    }
+
+    @Override
+    public Class<T> getMessageClass() {
+        return delegate.getMessageClass();
+    }
+
+    /**
+     * Weak reference to parsed message, compared by identity of message. Cleared reference is only equal to itself.
+     */
+    private static final class RetainedMessage extends WeakReference<Object> {
+
+        private final int hash;
+
+        RetainedMessage(Object message, ReferenceQueue<Object> queue) {
+            super(message, queue);
+            this.hash = System.identityHashCode(message);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RetainedMessage)) {
+                return false;
+            }
+            Object message = get();
+            return message != null && message == ((RetainedMessage) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
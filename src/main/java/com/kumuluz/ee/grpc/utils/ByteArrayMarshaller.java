@@ -0,0 +1,97 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.utils;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/***
+ * ByteArrayMarshaller class
+ * Pass-through marshaller of already serialized messages.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class ByteArrayMarshaller implements MethodDescriptor.Marshaller<byte[]> {
+
+    public static final ByteArrayMarshaller INSTANCE = new ByteArrayMarshaller();
+
+    @Override
+    public InputStream stream(byte[] value) {
+        // framer reads length of byte array streams without copying
+        return new ByteArrayInputStream(value);
+    }
+
+    @Override
+    public byte[] parse(InputStream stream) {
+        try {
+            return toBytes(stream);
+        } catch (IOException e) {
+            throw Status.INTERNAL.withDescription("Could not read message").withCause(e).asRuntimeException();
+        }
+    }
+
+    /**
+     * Reads whole stream. Protobuf streams know their serialized size, so array is allocated once.
+     *
+     * @param stream stream of serialized message
+     * @return serialized message
+     * @throws IOException if stream cannot be read
+     */
+    public static byte[] toBytes(InputStream stream) throws IOException {
+        int available = stream.available();
+        byte[] bytes = new byte[available];
+        int read = 0;
+        while (read < available) {
+            int count = stream.read(bytes, read, available - read);
+            if (count < 0) {
+                break;
+            }
+            read += count;
+        }
+        if (read < available) {
+            byte[] shorter = new byte[read];
+            System.arraycopy(bytes, 0, shorter, 0, read);
+            return shorter;
+        }
+
+        int next = stream.read();
+        if (next < 0) {
+            return bytes;
+        }
+
+        // stream did not report its size
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, available * 2));
+        out.write(bytes, 0, read);
+        out.write(next);
+        byte[] buffer = new byte[4096];
+        int count;
+        while ((count = stream.read(buffer)) >= 0) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+}
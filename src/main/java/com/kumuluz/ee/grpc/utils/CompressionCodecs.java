@@ -0,0 +1,105 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.utils;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.Codec;
+import io.grpc.CompressorRegistry;
+import io.grpc.DecompressorRegistry;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/***
+ * CompressionCodecs class
+ * Creates compressor and decompressor registries of server and clients from names of enabled codecs (gzip, snappy).
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public final class CompressionCodecs {
+
+    public static final String GZIP = "gzip";
+
+    public static final List<String> DEFAULT_CODECS = Collections.unmodifiableList(Arrays.asList(GZIP,
+            SnappyCodec.NAME));
+
+    private CompressionCodecs() {
+    }
+
+    /**
+     * @param codecs names of enabled codecs
+     * @return registry of compressors, which can be selected for calls
+     */
+    public static CompressorRegistry compressorRegistry(List<String> codecs) {
+        CompressorRegistry registry = CompressorRegistry.newEmptyInstance();
+        for (String codec : codecs) {
+            registry.register(codec(codec));
+        }
+        return registry;
+    }
+
+    /**
+     * @param codecs names of enabled codecs
+     * @return registry of decompressors, which are advertised to peer
+     */
+    public static DecompressorRegistry decompressorRegistry(List<String> codecs) {
+        DecompressorRegistry registry = DecompressorRegistry.emptyInstance().with(Codec.Identity.NONE, false);
+        for (String codec : codecs) {
+            registry = registry.with(codec(codec), true);
+        }
+        return registry;
+    }
+
+    /**
+     * Decides whether message is large enough to be compressed. Size is known for protobuf messages, byte arrays and
+     * {@link SizedMessage}s, other messages are always compressed.
+     *
+     * @param message message to send
+     * @param minSize minimum serialized size in bytes of compressed messages
+     * @return true, if message should be compressed
+     */
+    public static boolean shouldCompress(Object message, int minSize) {
+        int size;
+        if (message instanceof MessageLite) {
+            size = ((MessageLite) message).getSerializedSize();
+        } else if (message instanceof byte[]) {
+            size = ((byte[]) message).length;
+        } else if (message instanceof SizedMessage) {
+            size = ((SizedMessage) message).getSerializedSize();
+        } else {
+            return true;
+        }
+        return size >= minSize;
+    }
+
+    private static Codec codec(String name) {
+        switch (name.trim().toLowerCase()) {
+            case GZIP:
+                return new Codec.Gzip();
+            case SnappyCodec.NAME:
+                return new SnappyCodec();
+            default:
+                throw new IllegalArgumentException("Unknown compression codec " + name);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.utils;
+
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/***
+ * ConfigurationListUtil class
+ * Reads list of strings from configuration, given either as list or as comma separated value.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class ConfigurationListUtil {
+
+    private ConfigurationListUtil() {
+    }
+
+    /**
+     * @param confUtil configuration
+     * @param key      configuration key of list
+     * @return trimmed non-empty values or empty list, if key is not set
+     */
+    public static List<String> readList(ConfigurationUtil confUtil, String key) {
+        List<String> values = new ArrayList<>();
+        Optional<Integer> size = confUtil.getListSize(key);
+
+        if (size.isPresent()) {
+            for (int i = 0; i < size.get(); i++) {
+                confUtil.get(key + "[" + i + "]").ifPresent(value -> add(values, value));
+            }
+        } else {
+            confUtil.get(key).ifPresent(value -> {
+                for (String item : value.split(",")) {
+                    add(values, item);
+                }
+            });
+        }
+
+        return values;
+    }
+
+    private static void add(List<String> values, String value) {
+        if (!value.trim().isEmpty()) {
+            values.add(value.trim());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.utils;
+
+import com.google.protobuf.ByteString;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/***
+ * FileChunkSink class
+ * Request observer of client streaming call, which writes data of received chunks to temporary file next to target
+ * file. Data is synced to storage after configured number of bytes and when upload completes, then temporary file is
+ * atomically moved over target. Only temporary file is deleted, when upload fails.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class FileChunkSink<ReqT, RespT> implements StreamObserver<ReqT> {
+
+    private static final Logger logger = Logger.getLogger(FileChunkSink.class.getName());
+
+    private final Path file;
+    private final Function<? super ReqT, ByteString> chunkData;
+    private final long syncBytes;
+    private final Function<Long, ? extends RespT> response;
+    private final StreamObserver<RespT> responseObserver;
+
+    private Path tempFile;
+    private FileChannel channel;
+    private long written;
+    private long unsynced;
+
+    FileChunkSink(Path file, Function<? super ReqT, ByteString> chunkData, long syncBytes,
+                  Function<Long, ? extends RespT> response, StreamObserver<RespT> responseObserver) {
+        this.file = file;
+        this.chunkData = chunkData;
+        this.syncBytes = syncBytes;
+        this.response = response;
+        this.responseObserver = responseObserver;
+    }
+
+    @Override
+    public void onNext(ReqT value) {
+        if (written < 0) {
+            return;
+        }
+        try {
+            if (channel == null) {
+                open();
+            }
+            // buffers of chunk are written as they are, without copying them to array
+            for (ByteBuffer buffer : chunkData.apply(value).asReadOnlyByteBufferList()) {
+                while (buffer.hasRemaining()) {
+                    int count = channel.write(buffer);
+                    written += count;
+                    unsynced += count;
+                }
+            }
+            if (syncBytes > 0 && unsynced >= syncBytes) {
+                channel.force(false);
+                unsynced = 0;
+            }
+        } catch (IOException e) {
+            fail();
+            responseObserver.onError(GrpcFiles.fileStatus(e).withDescription("Could not write file").withCause(e)
+                    .asRuntimeException());
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        if (written >= 0) {
+            fail();
+        }
+    }
+
+    @Override
+    public void onCompleted() {
+        if (written < 0) {
+            return;
+        }
+        try {
+            if (channel == null) {
+                // empty upload
+                open();
+            }
+            if (syncBytes > 0) {
+                channel.force(false);
+            }
+            channel.close();
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            fail();
+            responseObserver.onError(GrpcFiles.fileStatus(e).withDescription("Could not write file").withCause(e)
+                    .asRuntimeException());
+            return;
+        }
+        responseObserver.onNext(response.apply(written));
+        responseObserver.onCompleted();
+    }
+
+    private void open() throws IOException {
+        // temporary file must be on same file system as target for atomic move
+        Path directory = file.toAbsolutePath().getParent();
+        // unlike Files.createTempFile, keeps default permissions of new files
+        tempFile = directory.resolve(file.getFileName() + "." + UUID.randomUUID() + ".part");
+        channel = FileChannel.open(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private void fail() {
+        written = -1;
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+            if (tempFile != null) {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not delete incomplete file " + tempFile, e);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.utils;
+
+import com.google.protobuf.ByteString;
+import com.kumuluz.ee.grpc.client.GrpcChannelConfig;
+import io.grpc.Status;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/***
+ * GrpcFiles class
+ * Transfers files as streams of chunk messages. Files are sent from memory mapped regions with respect to flow control
+ * and received directly to file channel, so file data does not pass through heap arrays. Sent files must not be
+ * truncated during transfer.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public final class GrpcFiles {
+
+    /**
+     * Default HTTP/2 flow control window of Netty transport.
+     */
+    public static final int DEFAULT_FLOW_CONTROL_WINDOW = 1024 * 1024;
+
+    private static final int MIN_CHUNK_SIZE = 16 * 1024;
+    private static final int MAX_CHUNK_SIZE = 1024 * 1024;
+
+    private GrpcFiles() {
+    }
+
+    /**
+     * Chunk size, which keeps several chunks in flight within flow control window, so transport is never idle waiting
+     * for next chunk, while single chunk is small enough to be framed without large buffers.
+     *
+     * @param flowControlWindow flow control window of transport in bytes
+     * @return chunk size in bytes
+     */
+    public static int chunkSize(int flowControlWindow) {
+        return Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, flowControlWindow / 16));
+    }
+
+    /**
+     * @param config configuration of client
+     * @return chunk size for flow control window of client or default window, if client does not configure it
+     */
+    public static int chunkSize(GrpcChannelConfig config) {
+        return chunkSize(config.getFlowControlWindow() > 0 ? config.getFlowControlWindow()
+                : DEFAULT_FLOW_CONTROL_WINDOW);
+    }
+
+    /**
+     * Sends file as responses of server streaming call and completes call, using chunk size for default flow control
+     * window. Must be called from service method, before it returns.
+     *
+     * @param file             file to send
+     * @param chunk            creates response message from chunk data
+     * @param responseObserver response observer of call
+     */
+    public static <T> void sendFile(Path file, Function<ByteString, ? extends T> chunk,
+                                    StreamObserver<T> responseObserver) {
+        sendFile(file, chunkSize(DEFAULT_FLOW_CONTROL_WINDOW), chunk, responseObserver);
+    }
+
+    /**
+     * Sends file as responses of server streaming call and completes call. Next chunk is read only when call is ready.
+     * Must be called from service method, before it returns.
+     *
+     * @param file             file to send
+     * @param chunkSize        size of chunk data in bytes
+     * @param chunk            creates response message from chunk data
+     * @param responseObserver response observer of call
+     */
+    public static <T> void sendFile(Path file, int chunkSize, Function<ByteString, ? extends T> chunk,
+                                    StreamObserver<T> responseObserver) {
+        MappedFileIterator chunks;
+        try {
+            chunks = new MappedFileIterator(file, chunkSize);
+        } catch (IOException e) {
+            responseObserver.onError(fileStatus(e).withDescription("Could not open file").withCause(e)
+                    .asRuntimeException());
+            return;
+        }
+        GrpcStreams.respondFrom(new MappingIterator<>(chunks, chunk), chunks, responseObserver);
+    }
+
+    /**
+     * Creates response observer for client streaming call of async stub, which sends file as requests, using chunk
+     * size for default flow control window. Request observer returned by stub must not be used.
+     *
+     * @param file             file to send
+     * @param chunk            creates request message from chunk data
+     * @param responseObserver receives responses
+     * @return response observer to pass to stub
+     * @throws IOException if file could not be opened
+     */
+    public static <ReqT, RespT> ClientResponseObserver<ReqT, RespT> requestsFromFile(
+            Path file, Function<ByteString, ? extends ReqT> chunk, StreamObserver<RespT> responseObserver)
+            throws IOException {
+        return requestsFromFile(file, chunkSize(DEFAULT_FLOW_CONTROL_WINDOW), chunk, responseObserver);
+    }
+
+    /**
+     * Creates response observer for client streaming call of async stub, which sends file as requests, using chunk
+     * size for flow control window of client. Request observer returned by stub must not be used.
+     *
+     * @param file             file to send
+     * @param config           configuration of client making the call
+     * @param chunk            creates request message from chunk data
+     * @param responseObserver receives responses
+     * @return response observer to pass to stub
+     * @throws IOException if file could not be opened
+     */
+    public static <ReqT, RespT> ClientResponseObserver<ReqT, RespT> requestsFromFile(
+            Path file, GrpcChannelConfig config, Function<ByteString, ? extends ReqT> chunk,
+            StreamObserver<RespT> responseObserver) throws IOException {
+        return requestsFromFile(file, chunkSize(config), chunk, responseObserver);
+    }
+
+    /**
+     * Creates response observer for client streaming call of async stub, which sends file as requests. Next chunk is
+     * read only when call is ready. Request observer returned by stub must not be used.
+     *
+     * @param file             file to send
+     * @param chunkSize        size of chunk data in bytes
+     * @param chunk            creates request message from chunk data
+     * @param responseObserver receives responses
+     * @return response observer to pass to stub
+     * @throws IOException if file could not be opened
+     */
+    public static <ReqT, RespT> ClientResponseObserver<ReqT, RespT> requestsFromFile(
+            Path file, int chunkSize, Function<ByteString, ? extends ReqT> chunk,
+            StreamObserver<RespT> responseObserver) throws IOException {
+        MappedFileIterator chunks = new MappedFileIterator(file, chunkSize);
+        return GrpcStreams.requestsFrom(new MappingIterator<>(chunks, chunk), chunks, responseObserver);
+    }
+
+    /**
+     * Creates request observer of client streaming service method, which writes data of received chunks to temporary
+     * file in target directory. Completed file atomically replaces target file, so target is never seen partially
+     * written; temporary file is deleted, when upload fails. Response is sent when file is in place.
+     *
+     * @param file             target file
+     * @param chunkData        gets data of request message
+     * @param syncBytes        data is synced to storage after this many bytes and on completion; 0 disables syncing
+     * @param response         creates response from number of written bytes
+     * @param responseObserver response observer of call
+     * @return request observer, which must be returned from service method
+     */
+    public static <ReqT, RespT> StreamObserver<ReqT> receiveFile(Path file,
+                                                                 Function<? super ReqT, ByteString> chunkData,
+                                                                 long syncBytes,
+                                                                 Function<Long, ? extends RespT> response,
+                                                                 StreamObserver<RespT> responseObserver) {
+        return new FileChunkSink<>(file, chunkData, syncBytes, response, responseObserver);
+    }
+
+    /**
+     * @return status of failed file operation: NOT_FOUND for missing file, PERMISSION_DENIED for denied access,
+     * INTERNAL otherwise
+     */
+    static Status fileStatus(IOException e) {
+        if (e instanceof NoSuchFileException) {
+            return Status.NOT_FOUND;
+        }
+        if (e instanceof AccessDeniedException) {
+            return Status.PERMISSION_DENIED;
+        }
+        return Status.INTERNAL;
+    }
+
+    private static class MappingIterator<T> implements Iterator<T> {
+
+        private final MappedFileIterator chunks;
+        private final Function<ByteString, ? extends T> chunk;
+
+        MappingIterator(MappedFileIterator chunks, Function<ByteString, ? extends T> chunk) {
+            this.chunks = chunks;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return chunks.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return chunk.apply(chunks.next());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.utils;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/***
+ * GrpcStreams class
+ * Adapters which bind iterators and streams to streaming calls with respect to flow control. Outgoing messages are
+ * taken from source only when call is ready, incoming messages are requested only when consumer takes them.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public final class GrpcStreams {
+
+    private GrpcStreams() {
+    }
+
+    /**
+     * Sends messages of iterator as responses of server streaming call and completes call. Must be called from service
+     * method, before it returns.
+     *
+     * @param source           responses, {@link Iterator#next()} is called only when call is ready
+     * @param responseObserver response observer of call
+     */
+    public static <T> void respondFrom(Iterator<? extends T> source, StreamObserver<T> responseObserver) {
+        respondFrom(source, null, responseObserver);
+    }
+
+    /**
+     * Sends elements of stream as responses of server streaming call and completes call. Stream is closed when all
+     * elements are sent or call is cancelled. Must be called from service method, before it returns.
+     *
+     * @param source           responses
+     * @param responseObserver response observer of call
+     */
+    public static <T> void respondFrom(Stream<? extends T> source, StreamObserver<T> responseObserver) {
+        respondFrom(source.iterator(), source, responseObserver);
+    }
+
+    static <T> void respondFrom(Iterator<? extends T> source, AutoCloseable resource,
+                                StreamObserver<T> responseObserver) {
+        ServerCallStreamObserver<T> call = serverCall(responseObserver);
+        IteratorPump<T> pump = new IteratorPump<>(source, resource);
+        pump.setTarget(call);
+        call.setOnCancelHandler(pump::cancel);
+        call.setOnReadyHandler(pump);
+    }
+
+    /**
+     * Creates response observer for client or bidirectional streaming call of async stub, which sends messages of
+     * iterator as requests. Request observer returned by stub must not be used.
+     *
+     * @param source           requests, {@link Iterator#next()} is called only when call is ready
+     * @param responseObserver receives responses
+     * @return response observer to pass to stub
+     */
+    public static <ReqT, RespT> ClientResponseObserver<ReqT, RespT> requestsFrom(Iterator<? extends ReqT> source,
+                                                                                StreamObserver<RespT> responseObserver) {
+        return requestsFrom(source, null, responseObserver);
+    }
+
+    /**
+     * Creates response observer for client or bidirectional streaming call of async stub, which sends elements of
+     * stream as requests. Stream is closed when all elements are sent or call fails. Request observer returned by
+     * stub must not be used.
+     *
+     * @param source           requests
+     * @param responseObserver receives responses
+     * @return response observer to pass to stub
+     */
+    public static <ReqT, RespT> ClientResponseObserver<ReqT, RespT> requestsFrom(Stream<? extends ReqT> source,
+                                                                                StreamObserver<RespT> responseObserver) {
+        return requestsFrom(source.iterator(), source, responseObserver);
+    }
+
+    static <ReqT, RespT> ClientResponseObserver<ReqT, RespT> requestsFrom(
+            Iterator<? extends ReqT> source, AutoCloseable resource, StreamObserver<RespT> responseObserver) {
+        IteratorPump<ReqT> pump = new IteratorPump<>(source, resource);
+
+        return new ClientResponseObserver<ReqT, RespT>() {
+            @Override
+            public void beforeStart(ClientCallStreamObserver<ReqT> requestStream) {
+                pump.setTarget(requestStream);
+                requestStream.setOnReadyHandler(pump);
+            }
+
+            @Override
+            public void onNext(RespT value) {
+                responseObserver.onNext(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                pump.cancel();
+                responseObserver.onError(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                pump.cancel();
+                responseObserver.onCompleted();
+            }
+        };
+    }
+
+    /**
+     * Creates request observer of client or bidirectional streaming service method, whose requests are read with
+     * blocking iterator on another thread. Requests are received from client only as iterator consumes them. Must be
+     * called from service method, before it returns.
+     *
+     * @param responseObserver response observer of call
+     * @param bufferSize       number of requests received in advance
+     * @return iterator over requests, which must be returned from service method as request observer
+     */
+    public static <ReqT> StreamRequestIterator<ReqT> requestIterator(StreamObserver<?> responseObserver,
+                                                                     int bufferSize) {
+        ServerCallStreamObserver<?> call = serverCall(responseObserver);
+        call.disableAutoRequest();
+        return new StreamRequestIterator<>(call, bufferSize);
+    }
+
+    private static <T> ServerCallStreamObserver<T> serverCall(StreamObserver<T> responseObserver) {
+        if (!(responseObserver instanceof ServerCallStreamObserver)) {
+            throw new IllegalArgumentException("Response observer of server call expected");
+        }
+        return (ServerCallStreamObserver<T>) responseObserver;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.utils;
+
+import io.grpc.Status;
+import io.grpc.stub.CallStreamObserver;
+
+import java.util.Iterator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/***
+ * IteratorPump class
+ * Writes messages from iterator to call while call is ready. Runs as on-ready handler of call, so next message is
+ * taken from iterator only when transport can accept it.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class IteratorPump<T> implements Runnable {
+
+    private static final Logger logger = Logger.getLogger(IteratorPump.class.getName());
+
+    private final Iterator<? extends T> source;
+    private final AutoCloseable resource;
+    private CallStreamObserver<T> target;
+    private boolean done;
+
+    /**
+     * @param source   messages to send
+     * @param resource closed when messages are sent or call is cancelled, may be null
+     */
+    IteratorPump(Iterator<? extends T> source, AutoCloseable resource) {
+        this.source = source;
+        this.resource = resource;
+    }
+
+    synchronized void setTarget(CallStreamObserver<T> target) {
+        this.target = target;
+    }
+
+    @Override
+    public synchronized void run() {
+        if (target == null) {
+            return;
+        }
+        try {
+            while (!done && target.isReady()) {
+                if (!source.hasNext()) {
+                    finish();
+                    target.onCompleted();
+                    return;
+                }
+                target.onNext(source.next());
+            }
+        } catch (RuntimeException e) {
+            if (!done) {
+                finish();
+                target.onError(Status.fromThrowable(e).asRuntimeException());
+            }
+        }
+    }
+
+    /**
+     * Stops sending and closes resource, when call is cancelled.
+     */
+    synchronized void cancel() {
+        if (!done) {
+            finish();
+        }
+    }
+
+    private void finish() {
+        done = true;
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Could not close stream source", e);
+            }
+        }
+    }
+}
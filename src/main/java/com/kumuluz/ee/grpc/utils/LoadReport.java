@@ -0,0 +1,203 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.utils;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/***
+ * LoadReport class
+ * Server load report in ORCA text format (TEXT cpu_utilization=0.5,rps_fractional=10.0,named_metrics.queue=3).
+ * Reports are sent in endpoint-load-metrics trailer of every call and on out-of-band report stream.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class LoadReport {
+
+    public static final Metadata.Key<String> TRAILER_KEY =
+            Metadata.Key.of("endpoint-load-metrics", Metadata.ASCII_STRING_MARSHALLER);
+
+    public static final String SERVICE_NAME = "kumuluzee.grpc.LoadReportService";
+
+    /**
+     * Out-of-band report stream. Request is report interval in milliseconds, responses are reports in text format.
+     */
+    public static final MethodDescriptor<String, String> STREAM_METHOD = MethodDescriptor.<String, String>newBuilder()
+            .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+            .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, "StreamLoadReports"))
+            .setRequestMarshaller(new TextMarshaller())
+            .setResponseMarshaller(new TextMarshaller())
+            .build();
+
+    private static final String TEXT_PREFIX = "TEXT ";
+    private static final String NAMED_METRICS_PREFIX = "named_metrics.";
+
+    private final double cpuUtilization;
+    private final double applicationUtilization;
+    private final double rps;
+    private final double eps;
+    private final Map<String, Double> namedMetrics;
+
+    public LoadReport(double cpuUtilization, double applicationUtilization, double rps, double eps,
+                      Map<String, Double> namedMetrics) {
+        this.cpuUtilization = cpuUtilization;
+        this.applicationUtilization = applicationUtilization;
+        this.rps = rps;
+        this.eps = eps;
+        this.namedMetrics = Collections.unmodifiableMap(new LinkedHashMap<>(namedMetrics));
+    }
+
+    /**
+     * @return CPU utilization of server, usually between 0 and 1
+     */
+    public double getCpuUtilization() {
+        return cpuUtilization;
+    }
+
+    /**
+     * @return utilization reported by application or 0, if application does not report it
+     */
+    public double getApplicationUtilization() {
+        return applicationUtilization;
+    }
+
+    /**
+     * @return calls per second
+     */
+    public double getRps() {
+        return rps;
+    }
+
+    /**
+     * @return failed calls per second
+     */
+    public double getEps() {
+        return eps;
+    }
+
+    public Map<String, Double> getNamedMetrics() {
+        return namedMetrics;
+    }
+
+    public String toText() {
+        StringBuilder text = new StringBuilder(TEXT_PREFIX)
+                .append("cpu_utilization=").append(cpuUtilization)
+                .append(",rps_fractional=").append(rps)
+                .append(",eps=").append(eps);
+        if (applicationUtilization > 0) {
+            text.append(",application_utilization=").append(applicationUtilization);
+        }
+        for (Map.Entry<String, Double> metric : namedMetrics.entrySet()) {
+            text.append(',').append(NAMED_METRICS_PREFIX).append(metric.getKey()).append('=').append(metric.getValue());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Parses report in text format. Unknown keys are ignored.
+     *
+     * @param text report text
+     * @return parsed report or null, if text is not a valid report
+     */
+    public static LoadReport fromText(String text) {
+        if (text == null || !text.startsWith(TEXT_PREFIX)) {
+            return null;
+        }
+
+        double cpuUtilization = 0;
+        double applicationUtilization = 0;
+        double rps = 0;
+        double eps = 0;
+        Map<String, Double> namedMetrics = new LinkedHashMap<>();
+
+        try {
+            for (String entry : text.substring(TEXT_PREFIX.length()).split(",")) {
+                int separator = entry.indexOf('=');
+                if (separator < 0) {
+                    continue;
+                }
+                String key = entry.substring(0, separator).trim();
+                double value = Double.parseDouble(entry.substring(separator + 1).trim());
+
+                switch (key) {
+                    case "cpu_utilization":
+                        cpuUtilization = value;
+                        break;
+                    case "application_utilization":
+                        applicationUtilization = value;
+                        break;
+                    case "rps_fractional":
+                        rps = value;
+                        break;
+                    case "eps":
+                        eps = value;
+                        break;
+                    default:
+                        if (key.startsWith(NAMED_METRICS_PREFIX)) {
+                            namedMetrics.put(key.substring(NAMED_METRICS_PREFIX.length()), value);
+                        }
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        return new LoadReport(cpuUtilization, applicationUtilization, rps, eps, namedMetrics);
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+
+    private static class TextMarshaller implements MethodDescriptor.Marshaller<String> {
+
+        @Override
+        public InputStream stream(String value) {
+            return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String parse(InputStream stream) {
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[256];
+                int read;
+                while ((read = stream.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return new String(out.toByteArray(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read load report", e);
+            }
+        }
+    }
+}
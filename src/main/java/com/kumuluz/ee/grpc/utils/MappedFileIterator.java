@@ -0,0 +1,110 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.utils;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/***
+ * MappedFileIterator class
+ * Iterates over chunks of file, which are read through memory mapped regions of file channel. Chunks share memory with
+ * mapped regions, so file data is not copied to heap.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+class MappedFileIterator implements Iterator<ByteString>, AutoCloseable {
+
+    // size of mapped region, multiple of chunk size; regions are unmapped when chunks are collected
+    private static final long REGION_SIZE = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int chunkSize;
+    private final long regionSize;
+
+    private long regionStart;
+    private MappedByteBuffer region;
+
+    MappedFileIterator(Path file, int chunkSize) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        if (Files.isDirectory(file)) {
+            // directory can be opened for reading, but not mapped
+            throw new FileSystemException(file.toString(), null, "Is a directory");
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.chunkSize = chunkSize;
+        this.regionSize = Math.max(REGION_SIZE / chunkSize, 1) * chunkSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return regionStart + (region == null ? 0 : region.position()) < size;
+    }
+
+    @Override
+    public ByteString next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (region == null || !region.hasRemaining()) {
+            mapNextRegion();
+        }
+
+        ByteBuffer chunk = region.slice();
+        int length = Math.min(chunkSize, chunk.remaining());
+        chunk.limit(length);
+        region.position(region.position() + length);
+        return UnsafeByteOperations.unsafeWrap(chunk);
+    }
+
+    private void mapNextRegion() {
+        if (region != null) {
+            regionStart += region.capacity();
+        }
+        try {
+            region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(regionSize, size - regionStart));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map file region at " + regionStart, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+}
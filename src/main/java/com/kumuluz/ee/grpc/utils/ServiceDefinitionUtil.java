@@ -0,0 +1,75 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.utils;
+
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServiceDescriptor;
+
+import java.util.List;
+
+/***
+ * ServiceDefinitionUtil class
+ * Helpers for replacing methods of bound services.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class ServiceDefinitionUtil {
+
+    private ServiceDefinitionUtil() {
+    }
+
+    /**
+     * Creates service definition with given methods. Service descriptor is rebuilt, since it must contain same method
+     * descriptors as bound methods. Schema descriptor is kept, so reflection still works.
+     *
+     * @param definition original service definition
+     * @param methods    methods of new definition
+     * @return service definition with given methods
+     */
+    public static ServerServiceDefinition withMethods(ServerServiceDefinition definition,
+                                                      List<ServerMethodDefinition<?, ?>> methods) {
+        ServiceDescriptor descriptor = definition.getServiceDescriptor();
+        ServiceDescriptor.Builder descriptorBuilder = ServiceDescriptor.newBuilder(descriptor.getName())
+                .setSchemaDescriptor(descriptor.getSchemaDescriptor());
+        for (ServerMethodDefinition<?, ?> method : methods) {
+            descriptorBuilder.addMethod(method.getMethodDescriptor());
+        }
+
+        ServerServiceDefinition.Builder builder = ServerServiceDefinition.builder(descriptorBuilder.build());
+        for (ServerMethodDefinition<?, ?> method : methods) {
+            builder.addMethod(method);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Java methods of generated services are lower camel case versions of proto method names, so both are compared by
+     * this key.
+     *
+     * @param methodName proto or Java method name
+     * @return name without underscores in lower case
+     */
+    public static String methodKey(String methodName) {
+        return methodName.replace("_", "").toLowerCase();
+    }
+}
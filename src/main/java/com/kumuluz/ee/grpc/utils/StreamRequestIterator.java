@@ -0,0 +1,114 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.utils;
+
+import io.grpc.Status;
+import io.grpc.stub.CallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/***
+ * StreamRequestIterator class
+ * Blocking iterator over messages of streaming call. Messages are requested from transport only when there is room in
+ * buffer, so sender is slowed down by flow control instead of buffering unbounded data. Iterator is consumed on a
+ * different thread than the one delivering messages.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class StreamRequestIterator<T> implements Iterator<T>, StreamObserver<T> {
+
+    private static final Object END = new Object();
+
+    private final CallStreamObserver<?> call;
+    // never holds more than requested messages plus end marker
+    private final LinkedBlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+    private Object next;
+    private volatile Throwable error;
+
+    /**
+     * @param call       observer of call, whose automatic requests were disabled
+     * @param bufferSize number of messages requested in advance
+     */
+    StreamRequestIterator(CallStreamObserver<?> call, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        this.call = call;
+        call.request(bufferSize);
+    }
+
+    @Override
+    public void onNext(T value) {
+        queue.add(value);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        error = t;
+        queue.add(END);
+    }
+
+    @Override
+    public void onCompleted() {
+        queue.add(END);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Status.CANCELLED.withDescription("Interrupted while waiting for message").withCause(e)
+                        .asRuntimeException();
+            }
+            if (next != END) {
+                // message left buffer, so transport can deliver another one
+                call.request(1);
+            }
+        }
+        if (next == END) {
+            Throwable t = error;
+            if (t != null) {
+                throw Status.fromThrowable(t).asRuntimeException();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T value = (T) next;
+        next = null;
+        return value;
+    }
+}
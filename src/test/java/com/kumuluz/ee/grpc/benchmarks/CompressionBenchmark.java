@@ -0,0 +1,155 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.benchmarks;
+
+import com.google.protobuf.StringValue;
+import com.kumuluz.ee.grpc.client.CompressionClientInterceptor;
+import com.kumuluz.ee.grpc.client.GrpcMethodConfig;
+import com.kumuluz.ee.grpc.server.compression.CompressionConfig;
+import com.kumuluz.ee.grpc.server.compression.CompressionServerInterceptor;
+import com.kumuluz.ee.grpc.utils.CompressionCodecs;
+import io.grpc.CallOptions;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/***
+ * CompressionBenchmark class
+ * Sends unary echo calls with JSON-like text payload over loopback for identity, gzip and snappy codecs and reports
+ * bytes on wire (measured by stream tracer) and process CPU time per call. Payload below minimum size shows that
+ * small messages are sent uncompressed.
+ *
+ * Arguments: [calls per case, default 5000]
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class CompressionBenchmark {
+
+    private static final MethodDescriptor<StringValue, StringValue> ECHO = Benchmarks.method(
+            MethodDescriptor.MethodType.UNARY, "benchmark.Compression/Echo",
+            StringValue.getDefaultInstance(), StringValue.getDefaultInstance());
+
+    private static final int MIN_SIZE = 1024;
+
+    public static void main(String[] args) throws Exception {
+        int calls = Benchmarks.intArg(args, 0, 5000);
+        List<String> codecs = CompressionCodecs.DEFAULT_CODECS;
+
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(1);
+        while (text.length() < 8192) {
+            text.append("{\"id\":").append(random.nextInt(100000)).append(",\"name\":\"user")
+                    .append(random.nextInt(1000)).append("\",\"active\":true},");
+        }
+        StringValue[] payloads = {StringValue.of(text.toString()), StringValue.of(text.substring(0, 200))};
+
+        ServerServiceDefinition service = ServerServiceDefinition.builder("benchmark.Compression")
+                .addMethod(ECHO, ServerCalls.asyncUnaryCall((StringValue request,
+                                                              StreamObserver<StringValue> observer) -> {
+                    observer.onNext(request);
+                    observer.onCompleted();
+                }))
+                .build();
+
+        for (String codec : new String[]{"identity", CompressionCodecs.GZIP, "snappy"}) {
+            CompressionConfig.Builder serverConfig = new CompressionConfig.Builder();
+            serverConfig.name("*");
+            serverConfig.codec(codec);
+            serverConfig.minSize(MIN_SIZE);
+            Server server = NettyServerBuilder.forPort(0)
+                    .addService(ServerInterceptors.intercept(service,
+                            new CompressionServerInterceptor(Collections.singletonList(serverConfig.build()))))
+                    .compressorRegistry(CompressionCodecs.compressorRegistry(codecs))
+                    .decompressorRegistry(CompressionCodecs.decompressorRegistry(codecs))
+                    .build().start();
+
+            GrpcMethodConfig.Builder clientConfig = new GrpcMethodConfig.Builder();
+            clientConfig.name("");
+            clientConfig.compression(codec);
+            clientConfig.compressionMinSize(MIN_SIZE);
+            ManagedChannel channel = NettyChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext()
+                    .compressorRegistry(CompressionCodecs.compressorRegistry(codecs))
+                    .decompressorRegistry(CompressionCodecs.decompressorRegistry(codecs))
+                    .intercept(new CompressionClientInterceptor(Collections.singletonList(clientConfig.build())))
+                    .build();
+
+            try {
+                for (StringValue payload : payloads) {
+                    // first round warms up
+                    for (int round = 0; round < 2; round++) {
+                        run(channel, codec, payload, calls, round == 1);
+                    }
+                }
+            } finally {
+                channel.shutdownNow();
+                server.shutdownNow();
+            }
+        }
+    }
+
+    private static void run(ManagedChannel channel, String codec, StringValue payload, int calls, boolean print) {
+        AtomicLong sent = new AtomicLong();
+        AtomicLong received = new AtomicLong();
+        CallOptions callOptions = CallOptions.DEFAULT.withStreamTracerFactory(new ClientStreamTracer.Factory() {
+            @Override
+            public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+                return new ClientStreamTracer() {
+                    @Override
+                    public void outboundWireSize(long bytes) {
+                        sent.addAndGet(bytes);
+                    }
+
+                    @Override
+                    public void inboundWireSize(long bytes) {
+                        received.addAndGet(bytes);
+                    }
+                };
+            }
+        });
+
+        long cpu = Benchmarks.processCpuTime();
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            ClientCalls.blockingUnaryCall(channel, ECHO, callOptions, payload);
+        }
+        if (print) {
+            System.out.printf("%-8s %5d B message: %5d B sent, %5d B received per call, CPU %4.0f us/call, "
+                            + "%4.0f us/call%n", codec, payload.getSerializedSize(), sent.get() / calls,
+                    received.get() / calls, (Benchmarks.processCpuTime() - cpu) / 1000.0 / calls,
+                    (System.nanoTime() - start) / 1000.0 / calls);
+        }
+    }
+}
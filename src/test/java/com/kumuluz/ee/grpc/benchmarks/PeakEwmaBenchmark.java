@@ -0,0 +1,132 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.benchmarks;
+
+import com.kumuluz.ee.grpc.client.GrpcChannelConfig;
+import com.kumuluz.ee.grpc.client.GrpcClient;
+import com.kumuluz.ee.grpc.client.lb.LoadBalancingPolicy;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ * PeakEwmaBenchmark class
+ * Sends calls from concurrent callers to three local servers, one of which responds 25 times slower than others, and
+ * reports latency percentiles and share of calls received by each server for round robin, peak EWMA and least request
+ * policies.
+ *
+ * Arguments: [calls per policy, default 2000] [callers, default 8]
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class PeakEwmaBenchmark {
+
+    private static final long[] DELAYS_MILLIS = {50, 2, 2};
+
+    public static void main(String[] args) throws Exception {
+        int calls = Benchmarks.intArg(args, 0, 2000);
+        int callers = Benchmarks.intArg(args, 1, 8);
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+        List<Server> servers = new ArrayList<>();
+        AtomicInteger[] received = new AtomicInteger[DELAYS_MILLIS.length];
+        GrpcChannelConfig.Builder config = new GrpcChannelConfig.Builder();
+        config.name("benchmark");
+
+        for (int i = 0; i < DELAYS_MILLIS.length; i++) {
+            AtomicInteger serverCalls = new AtomicInteger();
+            received[i] = serverCalls;
+            long delay = DELAYS_MILLIS[i];
+            Server server = NettyServerBuilder.forPort(0).addService(new HealthGrpc.HealthImplBase() {
+                @Override
+                public void check(HealthCheckRequest request, StreamObserver<HealthCheckResponse> responseObserver) {
+                    serverCalls.incrementAndGet();
+                    scheduler.schedule(() -> {
+                        responseObserver.onNext(HealthCheckResponse.getDefaultInstance());
+                        responseObserver.onCompleted();
+                    }, delay, TimeUnit.MILLISECONDS);
+                }
+            }).build().start();
+            servers.add(server);
+            config.endpoint("127.0.0.1:" + server.getPort());
+        }
+
+        try {
+            for (LoadBalancingPolicy policy : new LoadBalancingPolicy[]{LoadBalancingPolicy.ROUND_ROBIN,
+                    LoadBalancingPolicy.PEAK_EWMA, LoadBalancingPolicy.LEAST_REQUEST}) {
+                config.loadBalancing(policy);
+                run(new GrpcClient(config.build()).getChannel(), policy, calls, callers, received);
+            }
+        } finally {
+            servers.forEach(Server::shutdownNow);
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static void run(ManagedChannel channel, LoadBalancingPolicy policy, int calls, int callers,
+                            AtomicInteger[] received) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            HealthGrpc.HealthBlockingStub stub = HealthGrpc.newBlockingStub(channel);
+            stub.check(HealthCheckRequest.getDefaultInstance());
+            for (AtomicInteger serverCalls : received) {
+                serverCalls.set(0);
+            }
+
+            long[] latencies = new long[calls];
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < calls; i++) {
+                int call = i;
+                futures.add(executor.submit(() -> {
+                    long start = System.nanoTime();
+                    stub.check(HealthCheckRequest.getDefaultInstance());
+                    latencies[call] = System.nanoTime() - start;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            Arrays.sort(latencies);
+            System.out.printf("%-14s p50 %5.1f ms, p99 %5.1f ms, slow server %4.1f%% of calls%n",
+                    policy.getConfigName(), latencies[calls / 2] / 1e6, latencies[calls * 99 / 100] / 1e6,
+                    100.0 * received[0].get() / calls);
+        } finally {
+            executor.shutdown();
+            channel.shutdownNow();
+        }
+    }
+}
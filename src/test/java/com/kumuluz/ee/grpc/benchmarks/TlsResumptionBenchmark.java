@@ -0,0 +1,161 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.benchmarks;
+
+import com.kumuluz.ee.grpc.client.GrpcChannelConfig;
+import com.kumuluz.ee.grpc.client.GrpcClient;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.netty.shaded.io.grpc.netty.GrpcSslContexts;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SslContext;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SslContextBuilder;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider;
+import io.grpc.stub.StreamObserver;
+
+import javax.net.ssl.KeyManagerFactory;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * TlsResumptionBenchmark class
+ * Measures reconnect time (new channel and first call) to local TLS server. Fresh mode gives every channel different
+ * session settings, so each gets its own SSL context like before contexts were cached; shared mode lets all channels
+ * use one cached context and its session cache.
+ * Self-signed certificate is generated with keytool from running JDK.
+ *
+ * Arguments: [reconnects per round, default 400]
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class TlsResumptionBenchmark {
+
+    private static final char[] PASSWORD = "benchmark".toCharArray();
+
+    public static void main(String[] args) throws Exception {
+        int reconnects = Benchmarks.intArg(args, 0, 400);
+
+        Path directory = Files.createTempDirectory("grpc-tls-benchmark");
+        File keyStore = directory.resolve("server.p12").toFile();
+        File certificate = directory.resolve("server.pem").toFile();
+        keytool("-genkeypair", "-alias", "server", "-keyalg", "EC", "-groupname", "secp256r1", "-dname",
+                "CN=localhost", "-ext", "san=dns:localhost", "-validity", "1", "-storetype", "PKCS12",
+                "-keystore", keyStore.getPath(), "-storepass", new String(PASSWORD));
+        keytool("-exportcert", "-rfc", "-alias", "server", "-keystore", keyStore.getPath(),
+                "-storepass", new String(PASSWORD), "-file", certificate.getPath());
+
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = new FileInputStream(keyStore)) {
+            store.load(in, PASSWORD);
+        }
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(store, PASSWORD);
+
+        SslContext serverContext = GrpcSslContexts.configure(SslContextBuilder.forServer(keyManagers),
+                SslProvider.OPENSSL).build();
+        Server server = NettyServerBuilder.forPort(0)
+                .sslContext(serverContext)
+                .addService(new HealthGrpc.HealthImplBase() {
+                    @Override
+                    public void check(HealthCheckRequest request, StreamObserver<HealthCheckResponse> observer) {
+                        observer.onNext(HealthCheckResponse.getDefaultInstance());
+                        observer.onCompleted();
+                    }
+                })
+                .build().start();
+
+        try {
+            int round = 0;
+            for (boolean shared : new boolean[]{false, true, false, true}) {
+                round++;
+                long[] latencies = new long[reconnects];
+                for (int i = 0; i < reconnects; i++) {
+                    GrpcChannelConfig.Builder config = new GrpcChannelConfig.Builder();
+                    config.name("benchmark");
+                    config.address("localhost");
+                    config.port(server.getPort());
+                    config.trustManager(certificate.getPath());
+                    if (!shared) {
+                        // distinct settings force new context
+                        config.sessionTimeout(100_000 + round * reconnects + i);
+                    }
+
+                    long start = System.nanoTime();
+                    ManagedChannel channel = new GrpcClient(config.build()).getChannel();
+                    call(channel);
+                    latencies[i] = System.nanoTime() - start;
+                    channel.shutdownNow();
+                    channel.awaitTermination(1, TimeUnit.SECONDS);
+                }
+
+                Arrays.sort(latencies);
+                System.out.printf("%s: p50 %.2f ms, p90 %.2f ms%n", shared ? "shared context" : "fresh context ",
+                        latencies[reconnects / 2] / 1e6, latencies[reconnects * 9 / 10] / 1e6);
+            }
+        } finally {
+            server.shutdownNow();
+            Files.deleteIfExists(certificate.toPath());
+            Files.deleteIfExists(keyStore.toPath());
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static void call(ManagedChannel channel) throws InterruptedException {
+        ClientCall<HealthCheckRequest, HealthCheckResponse> call = channel.newCall(HealthGrpc.getCheckMethod(),
+                CallOptions.DEFAULT);
+        CountDownLatch done = new CountDownLatch(1);
+        call.start(new ClientCall.Listener<HealthCheckResponse>() {
+            @Override
+            public void onClose(Status status, Metadata trailers) {
+                done.countDown();
+            }
+        }, new Metadata());
+        call.request(1);
+        call.sendMessage(HealthCheckRequest.getDefaultInstance());
+        call.halfClose();
+        done.await();
+    }
+
+    private static void keytool(String... args) throws Exception {
+        String[] command = new String[args.length + 1];
+        command[0] = new File(System.getProperty("java.home"), "bin/keytool").getPath();
+        System.arraycopy(args, 0, command, 1, args.length);
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("keytool failed: " + String.join(" ", args));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.benchmarks;
+
+import com.kumuluz.ee.grpc.client.GrpcChannelConfig;
+import com.kumuluz.ee.grpc.client.GrpcClient;
+import com.kumuluz.ee.grpc.client.lb.LoadBalancingPolicy;
+import com.kumuluz.ee.grpc.client.lb.WeightedRoundRobinConfig;
+import com.kumuluz.ee.grpc.server.load.LoadReportServerInterceptor;
+import com.kumuluz.ee.grpc.server.load.LoadReportService;
+import com.kumuluz.ee.grpc.server.load.ServerLoadReporter;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * WeightedRoundRobinBenchmark class
+ * Splits calls between two local servers, where call on first server costs 4 times more (synthetic) CPU than call on
+ * second one, and reports how many calls each server received with round robin and with weighted round robin using
+ * per-call and out-of-band load reports. Also measures cost of building load report, which is done on every call with
+ * per-call reports.
+ *
+ * Arguments: [measured calls, default 4000] [report threads, default 4]
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class WeightedRoundRobinBenchmark {
+
+    private static final double[] CPU_PER_CALL = {0.0004, 0.0001};
+
+    public static void main(String[] args) throws Exception {
+        int calls = Benchmarks.intArg(args, 0, 4000);
+        int reportThreads = Benchmarks.intArg(args, 1, 4);
+
+        measureReports(reportThreads);
+        split(LoadBalancingPolicy.ROUND_ROBIN, false, calls);
+        split(LoadBalancingPolicy.WEIGHTED_ROUND_ROBIN, false, calls);
+        split(LoadBalancingPolicy.WEIGHTED_ROUND_ROBIN, true, calls);
+    }
+
+    private static void measureReports(int threads) throws InterruptedException {
+        ServerLoadReporter reporter = new ServerLoadReporter();
+        LongAdder reports = new LongAdder();
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    reporter.getLoadReport().toText();
+                    reports.increment();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        System.out.printf("load reports: %d threads, %d reports/s%n", threads, reports.sum() / 3);
+    }
+
+    private static void split(LoadBalancingPolicy policy, boolean outOfBand, int calls) throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger[] received = new AtomicInteger[CPU_PER_CALL.length];
+        Server[] servers = new Server[CPU_PER_CALL.length];
+
+        GrpcChannelConfig.Builder config = new GrpcChannelConfig.Builder();
+        config.name("benchmark");
+        for (int i = 0; i < servers.length; i++) {
+            AtomicInteger serverCalls = new AtomicInteger();
+            received[i] = serverCalls;
+            ServerLoadReporter reporter = new ServerLoadReporter();
+            double cpuPerCall = CPU_PER_CALL[i];
+
+            // utilization follows calls received in last 200 ms
+            reporter.setCpuUtilization(0.01);
+            scheduler.scheduleAtFixedRate(new Runnable() {
+                private int last;
+
+                @Override
+                public void run() {
+                    int total = serverCalls.get();
+                    reporter.setCpuUtilization(Math.max(0.01, (total - last) * 5 * cpuPerCall));
+                    last = total;
+                }
+            }, 200, 200, TimeUnit.MILLISECONDS);
+
+            servers[i] = NettyServerBuilder.forPort(0)
+                    .addService(ServerInterceptors.intercept(new HealthGrpc.HealthImplBase() {
+                        @Override
+                        public void check(HealthCheckRequest request,
+                                          StreamObserver<HealthCheckResponse> responseObserver) {
+                            serverCalls.incrementAndGet();
+                            responseObserver.onNext(HealthCheckResponse.getDefaultInstance());
+                            responseObserver.onCompleted();
+                        }
+                    }, new LoadReportServerInterceptor(reporter, !outOfBand)))
+                    .addService(new LoadReportService(reporter))
+                    .build().start();
+            config.endpoint("localhost:" + servers[i].getPort());
+        }
+
+        config.loadBalancing(policy);
+        WeightedRoundRobinConfig.Builder weighted = new WeightedRoundRobinConfig.Builder();
+        weighted.blackoutPeriod(500);
+        weighted.weightUpdatePeriod(200);
+        weighted.outOfBandReporting(outOfBand);
+        weighted.outOfBandReportingPeriod(200);
+        config.weightedRoundRobin(weighted.build());
+
+        ManagedChannel channel = new GrpcClient(config.build()).getChannel();
+        try {
+            HealthGrpc.HealthBlockingStub stub = HealthGrpc.newBlockingStub(channel);
+            // warm up until weights are past blackout period
+            long warmUpEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(2500);
+            while (System.nanoTime() < warmUpEnd) {
+                stub.check(HealthCheckRequest.getDefaultInstance());
+            }
+            for (AtomicInteger serverCalls : received) {
+                serverCalls.set(0);
+            }
+            for (int i = 0; i < calls; i++) {
+                stub.check(HealthCheckRequest.getDefaultInstance());
+            }
+            System.out.printf("%s%s: expensive server %d calls, cheap server %d calls%n", policy.getConfigName(),
+                    outOfBand ? " (out-of-band)" : "", received[0].get(), received[1].get());
+        } finally {
+            channel.shutdownNow();
+            for (Server server : servers) {
+                server.shutdownNow();
+            }
+            scheduler.shutdownNow();
+        }
+    }
+}
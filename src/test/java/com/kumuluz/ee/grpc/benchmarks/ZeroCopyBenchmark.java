@@ -0,0 +1,106 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.benchmarks;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.BytesValue;
+import com.google.protobuf.Int32Value;
+import com.kumuluz.ee.grpc.annotations.GrpcZeroCopy;
+import com.kumuluz.ee.grpc.server.zerocopy.ZeroCopyBinder;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+
+/***
+ * ZeroCopyBenchmark class
+ * Measures heap allocated by client and server per unary call with large bytes request, with default parsing and with
+ * {@link GrpcZeroCopy} parsing. Client and server run in same JVM, so client side allocation is included in both.
+ *
+ * Arguments: [calls per size, default 20]
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class ZeroCopyBenchmark {
+
+    private static final MethodDescriptor<BytesValue, Int32Value> UPLOAD = Benchmarks.method(
+            MethodDescriptor.MethodType.UNARY, "benchmark.Blobs/Upload",
+            BytesValue.getDefaultInstance(), Int32Value.getDefaultInstance());
+
+    private static final int[] SIZES_MIB = {1, 4, 16};
+
+    public static class BlobsImpl {
+
+        @GrpcZeroCopy(minSize = 1024)
+        public void upload() {
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int calls = Benchmarks.intArg(args, 0, 20);
+
+        for (boolean zeroCopy : new boolean[]{false, true}) {
+            ServerServiceDefinition service = ServerServiceDefinition.builder("benchmark.Blobs")
+                    .addMethod(UPLOAD, ServerCalls.asyncUnaryCall((BytesValue request,
+                                                                    StreamObserver<Int32Value> observer) -> {
+                        observer.onNext(Int32Value.of(request.getValue().byteAt(request.getValue().size() - 1)));
+                        observer.onCompleted();
+                    }))
+                    .build();
+            if (zeroCopy) {
+                service = ZeroCopyBinder.bind(service, BlobsImpl.class);
+            }
+            Server server = NettyServerBuilder.forPort(0).maxInboundMessageSize(64 << 20).addService(service)
+                    .build().start();
+            ManagedChannel channel = NettyChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext()
+                    .build();
+            try {
+                for (int sizeMib : SIZES_MIB) {
+                    BytesValue request = BytesValue.of(ByteString.copyFrom(new byte[sizeMib << 20]));
+                    for (int i = 0; i < 5; i++) {
+                        ClientCalls.blockingUnaryCall(channel, UPLOAD, CallOptions.DEFAULT, request);
+                    }
+
+                    long allocated = Benchmarks.allocatedBytes();
+                    long start = System.nanoTime();
+                    for (int i = 0; i < calls; i++) {
+                        ClientCalls.blockingUnaryCall(channel, UPLOAD, CallOptions.DEFAULT, request);
+                    }
+                    long elapsed = System.nanoTime() - start;
+                    System.out.printf("%s %2d MiB: %6.1f MiB allocated per call, %6.2f ms per call%n",
+                            zeroCopy ? "zero-copy" : "default  ", sizeMib,
+                            (Benchmarks.allocatedBytes() - allocated) / (double) calls / (1 << 20),
+                            elapsed / 1e6 / calls);
+                }
+            } finally {
+                channel.shutdownNow();
+                server.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.client.lb;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.kumuluz.ee.grpc.client.GrpcChannelConfig;
+import com.kumuluz.ee.grpc.client.GrpcClient;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ * EndpointLoadBalancingTest class
+ * Calls three loopback servers through static endpoints and checks how calls are distributed by pick_first,
+ * round_robin and least_request policies. First endpoint is given by host name, so it is one endpoint even if host
+ * name resolves to several addresses.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class EndpointLoadBalancingTest {
+
+    private static final int SERVERS = 3;
+    private static final int CALLS = 300;
+
+    private static final List<CountingHealthService> services = new ArrayList<>();
+    private static final List<Server> servers = new ArrayList<>();
+
+    private ManagedChannel channel;
+
+    @BeforeClass
+    public static void startServers() throws IOException {
+        for (int i = 0; i < SERVERS; i++) {
+            CountingHealthService service = new CountingHealthService();
+            services.add(service);
+            servers.add(NettyServerBuilder.forPort(0).addService(service).build().start());
+        }
+    }
+
+    @AfterClass
+    public static void stopServers() {
+        servers.forEach(Server::shutdownNow);
+    }
+
+    @After
+    public void closeChannel() {
+        if (channel != null) {
+            channel.shutdownNow();
+        }
+        services.forEach(CountingHealthService::reset);
+    }
+
+    @Test
+    public void pickFirstSendsAllCallsToOneEndpoint() throws Exception {
+        HealthGrpc.HealthBlockingStub stub = HealthGrpc.newBlockingStub(channel(LoadBalancingPolicy.PICK_FIRST));
+        for (int i = 0; i < CALLS; i++) {
+            stub.check(HealthCheckRequest.getDefaultInstance());
+        }
+
+        int[] calls = callsPerServer();
+        Assert.assertEquals(CALLS, max(calls));
+    }
+
+    @Test
+    public void roundRobinSendsSameShareToEveryEndpoint() throws Exception {
+        HealthGrpc.HealthBlockingStub stub = HealthGrpc.newBlockingStub(channel(LoadBalancingPolicy.ROUND_ROBIN));
+        awaitAllEndpointsReady(stub);
+
+        for (int i = 0; i < CALLS; i++) {
+            stub.check(HealthCheckRequest.getDefaultInstance());
+        }
+
+        for (int calls : callsPerServer()) {
+            Assert.assertEquals(CALLS / SERVERS, calls);
+        }
+    }
+
+    @Test
+    public void leastRequestAvoidsEndpointWithCallsInFlight() throws Exception {
+        HealthGrpc.HealthFutureStub stub = HealthGrpc.newFutureStub(channel(LoadBalancingPolicy.LEAST_REQUEST));
+        awaitAllEndpointsReady(HealthGrpc.newBlockingStub(channel));
+
+        // first server keeps calls open, other servers answer at once
+        CountingHealthService holding = services.get(0);
+        holding.hold();
+        int answered = 0;
+        for (int i = 0; i < CALLS; i++) {
+            int held = holding.getCalls();
+            ListenableFuture<HealthCheckResponse> response = stub.check(HealthCheckRequest.getDefaultInstance());
+            awaitReceived(i + 1);
+            if (holding.getCalls() == held) {
+                // answered call must be closed before next pick, so only held call stays in flight
+                response.get(5, TimeUnit.SECONDS);
+                answered++;
+            }
+        }
+
+        // once held call is in flight, two random endpoints always include one with fewer calls
+        Assert.assertEquals(1, holding.getCalls());
+        Assert.assertEquals(CALLS - 1, answered);
+        holding.release();
+    }
+
+    private ManagedChannel channel(LoadBalancingPolicy policy) throws SSLException {
+        GrpcChannelConfig.Builder builder = new GrpcChannelConfig.Builder();
+        builder.name("load-balancing-test");
+        builder.endpoint("localhost:" + servers.get(0).getPort());
+        for (int i = 1; i < SERVERS; i++) {
+            builder.endpoint("127.0.0.1:" + servers.get(i).getPort());
+        }
+        builder.loadBalancing(policy);
+        channel = new GrpcClient(builder.build()).getChannel();
+        return channel;
+    }
+
+    /**
+     * Calls until every server received a call, so later calls are picked from all endpoints.
+     */
+    private static void awaitAllEndpointsReady(HealthGrpc.HealthBlockingStub stub) {
+        for (int i = 0; i < 1000 && min(callsPerServer()) == 0; i++) {
+            stub.check(HealthCheckRequest.getDefaultInstance());
+        }
+        Assert.assertTrue("Not all endpoints received calls", min(callsPerServer()) > 0);
+        services.forEach(CountingHealthService::reset);
+    }
+
+    private static void awaitReceived(int total) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sum(callsPerServer()) < total) {
+            if (System.nanoTime() > deadline) {
+                Assert.fail("Call did not reach any server");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private static int[] callsPerServer() {
+        int[] calls = new int[SERVERS];
+        for (int i = 0; i < SERVERS; i++) {
+            calls[i] = services.get(i).getCalls();
+        }
+        return calls;
+    }
+
+    private static int max(int[] values) {
+        int max = Integer.MIN_VALUE;
+        for (int value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    private static int min(int[] values) {
+        int min = Integer.MAX_VALUE;
+        for (int value : values) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    private static int sum(int[] values) {
+        int sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    /**
+     * Health service counting its calls, which can hold calls open until released.
+     */
+    private static class CountingHealthService extends HealthGrpc.HealthImplBase {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final List<StreamObserver<HealthCheckResponse>> held = new CopyOnWriteArrayList<>();
+        private volatile boolean holding;
+
+        @Override
+        public void check(HealthCheckRequest request, StreamObserver<HealthCheckResponse> responseObserver) {
+            calls.incrementAndGet();
+            if (holding) {
+                held.add(responseObserver);
+                return;
+            }
+            responseObserver.onNext(HealthCheckResponse.getDefaultInstance());
+            responseObserver.onCompleted();
+        }
+
+        int getCalls() {
+            return calls.get();
+        }
+
+        void hold() {
+            holding = true;
+        }
+
+        void release() {
+            holding = false;
+            for (StreamObserver<HealthCheckResponse> observer : held) {
+                observer.onNext(HealthCheckResponse.getDefaultInstance());
+                observer.onCompleted();
+            }
+            held.clear();
+        }
+
+        void reset() {
+            release();
+            calls.set(0);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ *  Copyright (c) 2014-2018 Kumuluz and/or its affiliates
+ *  and other contributors as indicated by the @author tags and
+ *  the contributor list.
+ *
+ *  Licensed under the MIT License (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  https://opensource.org/licenses/MIT
+ *
+ *  The software is provided "AS IS", WITHOUT WARRANTY OF ANY KIND, express or
+ *  implied, including but not limited to the warranties of merchantability,
+ *  fitness for a particular purpose and noninfringement. in no event shall the
+ *  authors or copyright holders be liable for any claim, damages or other
+ *  liability, whether in an action of contract, tort or otherwise, arising from,
+ *  out of or in connection with the software or the use or other dealings in the
+ *  software. See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.kumuluz.ee.grpc.utils;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.BytesValue;
+import com.kumuluz.ee.grpc.server.compression.CompressionConfig;
+import com.kumuluz.ee.grpc.server.compression.CompressionServerInterceptor;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.Status;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/***
+ * CompressionCodecsTest class
+ * Tests minimum size threshold of compressed messages for protobuf messages, byte arrays, pre-encoded messages and
+ * messages of unknown size.
+ *
+ * @author Primoz Hrovat
+ * @since 1.4.0
+ */
+public class CompressionCodecsTest {
+
+    private static final int MIN_SIZE = 100;
+
+    @Test
+    public void protobufMessageIsComparedBySerializedSize() {
+        BytesValue small = BytesValue.newBuilder().setValue(ByteString.copyFrom(new byte[10])).build();
+        BytesValue large = BytesValue.newBuilder().setValue(ByteString.copyFrom(new byte[200])).build();
+
+        Assert.assertFalse(CompressionCodecs.shouldCompress(small, MIN_SIZE));
+        Assert.assertTrue(CompressionCodecs.shouldCompress(large, MIN_SIZE));
+    }
+
+    @Test
+    public void byteArrayIsComparedByLength() {
+        Assert.assertFalse(CompressionCodecs.shouldCompress(new byte[MIN_SIZE - 1], MIN_SIZE));
+        Assert.assertTrue(CompressionCodecs.shouldCompress(new byte[MIN_SIZE], MIN_SIZE));
+    }
+
+    @Test
+    public void sizedMessageIsComparedByItsSize() {
+        Assert.assertFalse(CompressionCodecs.shouldCompress(sized(MIN_SIZE - 1), MIN_SIZE));
+        Assert.assertTrue(CompressionCodecs.shouldCompress(sized(MIN_SIZE), MIN_SIZE));
+    }
+
+    @Test
+    public void messageOfUnknownSizeIsAlwaysCompressed() {
+        Assert.assertTrue(CompressionCodecs.shouldCompress("small", MIN_SIZE));
+    }
+
+    @Test
+    public void serverInterceptorSendsSmallByteArrayUncompressed() {
+        CompressionConfig.Builder builder = new CompressionConfig.Builder();
+        builder.name("*");
+        builder.codec(CompressionCodecs.GZIP);
+        builder.minSize(MIN_SIZE);
+        CompressionServerInterceptor interceptor =
+                new CompressionServerInterceptor(Collections.singletonList(builder.build()));
+
+        RecordingCall call = new RecordingCall();
+        interceptor.interceptCall(call, new Metadata(), (serverCall, headers) -> {
+            serverCall.sendMessage(new byte[10]);
+            serverCall.sendMessage(new byte[1000]);
+            return new ServerCall.Listener<byte[]>() {
+            };
+        });
+
+        Assert.assertEquals(CompressionCodecs.GZIP, call.compressor);
+        Assert.assertEquals(2, call.sent.size());
+        Assert.assertEquals(false, call.messageCompression.get(0));
+        Assert.assertEquals(true, call.messageCompression.get(1));
+    }
+
+    private static SizedMessage sized(int size) {
+        return () -> size;
+    }
+
+    /**
+     * Records compression settings in effect for each sent message.
+     */
+    private static class RecordingCall extends ServerCall<byte[], byte[]> {
+
+        private final List<byte[]> sent = new ArrayList<>();
+        private final List<Boolean> messageCompression = new ArrayList<>();
+        private boolean compressionEnabled = true;
+        private String compressor;
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void sendHeaders(Metadata headers) {
+        }
+
+        @Override
+        public void sendMessage(byte[] message) {
+            sent.add(message);
+            messageCompression.add(compressionEnabled);
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public void setMessageCompression(boolean enabled) {
+            compressionEnabled = enabled;
+        }
+
+        @Override
+        public void setCompression(String compressor) {
+            this.compressor = compressor;
+        }
+
+        @Override
+        public MethodDescriptor<byte[], byte[]> getMethodDescriptor() {
+            return MethodDescriptor.<byte[], byte[]>newBuilder()
+                    .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+                    .setFullMethodName("test.Service/Method")
+                    .setRequestMarshaller(ByteArrayMarshaller.INSTANCE)
+                    .setResponseMarshaller(ByteArrayMarshaller.INSTANCE)
+                    .build();
+        }
+    }
+}